@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark input: boxed keys of a given size and distribution, streamed sequentially or
+ * in parallel.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkData {
+
+    /**
+     * How keys are distributed.
+     */
+    public enum Distribution {
+        /**
+         * Keys drawn uniformly at random from {@code [0, size)}.
+         */
+        UNIFORM {
+            @Override
+            long[] keys(int size, SplittableRandom random) {
+                return random.longs(size, 0, size).toArray();
+            }
+        },
+        /**
+         * Keys drawn by rank from a Zipfian distribution with exponent {@code 1}, so that a
+         * few keys are very frequent. Ranks are scattered so that hot keys are not
+         * adjacent.
+         */
+        ZIPFIAN {
+            @Override
+            long[] keys(int size, SplittableRandom random) {
+                double[] cumulative = new double[size];
+                double sum = 0;
+                for (int i = 0; i < size; i++) {
+                    cumulative[i] = sum += 1.0 / (i + 1);
+                }
+                long[] results = new long[size];
+                for (int i = 0; i < size; i++) {
+                    int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+                    results[i] = scatter(rank < 0 ? -rank - 1 : rank, size);
+                }
+                return results;
+            }
+        },
+        /**
+         * Distinct keys in ascending order.
+         */
+        SORTED {
+            @Override
+            long[] keys(int size, SplittableRandom random) {
+                long[] results = new long[size];
+                Arrays.setAll(results, i -> i);
+                return results;
+            }
+        };
+
+        abstract long[] keys(int size, SplittableRandom random);
+
+        private static long scatter(int rank, int size) {
+            return (rank * 0x9E3779B97F4A7C15L >>> 1) % size;
+        }
+    }
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param
+    public Distribution distribution;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    /**
+     * The number of groups to group keys into, about {@code 16} keys per group.
+     */
+    long groups;
+
+    private Long[] keys;
+
+    @Setup
+    public void setUp() {
+        keys = Arrays.stream(distribution.keys(size, new SplittableRandom(size)))
+                .boxed()
+                .toArray(Long[]::new);
+        groups = Math.max(1, size / 16);
+    }
+
+    /**
+     * @return a new {@link Stream} over the keys
+     */
+    Stream<Long> stream() {
+        Stream<Long> stream = Arrays.stream(keys);
+        return parallel ? stream.parallel() : stream;
+    }
+
+    /**
+     * @return the keys, for manual loops
+     */
+    Long[] keys() {
+        return keys;
+    }
+
+    /**
+     * @param key the key
+     * @return the group of the key
+     */
+    long group(long key) {
+        return key % groups;
+    }
+}
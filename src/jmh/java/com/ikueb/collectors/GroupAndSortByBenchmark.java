@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static java.util.Comparator.naturalOrder;
+
+/**
+ * Benchmarks the grouping {@link java.util.stream.Collector} implementations of
+ * {@link NavigableMapCollectors}, with about {@code 16} keys per group sorted as values,
+ * against {@link Collectors#groupingBy(Function)} and a manual loop into a
+ * {@link TreeMap}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class GroupAndSortByBenchmark {
+
+    @Benchmark
+    public NavigableMap<Long, List<Long>> baselineGroupingByThenTreeMap(BenchmarkData data) {
+        Map<Long, List<Long>> map = data.stream()
+                .collect(Collectors.groupingBy(data::group));
+        map.values().forEach(values -> values.sort(naturalOrder()));
+        return new TreeMap<>(map);
+    }
+
+    @Benchmark
+    public NavigableMap<Long, List<Long>> baselineManualLoop(BenchmarkData data) {
+        NavigableMap<Long, List<Long>> map = new TreeMap<>();
+        for (Long key : data.keys()) {
+            map.computeIfAbsent(data.group(key), k -> new ArrayList<>()).add(key);
+        }
+        map.values().forEach(values -> values.sort(naturalOrder()));
+        return map;
+    }
+
+    @Benchmark
+    public NavigableMap<Long, List<Long>> groupAndSortBy(BenchmarkData data) {
+        return data.stream()
+                .collect(NavigableMapCollectors.groupAndSortBy(data::group,
+                        Function.identity()));
+    }
+
+    @Benchmark
+    public LongNavigableMap<List<Long>> groupAndSortByLong(BenchmarkData data) {
+        return data.stream()
+                .collect(NavigableMapCollectors.groupAndSortByLong(data::group,
+                        Function.identity()));
+    }
+
+    @Benchmark
+    public NavigableMap<Long, Long> groupAndCountBy(BenchmarkData data) {
+        return data.stream()
+                .collect(NavigableMapCollectors.groupAndCountBy(data::group));
+    }
+
+    @Benchmark
+    public NavigableMap<Long, List<Long>> groupAndSortByConcurrent(BenchmarkData data) {
+        return data.stream()
+                .collect(NavigableMapCollectors.groupAndSortByConcurrent(data::group,
+                        Function.identity()));
+    }
+
+    @Benchmark
+    public NavigableMap<Long, List<Long>> groupAndSortByConcurrentMerging(
+            BenchmarkData data) {
+        return data.stream()
+                .collect(NavigableMapCollectors.groupAndSortByConcurrentMerging(data::group,
+                        Function.identity()));
+    }
+
+    @Benchmark
+    public NavigableMap<Long, Long> groupAndCountByConcurrent(BenchmarkData data) {
+        return data.stream()
+                .collect(NavigableMapCollectors.groupAndCountByConcurrent(data::group));
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static java.util.Comparator.naturalOrder;
+
+/**
+ * Benchmarks the one-to-one mapping {@link java.util.stream.Collector} implementations of
+ * {@link NavigableMapCollectors}, merging the values of duplicate keys, against
+ * {@link Collectors#toMap(Function, Function, BinaryOperator)} and a
+ * manual loop into a {@link TreeMap}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ToNavigableMapBenchmark {
+
+    private static final Function<Long, Long> IDENTITY = Function.identity();
+    private static final Comparator<Long> ORDER = naturalOrder();
+    private static final BinaryOperator<Long> SUM = Long::sum;
+
+    @Benchmark
+    public NavigableMap<Long, Long> baselineToMapThenTreeMap(BenchmarkData data) {
+        Map<Long, Long> map = data.stream()
+                .collect(Collectors.toMap(IDENTITY, IDENTITY, SUM));
+        return new TreeMap<>(map);
+    }
+
+    @Benchmark
+    public NavigableMap<Long, Long> baselineManualLoop(BenchmarkData data) {
+        NavigableMap<Long, Long> map = new TreeMap<>();
+        for (Long key : data.keys()) {
+            map.merge(key, key, SUM);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public NavigableMap<Long, Long> toNavigableMap(BenchmarkData data) {
+        return data.stream()
+                .collect(NavigableMapCollectors.toNavigableMap(IDENTITY, IDENTITY,
+                        ORDER, SUM));
+    }
+
+    @Benchmark
+    public NavigableMap<Long, Long> toImmutableNavigableMap(BenchmarkData data) {
+        return data.stream()
+                .collect(NavigableMapCollectors.toImmutableNavigableMap(IDENTITY, IDENTITY,
+                        ORDER, SUM));
+    }
+
+    @Benchmark
+    public NavigableMap<Long, Long> toRadixNavigableMap(BenchmarkData data) {
+        return data.stream()
+                .collect(NavigableMapCollectors.toRadixNavigableMap(IDENTITY, IDENTITY,
+                        key -> SortKeys.of((long) key), SUM));
+    }
+
+    @Benchmark
+    public LongNavigableMap<Long> toLongNavigableMap(BenchmarkData data) {
+        return data.stream()
+                .collect(NavigableMapCollectors.toLongNavigableMap(Long::longValue,
+                        IDENTITY, SUM));
+    }
+
+    @Benchmark
+    public NavigableMap<Long, Long> toConcurrentNavigableMap(BenchmarkData data) {
+        return data.stream()
+                .collect(NavigableMapCollectors.toConcurrentNavigableMap(
+                        IDENTITY, IDENTITY, ORDER, SUM));
+    }
+
+    @Benchmark
+    public NavigableMap<Long, Long> toConcurrentNavigableMapMerging(BenchmarkData data) {
+        return data.stream()
+                .collect(NavigableMapCollectors.toConcurrentNavigableMapMerging(
+                        IDENTITY, IDENTITY, ORDER, SUM));
+    }
+}
@@ -0,0 +1,512 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import java.util.*;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A read-only {@link NavigableMap} over entries that are stored in ascending key order
+ * and accessed by their index, so that lookups are binary searches and sub-map views
+ * are index ranges over the same storage.
+ * <p>
+ * All mutating methods throw {@link UnsupportedOperationException}.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+public abstract class ArrayNavigableMap<K, V> extends AbstractMap<K, V>
+        implements NavigableMap<K, V> {
+
+    /**
+     * The first index, inclusive, of this view.
+     */
+    final int from;
+
+    /**
+     * The last index, exclusive, of this view.
+     */
+    final int to;
+
+    /**
+     * Whether this view iterates from {@code to - 1} down to {@code from}.
+     */
+    final boolean descending;
+
+    /**
+     * The key bounds of this view, which are only set by the view methods right after
+     * creating it, and never changed after.
+     */
+    private KeyRange keyRange = KeyRange.UNBOUNDED;
+
+    ArrayNavigableMap(int from, int to, boolean descending) {
+        this.from = from;
+        this.to = to;
+        this.descending = descending;
+    }
+
+    /**
+     * @param index the index of the entry
+     * @return the key at the index
+     */
+    abstract K keyAt(int index);
+
+    /**
+     * @param index the index of the entry
+     * @return the value at the index
+     */
+    abstract V valueAt(int index);
+
+    /**
+     * @return the {@link Comparator} that the underlying storage is sorted by
+     */
+    abstract Comparator<? super K> keyComparator();
+
+    /**
+     * @param from       the first index, inclusive
+     * @param to         the last index, exclusive
+     * @param descending whether the view iterates in descending order
+     * @return a view over the same storage
+     */
+    abstract ArrayNavigableMap<K, V> view(int from, int to, boolean descending);
+
+    /**
+     * @param index the index of the entry
+     * @param key   the key to compare against
+     * @return the result of comparing the key at the index against the given key
+     */
+    @SuppressWarnings("unchecked")
+    int compareAt(int index, Object key) {
+        return ((Comparator<Object>) keyComparator()).compare(keyAt(index), key);
+    }
+
+    /**
+     * @param key the key to search for
+     * @return an {@link IntUnaryOperator} comparing the key at an index against the
+     * given key
+     */
+    IntUnaryOperator probe(Object key) {
+        return i -> compareAt(i, key);
+    }
+
+    /**
+     * @param probe compares the key at an index against the search key
+     * @return the index of the search key, or {@code -1} if it is not in this view
+     */
+    final int indexOf(IntUnaryOperator probe) {
+        int index = bound(probe, false);
+        return index < to && probe.applyAsInt(index) == 0 ? index : -1;
+    }
+
+    /**
+     * Binary search over this view.
+     *
+     * @param probe compares the key at an index against the search key
+     * @param upper {@code true} to skip past keys that compare equal
+     * @return the first index in {@code [from, to]} that the search key should precede
+     */
+    int bound(IntUnaryOperator probe, boolean upper) {
+        return bound(probe, upper, from, to);
+    }
+
+    /**
+     * Binary search over a range of indices.
+     *
+     * @param probe compares the key at an index against the search key
+     * @param upper {@code true} to skip past keys that compare equal
+     * @param low   the lowest index to search, inclusive
+     * @param high  the highest index to search, exclusive
+     * @return the first index in {@code [low, high]} that the search key should precede
+     */
+    static int bound(IntUnaryOperator probe, boolean upper, int low, int high) {
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int result = probe.applyAsInt(middle);
+            if (result < 0 || (upper && result == 0)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @param n the position in iteration order
+     * @return the index of the position
+     */
+    final int indexAt(int n) {
+        return descending ? to - 1 - n : from + n;
+    }
+
+    /**
+     * @return an {@link Iterator} over the entries in iteration order
+     */
+    Iterator<Entry<K, V>> entryIterator() {
+        return new Iterator<Entry<K, V>>() {
+            private int n = 0;
+
+            @Override
+            public boolean hasNext() {
+                return n < size();
+            }
+
+            @Override
+            public Entry<K, V> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return entryAt(indexAt(n++));
+            }
+        };
+    }
+
+    private boolean inRange(int index) {
+        return index >= from && index < to;
+    }
+
+    /**
+     * @param index the index of the entry
+     * @return the value at the index, or {@code null} if it is outside of this view
+     */
+    final V valueOrNull(int index) {
+        return inRange(index) ? valueAt(index) : null;
+    }
+
+    private Entry<K, V> entryAt(int index) {
+        return inRange(index)
+                ? new SimpleImmutableEntry<>(keyAt(index), valueAt(index)) : null;
+    }
+
+    private K keyOrNull(int index) {
+        return inRange(index) ? keyAt(index) : null;
+    }
+
+    private K keyOrThrow(int index) {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return keyAt(index);
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return from == to;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(probe(key)) >= 0;
+    }
+
+    @Override
+    public V get(Object key) {
+        return valueOrNull(indexOf(probe(key)));
+    }
+
+    @Override
+    public Comparator<? super K> comparator() {
+        return descending ? Collections.reverseOrder(keyComparator()) : keyComparator();
+    }
+
+    @Override
+    public K firstKey() {
+        return keyOrThrow(indexAt(0));
+    }
+
+    @Override
+    public K lastKey() {
+        return keyOrThrow(indexAt(size() - 1));
+    }
+
+    @Override
+    public Entry<K, V> firstEntry() {
+        return entryAt(indexAt(0));
+    }
+
+    @Override
+    public Entry<K, V> lastEntry() {
+        return entryAt(indexAt(size() - 1));
+    }
+
+    /**
+     * @param probe compares the key at an index against the search key
+     * @return the index of the greatest key strictly less than the search key, in
+     * iteration order
+     */
+    final int lowerIndex(IntUnaryOperator probe) {
+        return descending ? bound(probe, true) : bound(probe, false) - 1;
+    }
+
+    /**
+     * @param probe compares the key at an index against the search key
+     * @return the index of the greatest key less than or equal to the search key, in
+     * iteration order
+     */
+    final int floorIndex(IntUnaryOperator probe) {
+        return descending ? bound(probe, false) : bound(probe, true) - 1;
+    }
+
+    /**
+     * @param probe compares the key at an index against the search key
+     * @return the index of the least key greater than or equal to the search key, in
+     * iteration order
+     */
+    final int ceilingIndex(IntUnaryOperator probe) {
+        return descending ? bound(probe, true) - 1 : bound(probe, false);
+    }
+
+    /**
+     * @param probe compares the key at an index against the search key
+     * @return the index of the least key strictly greater than the search key, in
+     * iteration order
+     */
+    final int higherIndex(IntUnaryOperator probe) {
+        return descending ? bound(probe, false) - 1 : bound(probe, true);
+    }
+
+    @Override
+    public Entry<K, V> lowerEntry(K key) {
+        return entryAt(lowerIndex(probe(key)));
+    }
+
+    @Override
+    public K lowerKey(K key) {
+        return keyOrNull(lowerIndex(probe(key)));
+    }
+
+    @Override
+    public Entry<K, V> floorEntry(K key) {
+        return entryAt(floorIndex(probe(key)));
+    }
+
+    @Override
+    public K floorKey(K key) {
+        return keyOrNull(floorIndex(probe(key)));
+    }
+
+    @Override
+    public Entry<K, V> ceilingEntry(K key) {
+        return entryAt(ceilingIndex(probe(key)));
+    }
+
+    @Override
+    public K ceilingKey(K key) {
+        return keyOrNull(ceilingIndex(probe(key)));
+    }
+
+    @Override
+    public Entry<K, V> higherEntry(K key) {
+        return entryAt(higherIndex(probe(key)));
+    }
+
+    @Override
+    public K higherKey(K key) {
+        return keyOrNull(higherIndex(probe(key)));
+    }
+
+    @Override
+    public Entry<K, V> pollFirstEntry() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Entry<K, V> pollLastEntry() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public V put(K key, V value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public V remove(Object key) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public NavigableMap<K, V> descendingMap() {
+        ArrayNavigableMap<K, V> view = view(from, to, !descending);
+        view.keyRange = keyRange;
+        return view;
+    }
+
+    @Override
+    public NavigableSet<K> navigableKeySet() {
+        return new NavigableKeySet<>(this);
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return navigableKeySet();
+    }
+
+    @Override
+    public NavigableSet<K> descendingKeySet() {
+        return descendingMap().navigableKeySet();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return entryIterator();
+            }
+
+            @Override
+            public int size() {
+                return ArrayNavigableMap.this.size();
+            }
+        };
+    }
+
+    private int fromBound(Object key, boolean inclusive) {
+        return bound(probe(key), !inclusive);
+    }
+
+    private int toBound(Object key, boolean inclusive) {
+        return bound(probe(key), inclusive);
+    }
+
+    private NavigableMap<K, V> range(int low, int high, KeyRange keys) {
+        ArrayNavigableMap<K, V> view = view(low, Math.max(low, high), descending);
+        view.keyRange = keys;
+        return view;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void checkInRange(Object key, boolean inclusive, String name) {
+        if (!keyRange.contains(key, inclusive, (Comparator<Object>) keyComparator())) {
+            throw new IllegalArgumentException(name + " out of range");
+        }
+    }
+
+    @Override
+    public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey,
+            boolean toInclusive) {
+        if (comparator().compare(fromKey, toKey) > 0) {
+            throw new IllegalArgumentException("fromKey > toKey");
+        }
+        checkInRange(fromKey, fromInclusive, "fromKey");
+        checkInRange(toKey, toInclusive, "toKey");
+        return descending
+                ? range(fromBound(toKey, toInclusive), toBound(fromKey, fromInclusive),
+                        keyRange.low(toKey, toInclusive).high(fromKey, fromInclusive))
+                : range(fromBound(fromKey, fromInclusive), toBound(toKey, toInclusive),
+                        keyRange.low(fromKey, fromInclusive).high(toKey, toInclusive));
+    }
+
+    @Override
+    public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+        checkInRange(toKey, inclusive, "toKey");
+        return descending
+                ? range(fromBound(toKey, inclusive), to, keyRange.low(toKey, inclusive))
+                : range(from, toBound(toKey, inclusive), keyRange.high(toKey, inclusive));
+    }
+
+    @Override
+    public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+        checkInRange(fromKey, inclusive, "fromKey");
+        return descending
+                ? range(from, toBound(fromKey, inclusive), keyRange.high(fromKey, inclusive))
+                : range(fromBound(fromKey, inclusive), to, keyRange.low(fromKey, inclusive));
+    }
+
+    @Override
+    public SortedMap<K, V> subMap(K fromKey, K toKey) {
+        return subMap(fromKey, true, toKey, false);
+    }
+
+    @Override
+    public SortedMap<K, V> headMap(K toKey) {
+        return headMap(toKey, false);
+    }
+
+    @Override
+    public SortedMap<K, V> tailMap(K fromKey) {
+        return tailMap(fromKey, true);
+    }
+
+    /**
+     * Key bounds of a view in the order of the underlying storage, so that, as with the
+     * views of a {@link TreeMap}, a view rejects narrower views beyond its bounds even
+     * where it holds no keys.
+     */
+    private static final class KeyRange {
+
+        private static final KeyRange UNBOUNDED =
+                new KeyRange(false, null, false, false, null, false);
+
+        private final boolean hasLow;
+        private final Object low;
+        private final boolean lowInclusive;
+        private final boolean hasHigh;
+        private final Object high;
+        private final boolean highInclusive;
+
+        private KeyRange(boolean hasLow, Object low, boolean lowInclusive,
+                boolean hasHigh, Object high, boolean highInclusive) {
+            this.hasLow = hasLow;
+            this.low = low;
+            this.lowInclusive = lowInclusive;
+            this.hasHigh = hasHigh;
+            this.high = high;
+            this.highInclusive = highInclusive;
+        }
+
+        private KeyRange low(Object key, boolean inclusive) {
+            return new KeyRange(true, key, inclusive, hasHigh, high, highInclusive);
+        }
+
+        private KeyRange high(Object key, boolean inclusive) {
+            return new KeyRange(hasLow, low, lowInclusive, true, key, inclusive);
+        }
+
+        /**
+         * @param key        the key to check
+         * @param inclusive  whether the key is an inclusive bound, which must then be
+         *                   within the bounds, instead of within or on them
+         * @param comparator the {@link Comparator} of the underlying storage
+         * @return whether the key can bound a narrower view
+         */
+        private boolean contains(Object key, boolean inclusive,
+                Comparator<Object> comparator) {
+            if (hasLow) {
+                int result = comparator.compare(key, low);
+                if (result < 0 || (result == 0 && inclusive && !lowInclusive)) {
+                    return false;
+                }
+            }
+            if (hasHigh) {
+                int result = comparator.compare(key, high);
+                return result < 0 || (result == 0 && (!inclusive || highInclusive));
+            }
+            return true;
+        }
+    }
+}
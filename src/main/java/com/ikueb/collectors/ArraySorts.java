@@ -0,0 +1,282 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import java.util.Comparator;
+
+/**
+ * Stable sorting of parallel key and value arrays, so that entries with equal keys keep
+ * their encounter order.
+ * <p>
+ * Primitive keys, and binary sort keys ordered by {@link SortKeys#comparator()}, are
+ * radix sorted instead of being compared.
+ */
+final class ArraySorts {
+
+    /**
+     * Ranges at or below this length are sorted by insertion.
+     */
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    /**
+     * Primitive keys at or above this number are sorted by LSD radix sort.
+     */
+    private static final int RADIX_SORT_THRESHOLD = 256;
+
+    /**
+     * Binary sort keys sharing a longer prefix than this fall back to merge sort.
+     */
+    private static final int MAXIMUM_RADIX_DEPTH = 64;
+
+    private static final int RADIX = 1 << Byte.SIZE;
+
+    private static final Comparator<Object> BYTES =
+            (a, b) -> SortKeys.compare((byte[]) a, (byte[]) b);
+
+    private ArraySorts() {
+        // empty
+    }
+
+    /**
+     * Sorts the first {@code size} keys, and their corresponding values, in place.
+     *
+     * @param keys       the keys to sort
+     * @param values     the values to move together with their keys
+     * @param size       the number of entries to sort
+     * @param comparator the {@link Comparator} to use for the keys
+     */
+    static void sort(Object[] keys, Object[] values, int size,
+            Comparator<Object> comparator) {
+        if (size < 2) {
+            return;
+        }
+        if (comparator == (Object) SortKeys.comparator()) {
+            msdRadixSort(keys, values, new Object[size], new Object[size], 0, size, 0);
+            return;
+        }
+        Object[] keyBuffer = keys.clone();
+        Object[] valueBuffer = values.clone();
+        mergeSort(keyBuffer, valueBuffer, keys, values, 0, size, comparator);
+    }
+
+    /**
+     * Sorts {@code [from, to)} of the target arrays, using the source arrays (which
+     * start off as identical copies) as scratch space.
+     */
+    private static void mergeSort(Object[] sourceKeys, Object[] sourceValues,
+            Object[] targetKeys, Object[] targetValues, int from, int to,
+            Comparator<Object> comparator) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(targetKeys, targetValues, from, to, comparator);
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(targetKeys, targetValues, sourceKeys, sourceValues, from, middle,
+                comparator);
+        mergeSort(targetKeys, targetValues, sourceKeys, sourceValues, middle, to,
+                comparator);
+        if (comparator.compare(sourceKeys[middle - 1], sourceKeys[middle]) <= 0) {
+            System.arraycopy(sourceKeys, from, targetKeys, from, to - from);
+            System.arraycopy(sourceValues, from, targetValues, from, to - from);
+            return;
+        }
+        for (int i = from, left = from, right = middle; i < to; i++) {
+            if (right >= to || (left < middle
+                    && comparator.compare(sourceKeys[left], sourceKeys[right]) <= 0)) {
+                targetKeys[i] = sourceKeys[left];
+                targetValues[i] = sourceValues[left++];
+            } else {
+                targetKeys[i] = sourceKeys[right];
+                targetValues[i] = sourceValues[right++];
+            }
+        }
+    }
+
+    private static void insertionSort(Object[] keys, Object[] values, int from, int to,
+            Comparator<Object> comparator) {
+        for (int i = from + 1; i < to; i++) {
+            Object key = keys[i];
+            Object value = values[i];
+            int j = i;
+            for (; j > from && comparator.compare(keys[j - 1], key) > 0; j--) {
+                keys[j] = keys[j - 1];
+                values[j] = values[j - 1];
+            }
+            keys[j] = key;
+            values[j] = value;
+        }
+    }
+
+    /**
+     * Sorts {@code [from, to)} of binary sort keys which share their first {@code depth}
+     * bytes, by distributing them into buckets of their next byte. Keys that end before
+     * that byte go into the first bucket.
+     */
+    private static void msdRadixSort(Object[] keys, Object[] values, Object[] keyBuffer,
+            Object[] valueBuffer, int from, int to, int depth) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(keys, values, from, to, BYTES);
+            return;
+        }
+        if (depth > MAXIMUM_RADIX_DEPTH) {
+            System.arraycopy(keys, from, keyBuffer, from, to - from);
+            System.arraycopy(values, from, valueBuffer, from, to - from);
+            mergeSort(keyBuffer, valueBuffer, keys, values, from, to, BYTES);
+            return;
+        }
+        int[] bounds = new int[RADIX + 2];
+        for (int i = from; i < to; i++) {
+            bounds[digit((byte[]) keys[i], depth) + 1]++;
+        }
+        if (bounds[digit((byte[]) keys[from], depth) + 1] == to - from) {
+            if (depth < ((byte[]) keys[from]).length) {
+                msdRadixSort(keys, values, keyBuffer, valueBuffer, from, to, depth + 1);
+            }
+            return;
+        }
+        bounds[0] = from;
+        for (int b = 1; b < bounds.length; b++) {
+            bounds[b] += bounds[b - 1];
+        }
+        int[] positions = bounds.clone();
+        for (int i = from; i < to; i++) {
+            int index = positions[digit((byte[]) keys[i], depth)]++;
+            keyBuffer[index] = keys[i];
+            valueBuffer[index] = values[i];
+        }
+        System.arraycopy(keyBuffer, from, keys, from, to - from);
+        System.arraycopy(valueBuffer, from, values, from, to - from);
+        for (int b = 1; b <= RADIX; b++) {
+            if (bounds[b + 1] - bounds[b] > 1) {
+                msdRadixSort(keys, values, keyBuffer, valueBuffer, bounds[b], bounds[b + 1],
+                        depth + 1);
+            }
+        }
+    }
+
+    /**
+     * @return {@code 0} if the key ends before {@code depth}, else one more than the
+     * unsigned byte at {@code depth}
+     */
+    private static int digit(byte[] key, int depth) {
+        return depth < key.length ? (key[depth] & 0xFF) + 1 : 0;
+    }
+
+    /**
+     * Sorts the first {@code size} keys, and their corresponding values, in place.
+     *
+     * @param keys   the keys to sort
+     * @param values the values to move together with their keys
+     * @param size   the number of entries to sort
+     */
+    static void sort(long[] keys, Object[] values, int size) {
+        if (size < 2) {
+            return;
+        }
+        if (size >= RADIX_SORT_THRESHOLD) {
+            lsdRadixSort(keys, values, size);
+            return;
+        }
+        long[] keyBuffer = keys.clone();
+        Object[] valueBuffer = values.clone();
+        mergeSort(keyBuffer, valueBuffer, keys, values, 0, size);
+    }
+
+    /**
+     * Sorts the first {@code size} keys by their bytes, from the least significant byte to
+     * the most significant byte. The counts of every byte are taken in a single pass, so
+     * that bytes shared by all keys can be skipped.
+     */
+    private static void lsdRadixSort(long[] keys, Object[] values, int size) {
+        int[][] counts = new int[Long.BYTES][RADIX];
+        for (int i = 0; i < size; i++) {
+            long key = keys[i] ^ Long.MIN_VALUE;
+            for (int d = 0; d < Long.BYTES; d++, key >>>= Byte.SIZE) {
+                counts[d][(int) key & 0xFF]++;
+            }
+        }
+        long[] sourceKeys = keys;
+        Object[] sourceValues = values;
+        long[] targetKeys = new long[size];
+        Object[] targetValues = new Object[size];
+        for (int d = 0; d < Long.BYTES; d++) {
+            int shift = d * Byte.SIZE;
+            int[] positions = counts[d];
+            if (positions[(int) ((sourceKeys[0] ^ Long.MIN_VALUE) >>> shift) & 0xFF] == size) {
+                continue;
+            }
+            for (int b = 0, position = 0; b < RADIX; b++) {
+                int count = positions[b];
+                positions[b] = position;
+                position += count;
+            }
+            for (int i = 0; i < size; i++) {
+                int index = positions[(int) ((sourceKeys[i] ^ Long.MIN_VALUE) >>> shift) & 0xFF]++;
+                targetKeys[index] = sourceKeys[i];
+                targetValues[index] = sourceValues[i];
+            }
+            long[] keySwap = sourceKeys;
+            sourceKeys = targetKeys;
+            targetKeys = keySwap;
+            Object[] valueSwap = sourceValues;
+            sourceValues = targetValues;
+            targetValues = valueSwap;
+        }
+        if (sourceKeys != keys) {
+            System.arraycopy(sourceKeys, 0, keys, 0, size);
+            System.arraycopy(sourceValues, 0, values, 0, size);
+        }
+    }
+
+    private static void mergeSort(long[] sourceKeys, Object[] sourceValues,
+            long[] targetKeys, Object[] targetValues, int from, int to) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(targetKeys, targetValues, from, to);
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(targetKeys, targetValues, sourceKeys, sourceValues, from, middle);
+        mergeSort(targetKeys, targetValues, sourceKeys, sourceValues, middle, to);
+        if (sourceKeys[middle - 1] <= sourceKeys[middle]) {
+            System.arraycopy(sourceKeys, from, targetKeys, from, to - from);
+            System.arraycopy(sourceValues, from, targetValues, from, to - from);
+            return;
+        }
+        for (int i = from, left = from, right = middle; i < to; i++) {
+            if (right >= to || (left < middle && sourceKeys[left] <= sourceKeys[right])) {
+                targetKeys[i] = sourceKeys[left];
+                targetValues[i] = sourceValues[left++];
+            } else {
+                targetKeys[i] = sourceKeys[right];
+                targetValues[i] = sourceValues[right++];
+            }
+        }
+    }
+
+    private static void insertionSort(long[] keys, Object[] values, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            long key = keys[i];
+            Object value = values[i];
+            int j = i;
+            for (; j > from && keys[j - 1] > key; j--) {
+                keys[j] = keys[j - 1];
+                values[j] = values[j - 1];
+            }
+            keys[j] = key;
+            values[j] = value;
+        }
+    }
+}
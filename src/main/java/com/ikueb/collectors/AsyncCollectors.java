@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Utility class to drive a {@link Collector}, such as those from
+ * {@link NavigableMapCollectors}, from batches of stream elements that complete
+ * asynchronously:
+ * <pre>{@code
+ * CompletableFuture<NavigableMap<Long, Order>> orders = AsyncCollectors.collectAsync(
+ *         pages.stream().map(client::fetchOrders).collect(toList()),
+ *         toNavigableMap(Order::getId, identity()));
+ * }</pre>
+ * Each batch is accumulated into its own container on an {@link Executor} as soon as it
+ * completes, so that accumulating overlaps with batches that are still pending.
+ * Combining and finishing also run on the {@link Executor}.
+ * Containers are combined in the order of their batches, as in a parallel stream, so
+ * that the result is as if the batches were streamed in order.
+ */
+public final class AsyncCollectors {
+
+    private static final Executor DEFAULT_EXECUTOR = defaultExecutor();
+
+    private AsyncCollectors() {
+        // empty
+    }
+
+    /**
+     * @return an executor starting a virtual thread per task where the runtime supports
+     * them, or {@link ForkJoinPool#commonPool()} otherwise
+     */
+    private static Executor defaultExecutor() {
+        try {
+            return (Executor) Class.forName("java.util.concurrent.Executors")
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return ForkJoinPool.commonPool();
+        }
+    }
+
+    /**
+     * Collects batches of stream elements asynchronously, accumulating each on virtual
+     * threads where the runtime supports them, or on {@link ForkJoinPool#commonPool()}.
+     *
+     * @param batches   the batches of stream elements, in encounter order
+     * @param collector the {@link Collector} to use
+     * @return a {@link CompletableFuture} of the result
+     * @see #collectAsync(Iterable, Collector, Executor)
+     */
+    public static <T, A, R> CompletableFuture<R> collectAsync(
+            Iterable<? extends CompletionStage<? extends Collection<? extends T>>> batches,
+            Collector<? super T, A, R> collector) {
+        return collectAsync(batches, collector, DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * Collects batches of stream elements asynchronously, accumulating each on the given
+     * {@link Executor}.
+     * <p>
+     * The result completes exceptionally if any batch does, or if accumulating,
+     * combining or finishing throws.
+     *
+     * @param batches   the batches of stream elements, in encounter order
+     * @param collector the {@link Collector} to use
+     * @param executor  the {@link Executor} to accumulate the batches on
+     * @return a {@link CompletableFuture} of the result
+     */
+    public static <T, A, R> CompletableFuture<R> collectAsync(
+            Iterable<? extends CompletionStage<? extends Collection<? extends T>>> batches,
+            Collector<? super T, A, R> collector,
+            Executor executor) {
+        requireNonNull(collector);
+        requireNonNull(executor);
+        Supplier<A> supplier = collector.supplier();
+        BiConsumer<A, ? super T> accumulator = collector.accumulator();
+        CompletableFuture<A> result = null;
+        for (CompletionStage<? extends Collection<? extends T>> batch : batches) {
+            CompletableFuture<A> container = batch.thenApplyAsync(elements -> {
+                A partial = supplier.get();
+                elements.forEach(t -> accumulator.accept(partial, t));
+                return partial;
+            }, executor).toCompletableFuture();
+            result = result == null ? container
+                    : result.thenCombineAsync(container, collector.combiner(), executor);
+        }
+        return result == null
+                ? CompletableFuture.supplyAsync(
+                        () -> collector.finisher().apply(supplier.get()), executor)
+                : result.thenApplyAsync(collector.finisher(), executor);
+    }
+}
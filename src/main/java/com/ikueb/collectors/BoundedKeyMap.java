@@ -0,0 +1,130 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * Mutable accumulation container of entries in a {@link TreeMap}, which keeps at most the
+ * limit of {@link KeyBounds} on the number of keys. The {@link TreeMap} is ordered so
+ * that its last key is the key to evict next, whether the smallest or largest keys are
+ * kept.
+ * <p>
+ * Once full, a key beyond the last key is rejected with one comparison, without
+ * searching the {@link TreeMap}. Callers check the range of the keys, if any.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+final class BoundedKeyMap<K, V> {
+
+    private final Comparator<? super K> comparator;
+    private final KeyBounds<K> bounds;
+    private final BinaryOperator<V> mergeOperator;
+    private final TreeMap<K, V> entries;
+    private boolean full;
+    private K last;
+
+    /**
+     * @param keyComparator the {@link Comparator} to use for the keys
+     * @param bounds        the {@link KeyBounds} of the keys to keep
+     * @param mergeOperator the {@link BinaryOperator} to use for merging values
+     */
+    BoundedKeyMap(Comparator<? super K> keyComparator, KeyBounds<K> bounds,
+            BinaryOperator<V> mergeOperator) {
+        this.comparator = bounds.isLargest()
+                ? Collections.reverseOrder(keyComparator) : keyComparator;
+        this.bounds = bounds;
+        this.mergeOperator = mergeOperator;
+        this.entries = new TreeMap<>(comparator);
+    }
+
+    /**
+     * @param key the key to check
+     * @return whether an entry with the key would be kept, as of now
+     */
+    boolean admits(K key) {
+        return !full || comparator.compare(key, last) <= 0;
+    }
+
+    /**
+     * @param key   the key to add, which must be admitted
+     * @param value the value to add, or merge with the value of an identical key
+     */
+    void merge(K key, V value) {
+        entries.merge(key, value, mergeOperator);
+        evict();
+    }
+
+    /**
+     * @param key             the key to add, which must be admitted
+     * @param mappingFunction the {@link Function} to create the value of a new key
+     * @return the value of the key
+     */
+    V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        V value = entries.computeIfAbsent(key, mappingFunction);
+        evict();
+        return value;
+    }
+
+    /**
+     * Evicts the last entry beyond the limit. A key that is added is never the one
+     * evicted, as only keys up to the last key are admitted once full.
+     */
+    private void evict() {
+        if (entries.size() > bounds.limit()) {
+            entries.pollLastEntry();
+        }
+        if (entries.size() == bounds.limit()) {
+            full = true;
+            last = entries.lastKey();
+        }
+    }
+
+    /**
+     * Merges the entries of another container, whose entries were all encountered after
+     * the entries of this one.
+     *
+     * @param other the container to merge
+     * @return this container
+     */
+    BoundedKeyMap<K, V> combine(BoundedKeyMap<K, V> other) {
+        for (Entry<K, V> entry : other.entries.entrySet()) {
+            if (!admits(entry.getKey())) {
+                break;
+            }
+            merge(entry.getKey(), entry.getValue());
+        }
+        return this;
+    }
+
+    /**
+     * @param keyComparator the {@link Comparator} to use for the resulting {@link TreeMap}
+     * @param finisher      the {@link Function} to finish each value with
+     * @return a new {@link TreeMap} of the kept entries
+     */
+    <R> TreeMap<K, R> toNavigableMap(Comparator<? super K> keyComparator,
+            Function<? super V, ? extends R> finisher) {
+        TreeMap<K, R> results = new TreeMap<>(keyComparator);
+        entries.forEach((key, value) -> results.put(key, finisher.apply(value)));
+        return results;
+    }
+}
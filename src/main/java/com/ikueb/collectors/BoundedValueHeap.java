@@ -0,0 +1,158 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Mutable accumulation container that only keeps the first {@code limit} values of a
+ * key in sorted order, as a binary max-heap whose root is the value to evict next.
+ * <p>
+ * Every value is tagged with its encounter sequence, so that identical values are
+ * ordered as a stable sort would: the later value is always evicted first.
+ *
+ * @param <V> the type of values
+ */
+final class BoundedValueHeap<V> {
+
+    private static final int MAXIMUM_INITIAL_CAPACITY = 16;
+
+    private final Comparator<? super V> comparator;
+    private final int limit;
+    private Object[] values;
+    private long[] sequences;
+    private int size;
+    private long count;
+
+    /**
+     * @param valueComparator the {@link Comparator} to use for the values
+     * @param limit           the maximum number of values to keep
+     */
+    BoundedValueHeap(Comparator<? super V> valueComparator, int limit) {
+        this.comparator = valueComparator;
+        this.limit = limit;
+        int capacity = Math.min(limit, MAXIMUM_INITIAL_CAPACITY);
+        this.values = new Object[capacity];
+        this.sequences = new long[capacity];
+    }
+
+    /**
+     * @param limit the maximum number of values to keep
+     * @return {@code limit}, if positive
+     * @throws IllegalArgumentException if {@code limit} is not positive
+     */
+    static int checkLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive.");
+        }
+        return limit;
+    }
+
+    /**
+     * @param value the value to add
+     */
+    void add(V value) {
+        offer(value, count++);
+    }
+
+    /**
+     * Offers the values of another heap, whose values were all encountered after the
+     * values of this one.
+     *
+     * @param other the heap to take values from
+     * @return this heap
+     */
+    @SuppressWarnings("unchecked")
+    BoundedValueHeap<V> combine(BoundedValueHeap<V> other) {
+        for (int i = 0; i < other.size; i++) {
+            offer((V) other.values[i], count + other.sequences[i]);
+        }
+        count += other.count;
+        return this;
+    }
+
+    private void offer(V value, long sequence) {
+        if (size < limit) {
+            if (size == values.length) {
+                int capacity = (int) Math.min(limit, (long) size << 1);
+                values = Arrays.copyOf(values, capacity);
+                sequences = Arrays.copyOf(sequences, capacity);
+            }
+            values[size] = value;
+            sequences[size] = sequence;
+            siftUp(size++);
+        } else if (compare(value, sequence, 0) < 0) {
+            values[0] = value;
+            sequences[0] = sequence;
+            siftDown(0, size);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(V value, long sequence, int index) {
+        int result = comparator.compare(value, (V) values[index]);
+        return result == 0 ? Long.compare(sequence, sequences[index]) : result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(int i, int j) {
+        return compare((V) values[i], sequences[i], j);
+    }
+
+    private void swap(int i, int j) {
+        Object value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+        long sequence = sequences[i];
+        sequences[i] = sequences[j];
+        sequences[j] = sequence;
+    }
+
+    private void siftUp(int index) {
+        for (int parent; index > 0 && compare(index, parent = (index - 1) >>> 1) > 0;
+                index = parent) {
+            swap(index, parent);
+        }
+    }
+
+    private void siftDown(int index, int bound) {
+        for (int child; (child = (index << 1) + 1) < bound; index = child) {
+            if (child + 1 < bound && compare(child + 1, child) > 0) {
+                child++;
+            }
+            if (compare(index, child) >= 0) {
+                return;
+            }
+            swap(index, child);
+        }
+    }
+
+    /**
+     * Sorts the kept values in place by heapsort. This must only be called after
+     * accumulation has completed.
+     *
+     * @return the kept values, in sorted order
+     */
+    List<V> toSortedList() {
+        for (int i = size - 1; i > 0; i--) {
+            swap(0, i);
+            siftDown(0, i);
+        }
+        return new ValueList<>(values, 0, size);
+    }
+}
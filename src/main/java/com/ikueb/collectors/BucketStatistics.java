@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+/**
+ * Immutable statistics of the values in a histogram bucket, as collected by
+ * {@link NavigableMapCollectors#toHistogram(java.util.function.ToDoubleFunction, Buckets)}.
+ * <p>
+ * As with {@link java.util.DoubleSummaryStatistics}, the minimum and maximum of an empty
+ * bucket are {@link Double#POSITIVE_INFINITY} and {@link Double#NEGATIVE_INFINITY}.
+ */
+public final class BucketStatistics {
+
+    private final long count;
+    private final double sum;
+    private final double min;
+    private final double max;
+
+    BucketStatistics(long count, double sum, double min, double max) {
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * @return the number of values
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the sum of the values
+     */
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * @return the minimum value
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * @return the maximum value
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * @return the average of the values, or {@code 0} if there are none
+     */
+    public double getAverage() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BucketStatistics)) {
+            return false;
+        }
+        BucketStatistics other = (BucketStatistics) o;
+        return count == other.count && Double.compare(sum, other.sum) == 0
+                && Double.compare(min, other.min) == 0
+                && Double.compare(max, other.max) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Long.hashCode(count);
+        result = 31 * result + Double.hashCode(sum);
+        result = 31 * result + Double.hashCode(min);
+        return 31 * result + Double.hashCode(max);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s{count=%d, sum=%f, min=%f, average=%f, max=%f}",
+                getClass().getSimpleName(), count, sum, min, getAverage(), max);
+    }
+}
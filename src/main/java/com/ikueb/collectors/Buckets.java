@@ -0,0 +1,155 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import java.util.Arrays;
+
+/**
+ * Immutable, strictly increasing lower bounds of histogram buckets, for
+ * {@link NavigableMapCollectors#toHistogram(java.util.function.ToDoubleFunction, Buckets)}.
+ * <p>
+ * Each bucket contains the values from its lower bound, inclusive, up to the lower bound
+ * of the next bucket, exclusive, and the last bucket is unbounded. Values below the first
+ * lower bound, and {@code NaN}, are in no bucket. This matches looking up the bucket of a
+ * value with {@link java.util.NavigableMap#floorKey(Object)}, where values are ordered by
+ * {@link Double#compare(double, double)}.
+ * <p>
+ * The bucket of a value is found by arithmetic for linear buckets, and by binary search
+ * otherwise.
+ */
+public final class Buckets {
+
+    private final double[] bounds;
+    private final double start;
+    private final double width;
+
+    private Buckets(double[] bounds, double start, double width) {
+        this.bounds = bounds;
+        this.start = start;
+        this.width = width;
+    }
+
+    /**
+     * @param bounds the lower bounds, which must be finite and strictly increasing
+     * @return buckets with the given lower bounds
+     * @throws IllegalArgumentException if there are no lower bounds, or if they are not
+     *                                  finite or not strictly increasing
+     */
+    public static Buckets of(double... bounds) {
+        return new Buckets(check(bounds.clone()), Double.NaN, Double.NaN);
+    }
+
+    /**
+     * @param start the lower bound of the first bucket
+     * @param width the width of each bucket
+     * @param count the number of buckets
+     * @return {@code count} buckets of equal width from {@code start}
+     * @throws IllegalArgumentException if {@code width} or {@code count} is not positive,
+     *                                  or if the lower bounds are not finite
+     */
+    public static Buckets linear(double start, double width, int count) {
+        if (!(width > 0)) {
+            throw new IllegalArgumentException("Width must be positive.");
+        }
+        double[] bounds = new double[checkCount(count)];
+        Arrays.setAll(bounds, i -> start + i * width);
+        return new Buckets(check(bounds), start, width);
+    }
+
+    /**
+     * @param start  the lower bound of the first bucket, which must be positive
+     * @param factor the ratio between the lower bounds of consecutive buckets, which
+     *               must be greater than {@code 1}
+     * @param count  the number of buckets
+     * @return {@code count} buckets whose lower bounds grow by {@code factor} from
+     * {@code start}
+     * @throws IllegalArgumentException if {@code start} is not positive, {@code factor}
+     *                                  is not greater than {@code 1}, {@code count} is
+     *                                  not positive, or if the lower bounds are not finite
+     */
+    public static Buckets exponential(double start, double factor, int count) {
+        if (!(start > 0)) {
+            throw new IllegalArgumentException("Start must be positive.");
+        }
+        if (!(factor > 1)) {
+            throw new IllegalArgumentException("Factor must be greater than 1.");
+        }
+        double[] bounds = new double[checkCount(count)];
+        bounds[0] = start;
+        for (int i = 1; i < bounds.length; i++) {
+            bounds[i] = bounds[i - 1] * factor;
+        }
+        return new Buckets(check(bounds), Double.NaN, Double.NaN);
+    }
+
+    private static int checkCount(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Count must be positive.");
+        }
+        return count;
+    }
+
+    private static double[] check(double[] bounds) {
+        if (bounds.length == 0) {
+            throw new IllegalArgumentException("There must be at least one bucket.");
+        }
+        for (int i = 0; i < bounds.length; i++) {
+            if (Double.isNaN(bounds[i]) || Double.isInfinite(bounds[i])
+                    || (i > 0 && !(bounds[i - 1] < bounds[i]))) {
+                throw new IllegalArgumentException(
+                        "Bounds must be finite and strictly increasing.");
+            }
+        }
+        return bounds;
+    }
+
+    /**
+     * @return the number of buckets
+     */
+    int size() {
+        return bounds.length;
+    }
+
+    /**
+     * @param index the index of the bucket
+     * @return the lower bound of the bucket
+     */
+    double boundAt(int index) {
+        return bounds[index];
+    }
+
+    /**
+     * @param value the value to find the bucket of
+     * @return the index of the bucket, or {@code -1} if the value is in no bucket
+     */
+    int indexOf(double value) {
+        if (Double.isNaN(value) || Double.compare(value, bounds[0]) < 0) {
+            return -1;
+        }
+        if (Double.isNaN(width)) {
+            int index = Arrays.binarySearch(bounds, value);
+            return index < 0 ? -index - 2 : index;
+        }
+        int index = (int) Math.min(bounds.length - 1, (long) ((value - start) / width));
+        while (Double.compare(bounds[index], value) > 0) {
+            index--;
+        }
+        while (index + 1 < bounds.length && Double.compare(bounds[index + 1], value) <= 0) {
+            index++;
+        }
+        return index;
+    }
+}
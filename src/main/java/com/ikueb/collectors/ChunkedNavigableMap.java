@@ -0,0 +1,280 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.function.BinaryOperator;
+import java.util.function.Predicate;
+
+/**
+ * A persistent, read-only {@link ArrayNavigableMap} over sorted chunks of at most about
+ * {@value #CHUNK_SIZE} entries.
+ * <p>
+ * Merging sorted deltas into an instance creates a new instance, which only copies the
+ * chunks that the deltas fall into, and shares every other chunk with the previous
+ * instance. With {@code d} deltas over {@code n} entries, this costs
+ * {@code O(d * CHUNK_SIZE + n / CHUNK_SIZE)} instead of {@code O(n)}, and readers of the
+ * previous instance are unaffected.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+final class ChunkedNavigableMap<K, V> extends ArrayNavigableMap<K, V> {
+
+    static final int CHUNK_SIZE = 128;
+
+    private final Chunk[] chunks;
+    private final int[] offsets;
+    private final Comparator<? super K> comparator;
+
+    private ChunkedNavigableMap(Chunk[] chunks, int[] offsets,
+            Comparator<? super K> comparator, int from, int to, boolean descending) {
+        super(from, to, descending);
+        this.chunks = chunks;
+        this.offsets = offsets;
+        this.comparator = comparator;
+    }
+
+    private static <K, V> ChunkedNavigableMap<K, V> of(List<Chunk> chunks,
+            Comparator<? super K> comparator) {
+        int[] offsets = new int[chunks.size() + 1];
+        for (int i = 0; i < chunks.size(); i++) {
+            offsets[i + 1] = offsets[i] + chunks.get(i).keys.length;
+        }
+        return new ChunkedNavigableMap<>(chunks.toArray(new Chunk[chunks.size()]), offsets,
+                comparator, 0, offsets[chunks.size()], false);
+    }
+
+    /**
+     * @param comparator the {@link Comparator} to sort keys by
+     * @return an empty map
+     */
+    static <K, V> ChunkedNavigableMap<K, V> empty(Comparator<? super K> comparator) {
+        return of(Collections.emptyList(), comparator);
+    }
+
+    /**
+     * Merges sorted deltas into a map. The chunks of the map are shared if it is a whole
+     * {@link ChunkedNavigableMap}, and the map is copied into chunks otherwise.
+     *
+     * @param previous      the map to merge into, which is not modified
+     * @param deltas        the deltas, sorted and distinct according to the comparator
+     * @param comparator    the {@link Comparator} the keys are sorted by
+     * @param mergeOperator the {@link BinaryOperator} to merge a delta into a value
+     * @param removal       the {@link Predicate} to remove a key by its merged value
+     * @return a new map with the deltas merged
+     */
+    @SuppressWarnings("unchecked")
+    static <K, V> ChunkedNavigableMap<K, V> merge(NavigableMap<K, V> previous,
+            KeyValueBuffer<K, V> deltas, Comparator<? super K> comparator,
+            BinaryOperator<V> mergeOperator, Predicate<? super V> removal) {
+        Chunk[] chunks = previous instanceof ChunkedNavigableMap
+                && ((ChunkedNavigableMap<?, ?>) previous).isWhole()
+                ? ((ChunkedNavigableMap<?, ?>) previous).chunks : chunk(previous);
+        List<Chunk> results = new ArrayList<>(chunks.length + 1);
+        Builder builder = new Builder(results);
+        int d = 0;
+        for (int c = 0; c < chunks.length; c++) {
+            Chunk chunk = chunks[c];
+            boolean last = c == chunks.length - 1;
+            int end = d;
+            while (end < deltas.size() && (last
+                    || comparator.compare(deltas.keyAt(end), (K) chunk.lastKey()) <= 0)) {
+                end++;
+            }
+            if (end == d) {
+                builder.share(chunk);
+            } else {
+                mergeChunk(chunk, deltas, d, end, comparator, mergeOperator, removal,
+                        builder);
+                d = end;
+            }
+        }
+        for (; d < deltas.size(); d++) {
+            if (!removal.test(deltas.valueAt(d))) {
+                builder.add(deltas.keyAt(d), deltas.valueAt(d));
+            }
+        }
+        builder.flush();
+        return of(results, comparator);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> void mergeChunk(Chunk chunk, KeyValueBuffer<K, V> deltas,
+            int from, int to, Comparator<? super K> comparator,
+            BinaryOperator<V> mergeOperator, Predicate<? super V> removal,
+            Builder builder) {
+        int i = 0;
+        int d = from;
+        while (i < chunk.keys.length || d < to) {
+            int result = i == chunk.keys.length ? 1 : d == to ? -1
+                    : comparator.compare((K) chunk.keys[i], deltas.keyAt(d));
+            K key;
+            V value;
+            if (result < 0) {
+                key = (K) chunk.keys[i];
+                value = (V) chunk.values[i++];
+            } else {
+                key = deltas.keyAt(d);
+                value = result == 0
+                        ? mergeOperator.apply((V) chunk.values[i++], deltas.valueAt(d))
+                        : deltas.valueAt(d);
+                d++;
+                if (removal.test(value)) {
+                    continue;
+                }
+            }
+            builder.add(key, value);
+        }
+    }
+
+    /**
+     * Evicts the lowest entries of this map, which must not be a view. Only the chunk
+     * that the new lowest entry falls into is copied.
+     *
+     * @param count the number of entries to evict
+     * @return a new map without the first {@code count} entries, or this map if there
+     * are none to evict
+     */
+    ChunkedNavigableMap<K, V> dropFirst(int count) {
+        if (count <= 0) {
+            return this;
+        }
+        if (count >= offsets[chunks.length]) {
+            return empty(comparator);
+        }
+        int chunk = chunkAt(count);
+        int skip = count - offsets[chunk];
+        List<Chunk> results = new ArrayList<>(chunks.length - chunk);
+        results.add(skip == 0 ? chunks[chunk] : new Chunk(
+                Arrays.copyOfRange(chunks[chunk].keys, skip, chunks[chunk].keys.length),
+                Arrays.copyOfRange(chunks[chunk].values, skip,
+                        chunks[chunk].values.length)));
+        results.addAll(Arrays.asList(chunks).subList(chunk + 1, chunks.length));
+        return of(results, comparator);
+    }
+
+    private static Chunk[] chunk(NavigableMap<?, ?> map) {
+        List<Chunk> results = new ArrayList<>(map.size() / CHUNK_SIZE + 1);
+        Builder builder = new Builder(results);
+        for (Entry<?, ?> entry : map.entrySet()) {
+            builder.add(entry.getKey(), entry.getValue());
+        }
+        builder.flush();
+        return results.toArray(new Chunk[results.size()]);
+    }
+
+    private boolean isWhole() {
+        return from == 0 && to == offsets[chunks.length] && !descending;
+    }
+
+    private int chunkAt(int index) {
+        int chunk = Arrays.binarySearch(offsets, index);
+        return chunk < 0 ? -chunk - 2 : chunk;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    K keyAt(int index) {
+        int chunk = chunkAt(index);
+        return (K) chunks[chunk].keys[index - offsets[chunk]];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    V valueAt(int index) {
+        int chunk = chunkAt(index);
+        return (V) chunks[chunk].values[index - offsets[chunk]];
+    }
+
+    @Override
+    Comparator<? super K> keyComparator() {
+        return comparator;
+    }
+
+    @Override
+    ArrayNavigableMap<K, V> view(int from, int to, boolean descending) {
+        return new ChunkedNavigableMap<>(chunks, offsets, comparator, from, to, descending);
+    }
+
+    /**
+     * An immutable, non-empty, sorted chunk of entries.
+     */
+    private static final class Chunk {
+
+        private final Object[] keys;
+        private final Object[] values;
+
+        private Chunk(Object[] keys, Object[] values) {
+            this.keys = keys;
+            this.values = values;
+        }
+
+        private Object lastKey() {
+            return keys[keys.length - 1];
+        }
+    }
+
+    /**
+     * Appends entries and whole chunks in sorted order, cutting new chunks at
+     * {@link #CHUNK_SIZE} entries. A new chunk that is less than half full is joined to
+     * the next entries, so that removals do not leave small chunks behind.
+     */
+    private static final class Builder {
+
+        private final List<Chunk> results;
+        private final Object[] keys = new Object[CHUNK_SIZE];
+        private final Object[] values = new Object[CHUNK_SIZE];
+        private int size;
+
+        private Builder(List<Chunk> results) {
+            this.results = results;
+        }
+
+        private void add(Object key, Object value) {
+            if (size == CHUNK_SIZE) {
+                flush();
+            }
+            keys[size] = key;
+            values[size++] = value;
+        }
+
+        private void share(Chunk chunk) {
+            if (size > 0 && size < CHUNK_SIZE / 2
+                    && size + chunk.keys.length <= CHUNK_SIZE) {
+                for (int i = 0; i < chunk.keys.length; i++) {
+                    add(chunk.keys[i], chunk.values[i]);
+                }
+                return;
+            }
+            flush();
+            results.add(chunk);
+        }
+
+        private void flush() {
+            if (size > 0) {
+                results.add(new Chunk(Arrays.copyOf(keys, size), Arrays.copyOf(values, size)));
+                size = 0;
+            }
+        }
+    }
+}
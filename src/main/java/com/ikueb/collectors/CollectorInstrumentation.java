@@ -0,0 +1,218 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.stream.Collector;
+import java.util.stream.Collector.Characteristics;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Opt-in instrumentation of a {@link Collector}, such as those from
+ * {@link NavigableMapCollectors}, and of the {@link Comparator} and
+ * {@link BinaryOperator} given to it:
+ * <pre>{@code
+ * CollectorInstrumentation instrumentation = CollectorInstrumentation.of("orders");
+ * orders.stream().collect(instrumentation.instrumented(
+ *         toNavigableMap(Order::getId, identity(),
+ *                 instrumentation.comparator(naturalOrder()),
+ *                 instrumentation.mergeOperator(Order::merge))));
+ * }</pre>
+ * When finishing, the {@link CollectorStats} of the collection are passed to a
+ * {@link CollectorStatsListener}, and the counters are reset, even if the finisher
+ * fails. An instance should therefore only record one collection at a time.
+ * <p>
+ * A disabled instance returns everything it is given unwrapped, so that it can stay in
+ * place at no cost. Counters are {@link LongAdder} instances, so that enabled instances
+ * do not contend in parallel streams.
+ */
+public final class CollectorInstrumentation {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CollectorInstrumentation.class);
+    private static final CollectorInstrumentation DISABLED =
+            new CollectorInstrumentation(null, null);
+
+    private final String name;
+    private final CollectorStatsListener listener;
+    private final LongAdder accumulated = new LongAdder();
+    private final LongAdder merges = new LongAdder();
+    private final LongAdder comparisons = new LongAdder();
+    private final LongAdder combines = new LongAdder();
+    private final LongAdder combinerNanos = new LongAdder();
+
+    private CollectorInstrumentation(String name, CollectorStatsListener listener) {
+        this.name = name;
+        this.listener = listener;
+    }
+
+    /**
+     * @param name the name to report with
+     * @return an instance logging with {@link CollectorStatsListener#logging()}, which
+     * is only enabled if debug logging is enabled for this class
+     */
+    public static CollectorInstrumentation of(String name) {
+        return LOGGER.isDebugEnabled()
+                ? of(name, CollectorStatsListener.logging(LOGGER)) : DISABLED;
+    }
+
+    /**
+     * @param name     the name to report with
+     * @param listener the {@link CollectorStatsListener} to report to
+     * @return an enabled instance
+     */
+    public static CollectorInstrumentation of(String name, CollectorStatsListener listener) {
+        return new CollectorInstrumentation(requireNonNull(name), requireNonNull(listener));
+    }
+
+    /**
+     * @return a disabled instance
+     */
+    public static CollectorInstrumentation disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * @return {@code true} if this instance records anything
+     */
+    public boolean isEnabled() {
+        return listener != null;
+    }
+
+    /**
+     * Note that wrapping {@link SortKeys#comparator()} disables radix sorting, which is
+     * only used for that exact instance.
+     *
+     * @param comparator the {@link Comparator} to wrap
+     * @return a {@link Comparator} counting its invocations, or {@code comparator} if
+     * disabled
+     */
+    public <T> Comparator<T> comparator(Comparator<T> comparator) {
+        requireNonNull(comparator);
+        if (!isEnabled()) {
+            return comparator;
+        }
+        return (a, b) -> {
+            comparisons.increment();
+            return comparator.compare(a, b);
+        };
+    }
+
+    /**
+     * @param mergeOperator the {@link BinaryOperator} to wrap
+     * @return a {@link BinaryOperator} counting its invocations, or {@code mergeOperator}
+     * if disabled
+     */
+    public <V> BinaryOperator<V> mergeOperator(BinaryOperator<V> mergeOperator) {
+        requireNonNull(mergeOperator);
+        if (!isEnabled()) {
+            return mergeOperator;
+        }
+        return (a, b) -> {
+            merges.increment();
+            return mergeOperator.apply(a, b);
+        };
+    }
+
+    /**
+     * The wrapped {@link Collector} counts accumulated elements and combiner invocations,
+     * and times the combiner and the finisher. If the result is a {@link Map}, its number
+     * of keys, and the size of its largest {@link Collection} value, are also reported.
+     * The latter is not reported for results that are spilled to disk, such as from
+     * {@link NavigableMapCollectors#groupAndSortBySpilling}, as finding it would read every
+     * value back.
+     *
+     * @param collector the {@link Collector} to wrap
+     * @return a {@link Collector} reporting its {@link CollectorStats} when finishing, or
+     * {@code collector} if disabled
+     */
+    public <T, A, R> Collector<T, A, R> instrumented(Collector<T, A, R> collector) {
+        requireNonNull(collector);
+        if (!isEnabled()) {
+            return collector;
+        }
+        BiConsumer<A, T> accumulator = collector.accumulator();
+        BinaryOperator<A> combiner = collector.combiner();
+        Function<A, R> finisher = collector.finisher();
+        Set<Characteristics> characteristics = EnumSet.noneOf(Characteristics.class);
+        characteristics.addAll(collector.characteristics());
+        characteristics.remove(Characteristics.IDENTITY_FINISH);
+        return Collector.of(collector.supplier(),
+                (container, t) -> {
+                    accumulated.increment();
+                    accumulator.accept(container, t);
+                },
+                (left, right) -> {
+                    long start = System.nanoTime();
+                    try {
+                        return combiner.apply(left, right);
+                    } finally {
+                        combines.increment();
+                        combinerNanos.add(System.nanoTime() - start);
+                    }
+                },
+                container -> {
+                    long start = System.nanoTime();
+                    try {
+                        R result = finisher.apply(container);
+                        report(result, System.nanoTime() - start);
+                        return result;
+                    } finally {
+                        reset();
+                    }
+                },
+                characteristics.toArray(new Characteristics[characteristics.size()]));
+    }
+
+    private void report(Object result, long finisherNanos) {
+        long distinctKeys = -1;
+        long largestGroup = -1;
+        if (result instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) result;
+            distinctKeys = map.size();
+            Collection<?> values = result instanceof SpilledNavigableMap
+                    ? Collections.emptyList() : map.values();
+            for (Object value : values) {
+                if (value instanceof Collection) {
+                    largestGroup = Math.max(largestGroup, ((Collection<?>) value).size());
+                }
+            }
+        }
+        listener.collected(name, new CollectorStats(accumulated.sum(), distinctKeys,
+                largestGroup, merges.sum(), comparisons.sum(), combines.sum(),
+                combinerNanos.sum(), finisherNanos));
+    }
+
+    private void reset() {
+        accumulated.reset();
+        merges.reset();
+        comparisons.reset();
+        combines.reset();
+        combinerNanos.reset();
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+/**
+ * Immutable snapshot of what a {@link java.util.stream.Collector} did during one
+ * collection, as recorded by {@link CollectorInstrumentation}.
+ * <p>
+ * Comparisons and merges are only counted when the {@link java.util.Comparator} and
+ * {@link java.util.function.BinaryOperator} given to the collector were wrapped by the
+ * same {@link CollectorInstrumentation}, and are {@code 0} otherwise.
+ */
+public final class CollectorStats {
+
+    private final long accumulated;
+    private final long distinctKeys;
+    private final long largestGroup;
+    private final long merges;
+    private final long comparisons;
+    private final long combines;
+    private final long combinerNanos;
+    private final long finisherNanos;
+
+    CollectorStats(long accumulated, long distinctKeys, long largestGroup, long merges,
+            long comparisons, long combines, long combinerNanos, long finisherNanos) {
+        this.accumulated = accumulated;
+        this.distinctKeys = distinctKeys;
+        this.largestGroup = largestGroup;
+        this.merges = merges;
+        this.comparisons = comparisons;
+        this.combines = combines;
+        this.combinerNanos = combinerNanos;
+        this.finisherNanos = finisherNanos;
+    }
+
+    /**
+     * @return the number of stream elements accumulated
+     */
+    public long accumulated() {
+        return accumulated;
+    }
+
+    /**
+     * @return the number of keys in the result, or {@code -1} if it is not a
+     * {@link java.util.Map}
+     */
+    public long distinctKeys() {
+        return distinctKeys;
+    }
+
+    /**
+     * @return the largest number of values under one key in the result, or {@code -1}
+     * if its values are not {@link java.util.Collection} instances, or if the result is
+     * spilled to disk
+     */
+    public long largestGroup() {
+        return largestGroup;
+    }
+
+    /**
+     * @return the number of merge operator invocations
+     */
+    public long merges() {
+        return merges;
+    }
+
+    /**
+     * @return the number of comparator invocations
+     */
+    public long comparisons() {
+        return comparisons;
+    }
+
+    /**
+     * @return the number of combiner invocations
+     */
+    public long combines() {
+        return combines;
+    }
+
+    /**
+     * @return the total time spent in the combiner, in nanoseconds
+     */
+    public long combinerNanos() {
+        return combinerNanos;
+    }
+
+    /**
+     * @return the time spent in the finisher, in nanoseconds
+     */
+    public long finisherNanos() {
+        return finisherNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("accumulated=%d, distinctKeys=%d, largestGroup=%d, merges=%d, "
+                        + "comparisons=%d, combines=%d, combinerNanos=%d, finisherNanos=%d",
+                accumulated, distinctKeys, largestGroup, merges, comparisons, combines,
+                combinerNanos, finisherNanos);
+    }
+}
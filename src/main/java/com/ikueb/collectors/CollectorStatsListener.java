@@ -0,0 +1,52 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Receives the {@link CollectorStats} of every collection recorded by a
+ * {@link CollectorInstrumentation}.
+ */
+@FunctionalInterface
+public interface CollectorStatsListener {
+
+    /**
+     * Called by the finisher of the instrumented collector, on the thread completing
+     * the collection.
+     *
+     * @param name  the name of the {@link CollectorInstrumentation}
+     * @param stats the recorded statistics
+     */
+    void collected(String name, CollectorStats stats);
+
+    /**
+     * @param logger the {@link Logger} to use
+     * @return a listener logging at debug level
+     */
+    static CollectorStatsListener logging(Logger logger) {
+        return (name, stats) -> logger.debug("Collected {}: {}", name, stats);
+    }
+
+    /**
+     * @return a listener logging at debug level to the {@link Logger} of
+     * {@link CollectorInstrumentation}
+     */
+    static CollectorStatsListener logging() {
+        return logging(LoggerFactory.getLogger(CollectorInstrumentation.class));
+    }
+}
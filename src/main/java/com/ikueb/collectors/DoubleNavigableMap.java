@@ -0,0 +1,123 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+/**
+ * A read-only {@link java.util.NavigableMap} with primitive {@code double} keys, which
+ * can also be queried without boxing the keys.
+ *
+ * @param <V> the type of values
+ */
+public final class DoubleNavigableMap<V> extends EncodedKeyNavigableMap<Double, V> {
+
+    DoubleNavigableMap(long[] keys, Object[] values) {
+        this(keys, values, 0, keys.length, false);
+    }
+
+    private DoubleNavigableMap(long[] keys, Object[] values, int from, int to,
+            boolean descending) {
+        super(keys, values, from, to, descending);
+    }
+
+    /**
+     * @param key the key to encode
+     * @return a {@code long} whose signed ordering matches {@link Double#compare}
+     */
+    static long encodeKey(double key) {
+        long bits = Double.doubleToLongBits(key);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    /**
+     * @param key the encoded key
+     * @return the decoded key
+     * @see #encodeKey(double)
+     */
+    static double decodeKey(long key) {
+        return Double.longBitsToDouble(key ^ ((key >> 63) & Long.MAX_VALUE));
+    }
+
+    @Override
+    long encode(Object key) {
+        return encodeKey((Double) key);
+    }
+
+    @Override
+    Double decode(long key) {
+        return decodeKey(key);
+    }
+
+    @Override
+    ArrayNavigableMap<Double, V> view(int from, int to, boolean descending) {
+        return new DoubleNavigableMap<>(keys, values, from, to, descending);
+    }
+
+    /**
+     * @param key the key to search for
+     * @return {@code true} if this map contains the key
+     */
+    public boolean containsKey(double key) {
+        return indexOf(probe(encodeKey(key))) >= 0;
+    }
+
+    /**
+     * @param key the key to search for
+     * @return the value mapped to the key, or {@code null} if there is none
+     */
+    public V get(double key) {
+        return valueOrNull(indexOf(probe(encodeKey(key))));
+    }
+
+    /**
+     * @param key the key to search for
+     * @return the value mapped to the greatest key strictly less than the given key,
+     * or {@code null} if there is none
+     * @see #lowerEntry(Object)
+     */
+    public V lowerValue(double key) {
+        return valueOrNull(lowerIndex(probe(encodeKey(key))));
+    }
+
+    /**
+     * @param key the key to search for
+     * @return the value mapped to the greatest key less than or equal to the given key,
+     * or {@code null} if there is none
+     * @see #floorEntry(Object)
+     */
+    public V floorValue(double key) {
+        return valueOrNull(floorIndex(probe(encodeKey(key))));
+    }
+
+    /**
+     * @param key the key to search for
+     * @return the value mapped to the least key greater than or equal to the given key,
+     * or {@code null} if there is none
+     * @see #ceilingEntry(Object)
+     */
+    public V ceilingValue(double key) {
+        return valueOrNull(ceilingIndex(probe(encodeKey(key))));
+    }
+
+    /**
+     * @param key the key to search for
+     * @return the value mapped to the least key strictly greater than the given key,
+     * or {@code null} if there is none
+     * @see #higherEntry(Object)
+     */
+    public V higherValue(double key) {
+        return valueOrNull(higherIndex(probe(encodeKey(key))));
+    }
+}
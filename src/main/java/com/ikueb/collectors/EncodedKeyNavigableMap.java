@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import java.util.Comparator;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * An {@link ArrayNavigableMap} over primitive keys, stored as {@code long} values whose
+ * signed ordering matches the natural ordering of the boxed keys.
+ *
+ * @param <K> the type of boxed keys
+ * @param <V> the type of values
+ */
+abstract class EncodedKeyNavigableMap<K extends Comparable<K>, V>
+        extends ArrayNavigableMap<K, V> {
+
+    final long[] keys;
+    final Object[] values;
+
+    EncodedKeyNavigableMap(long[] keys, Object[] values, int from, int to,
+            boolean descending) {
+        super(from, to, descending);
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * @param key the boxed key
+     * @return the encoded key
+     */
+    abstract long encode(Object key);
+
+    /**
+     * @param key the encoded key
+     * @return the boxed key
+     */
+    abstract K decode(long key);
+
+    @Override
+    K keyAt(int index) {
+        return decode(keys[index]);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    V valueAt(int index) {
+        return (V) values[index];
+    }
+
+    @Override
+    Comparator<? super K> keyComparator() {
+        return Comparator.naturalOrder();
+    }
+
+    @Override
+    int compareAt(int index, Object key) {
+        return Long.compare(keys[index], encode(key));
+    }
+
+    @Override
+    IntUnaryOperator probe(Object key) {
+        return probe(encode(key));
+    }
+
+    /**
+     * @param key the encoded key to search for
+     * @return an {@link IntUnaryOperator} comparing the key at an index against the
+     * given key
+     */
+    final IntUnaryOperator probe(long key) {
+        return i -> Long.compare(keys[i], key);
+    }
+}
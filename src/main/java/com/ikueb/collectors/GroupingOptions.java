@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable options for how the {@link List} of values per key is finished by the
+ * grouping {@link java.util.stream.Collector} implementations in
+ * {@link NavigableMapCollectors}.
+ * <p>
+ * Values are always sorted in place, and the resulting {@link List} is trimmed to size,
+ * either when finishing or, with {@link #lazy()}, on first access.
+ */
+public final class GroupingOptions {
+
+    private static final GroupingOptions DEFAULTS =
+            new GroupingOptions(Integer.MAX_VALUE, false, false);
+
+    private final int parallelSortThreshold;
+    private final boolean unmodifiable;
+    private final boolean lazy;
+
+    private GroupingOptions(int parallelSortThreshold, boolean unmodifiable, boolean lazy) {
+        this.parallelSortThreshold = parallelSortThreshold;
+        this.unmodifiable = unmodifiable;
+        this.lazy = lazy;
+    }
+
+    /**
+     * @return the default options: sequential sorting when finishing, and modifiable
+     * results
+     */
+    public static GroupingOptions defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * @param threshold the minimum number of values for a key to be sorted with
+     *                  {@link Arrays#parallelSort(Object[], int, int, Comparator)}
+     * @return a new instance with the given threshold
+     * @throws IllegalArgumentException if {@code threshold} is not positive
+     */
+    public GroupingOptions parallelSortThreshold(int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Threshold must be positive.");
+        }
+        return new GroupingOptions(threshold, unmodifiable, lazy);
+    }
+
+    /**
+     * @return a new instance where the {@link List} of values per key is unmodifiable
+     */
+    public GroupingOptions unmodifiable() {
+        return new GroupingOptions(parallelSortThreshold, true, lazy);
+    }
+
+    /**
+     * Finishing then only buckets the values, and the {@link List} of values per key is
+     * sorted on its first access instead, at most once even across threads. This suits
+     * results where only a few keys are read.
+     *
+     * @return a new instance where the {@link List} of values per key is sorted lazily
+     */
+    public GroupingOptions lazy() {
+        return new GroupingOptions(parallelSortThreshold, unmodifiable, true);
+    }
+
+    /**
+     * Sorts the values in place, and trims them, unless they are to be sorted lazily.
+     *
+     * @param values          the values to finish
+     * @param valueComparator the {@link Comparator} to use for the values
+     * @return the finished values
+     */
+    <V> List<V> finish(ValueList<V> values, Comparator<? super V> valueComparator) {
+        List<V> results;
+        if (lazy) {
+            results = new LazilySortedList<>(values, valueComparator, parallelSortThreshold);
+        } else {
+            values.sort(valueComparator, parallelSortThreshold);
+            results = values.trimToSize();
+        }
+        return unmodifiable ? Collections.unmodifiableList(results) : results;
+    }
+}
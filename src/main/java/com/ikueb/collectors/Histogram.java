@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import java.util.Arrays;
+
+/**
+ * Mutable accumulation container of per-bucket counts, sums, minimums and maximums in
+ * primitive arrays, so that accumulating a value neither boxes nor allocates.
+ */
+final class Histogram {
+
+    private final Buckets buckets;
+    private final long[] counts;
+    private final double[] sums;
+    private final double[] mins;
+    private final double[] maxs;
+
+    /**
+     * @param buckets the {@link Buckets} to use
+     */
+    Histogram(Buckets buckets) {
+        this.buckets = buckets;
+        this.counts = new long[buckets.size()];
+        this.sums = new double[buckets.size()];
+        this.mins = new double[buckets.size()];
+        this.maxs = new double[buckets.size()];
+        Arrays.fill(mins, Double.POSITIVE_INFINITY);
+        Arrays.fill(maxs, Double.NEGATIVE_INFINITY);
+    }
+
+    /**
+     * @param value the value to add, which is ignored if it is in no bucket
+     */
+    void add(double value) {
+        int index = buckets.indexOf(value);
+        if (index >= 0) {
+            counts[index]++;
+            sums[index] += value;
+            mins[index] = Math.min(mins[index], value);
+            maxs[index] = Math.max(maxs[index], value);
+        }
+    }
+
+    /**
+     * Combines with another histogram over the same buckets, in time linear to the number
+     * of buckets.
+     *
+     * @param other the histogram to combine with
+     * @return this histogram
+     */
+    Histogram combine(Histogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+            sums[i] += other.sums[i];
+            mins[i] = Math.min(mins[i], other.mins[i]);
+            maxs[i] = Math.max(maxs[i], other.maxs[i]);
+        }
+        return this;
+    }
+
+    /**
+     * @return a {@link DoubleNavigableMap} from the lower bound of every bucket to its
+     * {@link BucketStatistics}
+     */
+    DoubleNavigableMap<BucketStatistics> toNavigableMap() {
+        long[] keys = new long[counts.length];
+        Object[] values = new Object[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            keys[i] = DoubleNavigableMap.encodeKey(buckets.boundAt(i));
+            values[i] = new BucketStatistics(counts[i], sums[i], mins[i], maxs[i]);
+        }
+        return new DoubleNavigableMap<>(keys, values);
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import java.util.Comparator;
+
+/**
+ * Immutable bounds on the keys to keep, for the bounded {@link java.util.stream.Collector}
+ * implementations in {@link NavigableMapCollectors}.
+ * <p>
+ * Bounds are either a range of keys, as with
+ * {@link java.util.NavigableMap#subMap(Object, boolean, Object, boolean)}, or a limit on
+ * the number of the smallest or largest keys to keep. Stream elements whose keys are out
+ * of bounds are discarded while accumulating, before their values are even mapped, so
+ * that memory is proportional to the keys that are kept. The ends of a range are compared
+ * with the {@link Comparator} of the keys given to the
+ * {@link java.util.stream.Collector}.
+ *
+ * @param <K> the type of keys
+ */
+public final class KeyBounds<K> {
+
+    private final K from;
+    private final boolean fromInclusive;
+    private final boolean hasFrom;
+    private final K to;
+    private final boolean toInclusive;
+    private final boolean hasTo;
+    private final int limit;
+    private final boolean largest;
+
+    private KeyBounds(K from, boolean fromInclusive, boolean hasFrom, K to,
+            boolean toInclusive, boolean hasTo, int limit, boolean largest) {
+        this.from = from;
+        this.fromInclusive = fromInclusive;
+        this.hasFrom = hasFrom;
+        this.to = to;
+        this.toInclusive = toInclusive;
+        this.hasTo = hasTo;
+        this.limit = limit;
+        this.largest = largest;
+    }
+
+    /**
+     * @param from          the lowest key to keep
+     * @param fromInclusive whether to keep {@code from} itself
+     * @param to            the highest key to keep
+     * @param toInclusive   whether to keep {@code to} itself
+     * @return bounds keeping the keys from {@code from} to {@code to}
+     */
+    public static <K> KeyBounds<K> range(K from, boolean fromInclusive, K to,
+            boolean toInclusive) {
+        return new KeyBounds<>(from, fromInclusive, true, to, toInclusive, true,
+                Integer.MAX_VALUE, false);
+    }
+
+    /**
+     * @param from the lowest key to keep, inclusive
+     * @param to   the highest key to keep, exclusive
+     * @return bounds keeping the keys from {@code from} to {@code to}, as with
+     * {@link java.util.NavigableMap#subMap(Object, Object)}
+     */
+    public static <K> KeyBounds<K> range(K from, K to) {
+        return range(from, true, to, false);
+    }
+
+    /**
+     * @param from the lowest key to keep, inclusive
+     * @return bounds keeping the keys from {@code from}, as with
+     * {@link java.util.NavigableMap#tailMap(Object)}
+     */
+    public static <K> KeyBounds<K> atLeast(K from) {
+        return new KeyBounds<>(from, true, true, null, false, false, Integer.MAX_VALUE,
+                false);
+    }
+
+    /**
+     * @param to the highest key to keep, exclusive
+     * @return bounds keeping the keys below {@code to}, as with
+     * {@link java.util.NavigableMap#headMap(Object)}
+     */
+    public static <K> KeyBounds<K> below(K to) {
+        return new KeyBounds<>(null, false, false, to, false, true, Integer.MAX_VALUE,
+                false);
+    }
+
+    /**
+     * @param limit the number of keys to keep
+     * @return bounds keeping the {@code limit} smallest keys
+     * @throws IllegalArgumentException if {@code limit} is not positive
+     */
+    public static <K> KeyBounds<K> smallest(int limit) {
+        return new KeyBounds<>(null, false, false, null, false, false,
+                BoundedValueHeap.checkLimit(limit), false);
+    }
+
+    /**
+     * @param limit the number of keys to keep
+     * @return bounds keeping the {@code limit} largest keys
+     * @throws IllegalArgumentException if {@code limit} is not positive
+     */
+    public static <K> KeyBounds<K> largest(int limit) {
+        return new KeyBounds<>(null, false, false, null, false, false,
+                BoundedValueHeap.checkLimit(limit), true);
+    }
+
+    /**
+     * Narrows bounds given on a supertype of the keys, such as the bounds from
+     * {@link #smallest(int)} and {@link #largest(int)} when their type is not inferred.
+     * The ends of a range are compared with the {@link Comparator} of the keys.
+     *
+     * @param bounds the bounds to narrow
+     * @return the same bounds
+     */
+    @SuppressWarnings("unchecked")
+    static <K> KeyBounds<K> narrow(KeyBounds<? super K> bounds) {
+        return (KeyBounds<K>) bounds;
+    }
+
+    /**
+     * @return whether these bounds limit the number of keys, instead of their range
+     */
+    boolean isRanked() {
+        return limit != Integer.MAX_VALUE;
+    }
+
+    /**
+     * @return the number of keys to keep
+     */
+    int limit() {
+        return limit;
+    }
+
+    /**
+     * @return whether the largest keys are kept, instead of the smallest
+     */
+    boolean isLargest() {
+        return largest;
+    }
+
+    /**
+     * @param keyComparator the {@link Comparator} to use for the keys
+     * @return these bounds
+     * @throws IllegalArgumentException if the range ends before it starts
+     */
+    KeyBounds<K> check(Comparator<? super K> keyComparator) {
+        if (hasFrom && hasTo && keyComparator.compare(from, to) > 0) {
+            throw new IllegalArgumentException(
+                    String.format("Range starts at %s after ending at %s.", from, to));
+        }
+        return this;
+    }
+
+    /**
+     * @param key           the key to check
+     * @param keyComparator the {@link Comparator} to use for the keys
+     * @return whether the key is within the range of these bounds
+     */
+    boolean contains(K key, Comparator<? super K> keyComparator) {
+        if (hasFrom) {
+            int result = keyComparator.compare(key, from);
+            if (result < 0 || result == 0 && !fromInclusive) {
+                return false;
+            }
+        }
+        if (hasTo) {
+            int result = keyComparator.compare(key, to);
+            return result < 0 || result == 0 && toInclusive;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BinaryOperator;
+
+/**
+ * Mutable accumulation container that buffers keys and values into parallel arrays, and
+ * only sorts them, merging values on identical keys, once they are needed in order.
+ * <p>
+ * Keys that are added in sorted order are detected, and never sorted again. Combining
+ * two buffers whose ranges of keys do not overlap only appends one to the other.
+ * <p>
+ * Without a merge operator, entries with identical keys are all kept, in encounter
+ * order.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+final class KeyValueBuffer<K, V> {
+
+    private static final Object[] EMPTY = {};
+    private static final int MINIMUM_CAPACITY = 16;
+
+    private final Comparator<Object> comparator;
+    private final BinaryOperator<V> mergeOperator;
+    private final boolean strict;
+    private Object[] keys = EMPTY;
+    private Object[] values = EMPTY;
+    private int size;
+    private boolean sorted = true;
+
+    /**
+     * @param keyComparator the {@link Comparator} to use for the keys
+     * @param mergeOperator the {@link BinaryOperator} to use for merging values, or
+     *                      {@code null} to keep all of them
+     */
+    KeyValueBuffer(Comparator<? super K> keyComparator, BinaryOperator<V> mergeOperator) {
+        this(keyComparator, mergeOperator, false);
+    }
+
+    /**
+     * @param keyComparator the {@link Comparator} to use for the keys
+     * @param mergeOperator the {@link BinaryOperator} to use for merging values, or
+     *                      {@code null} to keep all of them
+     * @param strict        whether keys must be added in sorted order, instead of being
+     *                      sorted when needed
+     */
+    @SuppressWarnings("unchecked")
+    KeyValueBuffer(Comparator<? super K> keyComparator, BinaryOperator<V> mergeOperator,
+            boolean strict) {
+        this.comparator = (Comparator<Object>) keyComparator;
+        this.mergeOperator = mergeOperator;
+        this.strict = strict;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > keys.length) {
+            int newCapacity = Math.max(MINIMUM_CAPACITY,
+                    Math.max(capacity, keys.length + (keys.length >> 1)));
+            keys = Arrays.copyOf(keys, newCapacity);
+            values = Arrays.copyOf(values, newCapacity);
+        }
+    }
+
+    /**
+     * @return the number of buffered entries
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param index the index of the entry
+     * @return the key at the index
+     */
+    @SuppressWarnings("unchecked")
+    K keyAt(int index) {
+        return (K) keys[index];
+    }
+
+    /**
+     * @param index the index of the entry
+     * @return the value at the index
+     */
+    @SuppressWarnings("unchecked")
+    V valueAt(int index) {
+        return (V) values[index];
+    }
+
+    /**
+     * @return the {@link Comparator} to use for the keys
+     */
+    Comparator<Object> comparator() {
+        return comparator;
+    }
+
+    /**
+     * Adds an entry. While the entries stay sorted, which costs one comparison per entry
+     * to verify, a value on a key identical to the last key is merged right away, so that
+     * sorted input never needs to be sorted again.
+     *
+     * @param key   the key to add
+     * @param value the value to add
+     * @throws IllegalStateException if this buffer is strict and the key is less than the
+     *                               last key
+     * @throws NullPointerException  if the first key is {@code null} and the
+     *                               {@link Comparator} does not permit it, like
+     *                               {@link java.util.TreeMap#put(Object, Object)}
+     */
+    void add(K key, V value) {
+        if (size == 0) {
+            comparator.compare(key, key); // type (and possibly null) check
+        } else if (sorted) {
+            int result = comparator.compare(keys[size - 1], key);
+            if (result == 0 && mergeOperator != null) {
+                values[size - 1] = mergeOperator.apply(valueAt(size - 1), value);
+                return;
+            }
+            if (result > 0) {
+                if (strict) {
+                    throw outOfOrder(keys[size - 1], key);
+                }
+                sorted = false;
+            }
+        }
+        ensureCapacity(size + 1);
+        keys[size] = key;
+        values[size++] = value;
+    }
+
+    private static IllegalStateException outOfOrder(Object previous, Object key) {
+        return new IllegalStateException(
+                String.format("Key %s is out of order after %s.", key, previous));
+    }
+
+    /**
+     * Merges the entries of another buffer, whose entries all come after the entries of
+     * this one, into this buffer. Both buffers are sorted first, so that they can be
+     * merged in linear time.
+     *
+     * @param other the buffer to merge
+     * @return this buffer
+     */
+    @SuppressWarnings("unchecked")
+    KeyValueBuffer<K, V> combine(KeyValueBuffer<K, V> other) {
+        if (other.size == 0) {
+            return this;
+        }
+        if (size == 0) {
+            return other;
+        }
+        sort();
+        other.sort();
+        if (strict && comparator.compare(keys[size - 1], other.keys[0]) > 0) {
+            throw outOfOrder(keys[size - 1], other.keys[0]);
+        }
+        if (comparator.compare(keys[size - 1], other.keys[0]) < 0) {
+            ensureCapacity(size + other.size);
+            System.arraycopy(other.keys, 0, keys, size, other.size);
+            System.arraycopy(other.values, 0, values, size, other.size);
+            size += other.size;
+            return this;
+        }
+        Object[] mergedKeys = new Object[size + other.size];
+        Object[] mergedValues = new Object[size + other.size];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < size && j < other.size) {
+            int result = comparator.compare(keys[i], other.keys[j]);
+            if (result == 0 && mergeOperator != null) {
+                mergedKeys[n] = keys[i];
+                mergedValues[n++] = mergeOperator.apply((V) values[i++],
+                        (V) other.values[j++]);
+            } else if (result <= 0) {
+                mergedKeys[n] = keys[i];
+                mergedValues[n++] = values[i++];
+            } else {
+                mergedKeys[n] = other.keys[j];
+                mergedValues[n++] = other.values[j++];
+            }
+        }
+        System.arraycopy(keys, i, mergedKeys, n, size - i);
+        System.arraycopy(values, i, mergedValues, n, size - i);
+        n += size - i;
+        System.arraycopy(other.keys, j, mergedKeys, n, other.size - j);
+        System.arraycopy(other.values, j, mergedValues, n, other.size - j);
+        keys = mergedKeys;
+        values = mergedValues;
+        size = n + other.size - j;
+        return this;
+    }
+
+    /**
+     * Sorts the entries by their keys, and merges the values of identical keys in
+     * encounter order.
+     *
+     * @return this buffer
+     */
+    @SuppressWarnings("unchecked")
+    KeyValueBuffer<K, V> sort() {
+        if (sorted) {
+            return this;
+        }
+        ArraySorts.sort(keys, values, size, comparator);
+        sorted = true;
+        if (mergeOperator == null) {
+            return this;
+        }
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinct > 0 && comparator.compare(keys[distinct - 1], keys[i]) == 0) {
+                values[distinct - 1] = mergeOperator.apply(
+                        (V) values[distinct - 1], (V) values[i]);
+            } else {
+                keys[distinct] = keys[i];
+                values[distinct++] = values[i];
+            }
+        }
+        Arrays.fill(keys, distinct, size, null);
+        Arrays.fill(values, distinct, size, null);
+        size = distinct;
+        return this;
+    }
+
+    /**
+     * Sorts the entries by their keys, and groups the values of identical keys into a
+     * {@link List}, finished with the given {@link GroupingOptions}.
+     *
+     * @param valueComparator the {@link Comparator} to use for the values
+     * @param options         the {@link GroupingOptions} to use for the values
+     * @return a new buffer of the grouped values
+     */
+    KeyValueBuffer<K, List<V>> group(Comparator<? super V> valueComparator,
+            GroupingOptions options) {
+        sort();
+        KeyValueBuffer<K, List<V>> results = new KeyValueBuffer<>(comparator, null);
+        for (int i = 0, j; i < size; i = j) {
+            for (j = i + 1; j < size && comparator.compare(keys[i], keys[j]) == 0; j++) {
+                // empty
+            }
+            results.add(keyAt(i),
+                    options.finish(new ValueList<>(values, i, j), valueComparator));
+        }
+        return results;
+    }
+
+    /**
+     * @return a read-only {@link ArrayNavigableMap} over the sorted entries
+     */
+    @SuppressWarnings("unchecked")
+    ArrayNavigableMap<K, V> toNavigableMap() {
+        sort();
+        return new ObjectArrayNavigableMap<>(trim(keys), trim(values), size,
+                (Comparator<? super K>) comparator);
+    }
+
+    private Object[] trim(Object[] array) {
+        return array.length == size ? array : Arrays.copyOf(array, size);
+    }
+}
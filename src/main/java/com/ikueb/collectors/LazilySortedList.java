@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import java.util.AbstractList;
+import java.util.Comparator;
+import java.util.RandomAccess;
+
+/**
+ * {@link java.util.List} of grouped values that are only sorted in place, and trimmed,
+ * on first access, so that finishing a grouping does not pay for sorting groups that are
+ * never read.
+ * <p>
+ * The first access sorts the values at most once, even if several threads access them
+ * concurrently. Modifying the list after that is not thread-safe.
+ *
+ * @param <V> the type of values
+ */
+final class LazilySortedList<V> extends AbstractList<V> implements RandomAccess {
+
+    private final ValueList<V> values;
+    private final Comparator<? super V> comparator;
+    private final int parallelSortThreshold;
+    private volatile boolean sorted;
+
+    /**
+     * @param values                the values to sort on first access
+     * @param comparator            the {@link Comparator} to use for the values
+     * @param parallelSortThreshold the minimum number of values to sort in parallel
+     */
+    LazilySortedList(ValueList<V> values, Comparator<? super V> comparator,
+            int parallelSortThreshold) {
+        this.values = values;
+        this.comparator = comparator;
+        this.parallelSortThreshold = parallelSortThreshold;
+    }
+
+    /**
+     * @return whether the values have been sorted
+     */
+    boolean isSorted() {
+        return sorted;
+    }
+
+    private ValueList<V> sorted() {
+        if (!sorted) {
+            synchronized (values) {
+                if (!sorted) {
+                    values.sort(comparator, parallelSortThreshold);
+                    values.trimToSize();
+                    sorted = true;
+                }
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public int size() {
+        return values.size();
+    }
+
+    @Override
+    public V get(int index) {
+        return sorted().get(index);
+    }
+
+    @Override
+    public V set(int index, V value) {
+        return sorted().set(index, value);
+    }
+
+    @Override
+    public void add(int index, V value) {
+        sorted().add(index, value);
+        modCount++;
+    }
+
+    @Override
+    public V remove(int index) {
+        V previous = sorted().remove(index);
+        modCount++;
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        sorted().clear();
+        modCount++;
+    }
+
+    @Override
+    public Object[] toArray() {
+        return sorted().toArray();
+    }
+
+    @Override
+    public void sort(Comparator<? super V> comparator) {
+        sorted().sort(comparator);
+        modCount++;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BinaryOperator;
+
+/**
+ * Mutable accumulation container that buffers primitive {@code long} keys and their
+ * values into parallel arrays, so that no key is boxed during accumulation.
+ *
+ * @param <V> the type of values
+ */
+final class LongKeyValueBuffer<V> {
+
+    private static final long[] EMPTY_KEYS = {};
+    private static final Object[] EMPTY_VALUES = {};
+    private static final int MINIMUM_CAPACITY = 16;
+
+    private long[] keys = EMPTY_KEYS;
+    private Object[] values = EMPTY_VALUES;
+    private int size;
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > keys.length) {
+            int newCapacity = Math.max(MINIMUM_CAPACITY,
+                    Math.max(capacity, keys.length + (keys.length >> 1)));
+            keys = Arrays.copyOf(keys, newCapacity);
+            values = Arrays.copyOf(values, newCapacity);
+        }
+    }
+
+    /**
+     * @param key   the key to add
+     * @param value the value to add
+     */
+    void add(long key, V value) {
+        ensureCapacity(size + 1);
+        keys[size] = key;
+        values[size++] = value;
+    }
+
+    /**
+     * Appends the entries of another buffer after the entries of this one.
+     *
+     * @param other the buffer to append
+     * @return this buffer
+     */
+    LongKeyValueBuffer<V> combine(LongKeyValueBuffer<V> other) {
+        ensureCapacity(size + other.size);
+        System.arraycopy(other.keys, 0, keys, size, other.size);
+        System.arraycopy(other.values, 0, values, size, other.size);
+        size += other.size;
+        return this;
+    }
+
+    /**
+     * Sorts the entries by their keys, and merges the values of identical keys in
+     * encounter order.
+     *
+     * @param mergeOperator the {@link BinaryOperator} to use for merging values
+     * @return this buffer
+     */
+    @SuppressWarnings("unchecked")
+    LongKeyValueBuffer<V> merge(BinaryOperator<V> mergeOperator) {
+        ArraySorts.sort(keys, values, size);
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinct > 0 && keys[distinct - 1] == keys[i]) {
+                values[distinct - 1] = mergeOperator.apply(
+                        (V) values[distinct - 1], (V) values[i]);
+            } else {
+                keys[distinct] = keys[i];
+                values[distinct++] = values[i];
+            }
+        }
+        return truncate(distinct);
+    }
+
+    /**
+     * Sorts the entries by their keys, and replaces the values of identical keys with a
+     * {@link List} of them, finished with the given {@link GroupingOptions}.
+     *
+     * @param valueComparator the {@link Comparator} to use for the values
+     * @param options         the {@link GroupingOptions} to use for the values
+     * @return this buffer
+     */
+    LongKeyValueBuffer<V> group(Comparator<? super V> valueComparator,
+            GroupingOptions options) {
+        ArraySorts.sort(keys, values, size);
+        int distinct = 0;
+        for (int i = 0, j; i < size; i = j) {
+            for (j = i + 1; j < size && keys[j] == keys[i]; j++) {
+                // empty
+            }
+            List<V> list = options.finish(new ValueList<>(values, i, j), valueComparator);
+            keys[distinct] = keys[i];
+            values[distinct++] = list;
+        }
+        return truncate(distinct);
+    }
+
+    private LongKeyValueBuffer<V> truncate(int newSize) {
+        Arrays.fill(values, newSize, size, null);
+        size = newSize;
+        return this;
+    }
+
+    /**
+     * @return the keys, trimmed to size
+     */
+    long[] keys() {
+        return keys.length == size ? keys : Arrays.copyOf(keys, size);
+    }
+
+    /**
+     * @return the values, trimmed to size
+     */
+    Object[] values() {
+        return values.length == size ? values : Arrays.copyOf(values, size);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+/**
+ * A read-only {@link java.util.NavigableMap} with primitive {@code long} keys, which
+ * can also be queried without boxing the keys.
+ *
+ * @param <V> the type of values
+ */
+public final class LongNavigableMap<V> extends EncodedKeyNavigableMap<Long, V> {
+
+    LongNavigableMap(long[] keys, Object[] values) {
+        this(keys, values, 0, keys.length, false);
+    }
+
+    private LongNavigableMap(long[] keys, Object[] values, int from, int to,
+            boolean descending) {
+        super(keys, values, from, to, descending);
+    }
+
+    @Override
+    long encode(Object key) {
+        return (Long) key;
+    }
+
+    @Override
+    Long decode(long key) {
+        return key;
+    }
+
+    @Override
+    ArrayNavigableMap<Long, V> view(int from, int to, boolean descending) {
+        return new LongNavigableMap<>(keys, values, from, to, descending);
+    }
+
+    /**
+     * @param key the key to search for
+     * @return {@code true} if this map contains the key
+     */
+    public boolean containsKey(long key) {
+        return indexOf(probe(key)) >= 0;
+    }
+
+    /**
+     * @param key the key to search for
+     * @return the value mapped to the key, or {@code null} if there is none
+     */
+    public V get(long key) {
+        return valueOrNull(indexOf(probe(key)));
+    }
+
+    /**
+     * @param key the key to search for
+     * @return the value mapped to the greatest key strictly less than the given key,
+     * or {@code null} if there is none
+     * @see #lowerEntry(Object)
+     */
+    public V lowerValue(long key) {
+        return valueOrNull(lowerIndex(probe(key)));
+    }
+
+    /**
+     * @param key the key to search for
+     * @return the value mapped to the greatest key less than or equal to the given key,
+     * or {@code null} if there is none
+     * @see #floorEntry(Object)
+     */
+    public V floorValue(long key) {
+        return valueOrNull(floorIndex(probe(key)));
+    }
+
+    /**
+     * @param key the key to search for
+     * @return the value mapped to the least key greater than or equal to the given key,
+     * or {@code null} if there is none
+     * @see #ceilingEntry(Object)
+     */
+    public V ceilingValue(long key) {
+        return valueOrNull(ceilingIndex(probe(key)));
+    }
+
+    /**
+     * @param key the key to search for
+     * @return the value mapped to the least key strictly greater than the given key,
+     * or {@code null} if there is none
+     * @see #higherEntry(Object)
+     */
+    public V higherValue(long key) {
+        return valueOrNull(higherIndex(probe(key)));
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import java.util.*;
+import java.util.Map.Entry;
+
+/**
+ * A read-only {@link NavigableSet} view over the keys of a {@link NavigableMap}.
+ *
+ * @param <K> the type of keys
+ */
+final class NavigableKeySet<K> extends AbstractSet<K> implements NavigableSet<K> {
+
+    private final NavigableMap<K, ?> map;
+
+    NavigableKeySet(NavigableMap<K, ?> map) {
+        this.map = map;
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        Iterator<? extends Entry<K, ?>> iterator = map.entrySet().iterator();
+        return new Iterator<K>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public K next() {
+                return iterator.next().getKey();
+            }
+        };
+    }
+
+    @Override
+    public Iterator<K> descendingIterator() {
+        return descendingSet().iterator();
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return map.containsKey(o);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Comparator<? super K> comparator() {
+        return map.comparator();
+    }
+
+    @Override
+    public K first() {
+        return map.firstKey();
+    }
+
+    @Override
+    public K last() {
+        return map.lastKey();
+    }
+
+    @Override
+    public K lower(K k) {
+        return map.lowerKey(k);
+    }
+
+    @Override
+    public K floor(K k) {
+        return map.floorKey(k);
+    }
+
+    @Override
+    public K ceiling(K k) {
+        return map.ceilingKey(k);
+    }
+
+    @Override
+    public K higher(K k) {
+        return map.higherKey(k);
+    }
+
+    @Override
+    public K pollFirst() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public K pollLast() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public NavigableSet<K> descendingSet() {
+        return new NavigableKeySet<>(map.descendingMap());
+    }
+
+    @Override
+    public NavigableSet<K> subSet(K fromElement, boolean fromInclusive, K toElement,
+            boolean toInclusive) {
+        return new NavigableKeySet<>(
+                map.subMap(fromElement, fromInclusive, toElement, toInclusive));
+    }
+
+    @Override
+    public NavigableSet<K> headSet(K toElement, boolean inclusive) {
+        return new NavigableKeySet<>(map.headMap(toElement, inclusive));
+    }
+
+    @Override
+    public NavigableSet<K> tailSet(K fromElement, boolean inclusive) {
+        return new NavigableKeySet<>(map.tailMap(fromElement, inclusive));
+    }
+
+    @Override
+    public SortedSet<K> subSet(K fromElement, K toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    @Override
+    public SortedSet<K> headSet(K toElement) {
+        return headSet(toElement, false);
+    }
+
+    @Override
+    public SortedSet<K> tailSet(K fromElement) {
+        return tailSet(fromElement, true);
+    }
+}
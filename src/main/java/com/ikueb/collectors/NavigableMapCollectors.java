@@ -15,17 +15,25 @@
  */
 package com.ikueb.collectors;
 
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.Comparator;
+import java.util.DoubleSummaryStatistics;
 import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.Map.Entry;
 import java.util.NavigableMap;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
-import java.util.function.BinaryOperator;
-import java.util.function.Function;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.*;
 import java.util.stream.Collector;
+import java.util.stream.DoubleStream;
+import java.util.stream.LongStream;
 
 import static java.util.Comparator.naturalOrder;
+import static java.util.Objects.requireNonNull;
 import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.*;
 
@@ -100,6 +108,11 @@ public final class NavigableMapCollectors {
     /**
      * Maps stream elements to desired keys and values, given a {@link Comparator} for the
      * keys and a {@link BinaryOperator} for merging values on identical keys.
+     * <p>
+     * Partial results of parallel streams are sorted and merged in linear time, and the
+     * resulting {@link TreeMap} is built from the sorted entries in linear time. Input
+     * that is already sorted by key is detected with one comparison per element, and is
+     * not sorted again.
      *
      * @param keyMapper     the {@link Function} to map a stream element as the target key
      * @param valueMapper   the {@link Function} to map a stream element as the target value
@@ -115,64 +128,149 @@ public final class NavigableMapCollectors {
             Function<? super T, ? extends V> valueMapper,
             Comparator<? super K> keyComparator,
             BinaryOperator<V> mergeOperator) {
-        return (Collector<T, A, M>) toMap(keyMapper, valueMapper, mergeOperator,
-                () -> (M) new TreeMap<K, List<V>>(keyComparator));
+        return (Collector<T, A, M>) collectingAndThen(
+                toImmutableNavigableMap(keyMapper, valueMapper, keyComparator,
+                        mergeOperator),
+                TreeMap::new);
     }
 
     /**
-     * Simple one-to-one concurrent mapping of stream elements to their keys, assuming
-     * natural ordering on the keys.
+     * Simple one-to-one mapping of stream elements to desired keys and values within
+     * {@link KeyBounds}, assuming natural ordering on the keys.
+     *
+     * @param keyMapper   the {@link Function} to map a stream element as the target key
+     * @param valueMapper the {@link Function} to map a stream element as the target value
+     * @param bounds      the {@link KeyBounds} of the keys to keep
+     * @return a {@link NavigableMap} with the mapped keys and values within bounds
+     * @see #toNavigableMap(Function, Function, Comparator, BinaryOperator, KeyBounds)
+     */
+    public static <T, A,
+            K extends Comparable<K>, V,
+            M extends NavigableMap<K, V>> Collector<T, A, M> toNavigableMap(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            KeyBounds<? super K> bounds) {
+        return toNavigableMap(keyMapper, valueMapper, naturalOrder(), throwOnMerge(),
+                bounds);
+    }
+
+    /**
+     * Maps stream elements to desired keys and values within {@link KeyBounds}, given a
+     * {@link Comparator} for the keys and a {@link BinaryOperator} for merging values on
+     * identical keys.
+     * <p>
+     * Stream elements whose keys are out of range are discarded before their values are
+     * mapped, and the rest are buffered as with
+     * {@link #toNavigableMap(Function, Function, Comparator, BinaryOperator)}. When only
+     * the smallest or largest keys are kept, entries are kept in a bounded
+     * {@link TreeMap} instead, which evicts the key furthest out as it overflows, and
+     * rejects keys beyond it with one comparison once full.
+     *
+     * @param keyMapper     the {@link Function} to map a stream element as the target key
+     * @param valueMapper   the {@link Function} to map a stream element as the target value
+     * @param keyComparator the {@link Comparator} to use for the resulting
+     *                      {@link NavigableMap}
+     * @param mergeOperator the {@link BinaryOperator} to use for merging values
+     * @param bounds        the {@link KeyBounds} of the keys to keep
+     * @return a {@link NavigableMap} with the mapped keys and values within bounds
+     * @throws IllegalArgumentException if the range of {@code bounds} ends before it
+     *                                  starts
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, A, K, V,
+            M extends NavigableMap<K, V>> Collector<T, A, M> toNavigableMap(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            Comparator<? super K> keyComparator,
+            BinaryOperator<V> mergeOperator,
+            KeyBounds<? super K> bounds) {
+        KeyBounds<K> keyBounds = KeyBounds.<K>narrow(bounds).check(keyComparator);
+        if (keyBounds.isRanked()) {
+            return (Collector<T, A, M>) Collector.of(
+                    () -> new BoundedKeyMap<K, V>(keyComparator, keyBounds, mergeOperator),
+                    (BoundedKeyMap<K, V> map, T t) -> {
+                        K key = keyMapper.apply(t);
+                        if (map.admits(key)) {
+                            map.merge(key, valueMapper.apply(t));
+                        }
+                    },
+                    BoundedKeyMap::combine,
+                    map -> (M) map.toNavigableMap(keyComparator, identity()));
+        }
+        return (Collector<T, A, M>) Collector.of(
+                () -> new KeyValueBuffer<K, V>(keyComparator, mergeOperator),
+                (KeyValueBuffer<K, V> buffer, T t) -> {
+                    K key = keyMapper.apply(t);
+                    if (keyBounds.contains(key, keyComparator)) {
+                        buffer.add(key, valueMapper.apply(t));
+                    }
+                },
+                KeyValueBuffer::combine,
+                buffer -> (M) new TreeMap<K, V>(buffer.toNavigableMap()));
+    }
+
+    /**
+     * Simple one-to-one mapping of stream elements, already sorted by their keys, to
+     * their keys, assuming natural ordering on the keys.
      *
      * @param keyMapper the {@link Function} to map a stream element as the target key
      * @return a {@link NavigableMap} with the mapped keys and the stream elements as
      * values
+     * @see #toNavigableMapFromSorted(Function, Function, Comparator, BinaryOperator)
      */
     public static <T, A,
             K extends Comparable<K>,
-            M extends ConcurrentNavigableMap<K, T>> Collector<T, A, M> toConcurrentNavigableMap(
+            M extends NavigableMap<K, T>> Collector<T, A, M> toNavigableMapFromSorted(
             Function<? super T, ? extends K> keyMapper) {
-        return toConcurrentNavigableMap(keyMapper, identity());
+        return toNavigableMapFromSorted(keyMapper, identity());
     }
 
     /**
-     * Simple one-to-one concurrent mapping of stream elements to desired keys and values,
-     * given natural ordering on the keys.
+     * Simple one-to-one mapping of stream elements, already sorted by their keys, to
+     * desired keys and values, given natural ordering on the keys.
      *
      * @param keyMapper   the {@link Function} to map a stream element as the target key
      * @param valueMapper the {@link Function} to map a stream element as the target value
      * @return a {@link NavigableMap} with the mapped keys and values
+     * @see #toNavigableMapFromSorted(Function, Function, Comparator, BinaryOperator)
      */
     public static <T, A,
             K extends Comparable<K>, V,
-            M extends ConcurrentNavigableMap<K, V>> Collector<T, A, M> toConcurrentNavigableMap(
+            M extends NavigableMap<K, V>> Collector<T, A, M> toNavigableMapFromSorted(
             Function<? super T, ? extends K> keyMapper,
             Function<? super T, ? extends V> valueMapper) {
-        return toConcurrentNavigableMap(keyMapper, valueMapper, naturalOrder());
+        return toNavigableMapFromSorted(keyMapper, valueMapper, naturalOrder());
     }
 
     /**
-     * Simple one-to-one concurrent mapping of stream elements to desired keys and values,
-     * given a {@link Comparator} for the keys.
+     * Simple one-to-one mapping of stream elements, already sorted by their keys, to
+     * desired keys and values, given a {@link Comparator} for the keys.
      *
      * @param keyMapper     the {@link Function} to map a stream element as the target key
      * @param valueMapper   the {@link Function} to map a stream element as the target value
      * @param keyComparator the {@link Comparator} to use for the resulting
      *                      {@link NavigableMap}
      * @return a {@link NavigableMap} with the mapped keys and values
+     * @see #toNavigableMapFromSorted(Function, Function, Comparator, BinaryOperator)
      */
     public static <T, A, K, V,
-            M extends ConcurrentNavigableMap<K, V>> Collector<T, A, M> toConcurrentNavigableMap(
+            M extends NavigableMap<K, V>> Collector<T, A, M> toNavigableMapFromSorted(
             Function<? super T, ? extends K> keyMapper,
             Function<? super T, ? extends V> valueMapper,
             Comparator<? super K> keyComparator) {
-        return toConcurrentNavigableMap(keyMapper, valueMapper,
-                keyComparator, throwOnMerge());
+        return toNavigableMapFromSorted(keyMapper, valueMapper, keyComparator,
+                throwOnMerge());
     }
 
     /**
-     * Performs a concurrent mapping of stream elements to desired keys and values, given
-     * a {@link Comparator} for the keys and a {@link BinaryOperator} for merging values
-     * on identical keys.
+     * Maps stream elements, already sorted by their keys, to desired keys and values,
+     * given a {@link Comparator} for the keys and a {@link BinaryOperator} for merging
+     * values on identical keys.
+     * <p>
+     * Entries are only appended, after one comparison per element to verify the order,
+     * and the resulting {@link TreeMap} is built from them in linear time. Unlike
+     * {@link #toNavigableMap(Function, Function, Comparator, BinaryOperator)}, keys that
+     * are out of order are not sorted, but fail the collection.
      *
      * @param keyMapper     the {@link Function} to map a stream element as the target key
      * @param valueMapper   the {@link Function} to map a stream element as the target value
@@ -180,127 +278,2091 @@ public final class NavigableMapCollectors {
      *                      {@link NavigableMap}
      * @param mergeOperator the {@link BinaryOperator} to use for merging values
      * @return a {@link NavigableMap} with the mapped keys and values
+     * @throws IllegalStateException when collecting, if a key is out of order
      */
     @SuppressWarnings("unchecked")
     public static <T, A, K, V,
-            M extends ConcurrentNavigableMap<K, V>> Collector<T, A, M> toConcurrentNavigableMap(
+            M extends NavigableMap<K, V>> Collector<T, A, M> toNavigableMapFromSorted(
             Function<? super T, ? extends K> keyMapper,
             Function<? super T, ? extends V> valueMapper,
             Comparator<? super K> keyComparator,
             BinaryOperator<V> mergeOperator) {
-        return (Collector<T, A, M>) toConcurrentMap(keyMapper, valueMapper, mergeOperator,
-                () -> (M) new ConcurrentSkipListMap<K, List<V>>(keyComparator));
+        return (Collector<T, A, M>) Collector.of(
+                () -> new KeyValueBuffer<K, V>(keyComparator, mergeOperator, true),
+                (KeyValueBuffer<K, V> buffer, T t) -> buffer.add(keyMapper.apply(t),
+                        requireNonNull(valueMapper.apply(t))),
+                KeyValueBuffer::combine,
+                buffer -> new TreeMap<>(buffer.toNavigableMap()));
     }
 
     /**
-     * Groups stream elements by mapped keys, given natural ordering on the keys and the
-     * {@link List} of stream elements as values.
+     * Simple one-to-one mapping of stream elements to their keys into a read-only
+     * {@link NavigableMap}, given natural ordering on the keys.
      *
      * @param keyMapper the {@link Function} to map a stream element as the target key
-     * @return a {@link NavigableMap} with the mapped keys and the stream elements as
-     * values
+     * @return a read-only {@link NavigableMap} with the mapped keys and the stream
+     * elements as values
+     * @see #toImmutableNavigableMap(Function, Function, Comparator, BinaryOperator)
      */
-    public static <T extends Comparable<T>, A,
+    public static <T, A,
             K extends Comparable<K>,
-            M extends NavigableMap<K, List<T>>> Collector<T, A, M> groupAndSortBy(
+            M extends NavigableMap<K, T>> Collector<T, A, M> toImmutableNavigableMap(
             Function<? super T, ? extends K> keyMapper) {
-        return groupAndSortBy(keyMapper, identity());
+        return toImmutableNavigableMap(keyMapper, identity());
     }
 
     /**
-     * Groups stream elements by mapped keys, given natural ordering on the keys and the
-     * {@link List} of mapped values.
+     * Simple one-to-one mapping of stream elements to desired keys and values into a
+     * read-only {@link NavigableMap}, assuming natural ordering on the keys.
      *
      * @param keyMapper   the {@link Function} to map a stream element as the target key
      * @param valueMapper the {@link Function} to map a stream element as the target value
-     * @return a {@link NavigableMap} with the mapped keys and values
+     * @return a read-only {@link NavigableMap} with the mapped keys and values
+     * @see #toImmutableNavigableMap(Function, Function, Comparator, BinaryOperator)
+     */
+    public static <T, A,
+            K extends Comparable<K>, V,
+            M extends NavigableMap<K, V>> Collector<T, A, M> toImmutableNavigableMap(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper) {
+        return toImmutableNavigableMap(keyMapper, valueMapper, naturalOrder());
+    }
+
+    /**
+     * Simple one-to-one mapping of stream elements to desired keys and values into a
+     * read-only {@link NavigableMap}, given a {@link Comparator} for the keys.
+     *
+     * @param keyMapper     the {@link Function} to map a stream element as the target key
+     * @param valueMapper   the {@link Function} to map a stream element as the target value
+     * @param keyComparator the {@link Comparator} to use for the resulting
+     *                      {@link NavigableMap}
+     * @return a read-only {@link NavigableMap} with the mapped keys and values
+     * @see #toImmutableNavigableMap(Function, Function, Comparator, BinaryOperator)
+     */
+    public static <T, A, K, V,
+            M extends NavigableMap<K, V>> Collector<T, A, M> toImmutableNavigableMap(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            Comparator<? super K> keyComparator) {
+        return toImmutableNavigableMap(keyMapper, valueMapper, keyComparator,
+                throwOnMerge());
+    }
+
+    /**
+     * Maps stream elements to desired keys and values into a read-only
+     * {@link NavigableMap}, given a {@link Comparator} for the keys and a
+     * {@link BinaryOperator} for merging values on identical keys.
+     * <p>
+     * Keys and values are buffered into arrays and sorted once, instead of being
+     * inserted into a tree one element at a time. Input that is already sorted by key is
+     * detected with one comparison per element, and is not sorted again. The resulting
+     * {@link NavigableMap} is backed by those arrays, and performs lookups and sub-map
+     * views by binary search.
+     *
+     * @param keyMapper     the {@link Function} to map a stream element as the target key
+     * @param valueMapper   the {@link Function} to map a stream element as the target value
+     * @param keyComparator the {@link Comparator} to use for the resulting
+     *                      {@link NavigableMap}
+     * @param mergeOperator the {@link BinaryOperator} to use for merging values
+     * @return a read-only {@link NavigableMap} with the mapped keys and values
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, A, K, V,
+            M extends NavigableMap<K, V>> Collector<T, A, M> toImmutableNavigableMap(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            Comparator<? super K> keyComparator,
+            BinaryOperator<V> mergeOperator) {
+        return (Collector<T, A, M>) Collector.of(
+                () -> new KeyValueBuffer<K, V>(keyComparator, mergeOperator),
+                (KeyValueBuffer<K, V> buffer, T t) -> buffer.add(keyMapper.apply(t),
+                        requireNonNull(valueMapper.apply(t))),
+                KeyValueBuffer::combine,
+                KeyValueBuffer::toNavigableMap);
+    }
+
+    /**
+     * Maps stream elements to desired keys and values into a read-only
+     * {@link NavigableMap}, ordering the keys by the natural ordering of sort keys derived
+     * from them.
+     *
+     * @param keyMapper     the {@link Function} to map a stream element as the target key
+     * @param valueMapper   the {@link Function} to map a stream element as the target value
+     * @param sortKeyMapper the {@link Function} to derive the sort key of a key
+     * @return a read-only {@link NavigableMap} with the mapped keys and values
+     * @see #toNavigableMapBySortKey(Function, Function, Function, Comparator,
+     * BinaryOperator)
+     */
+    public static <T, A, K, S extends Comparable<S>, V,
+            M extends NavigableMap<K, V>> Collector<T, A, M> toNavigableMapBySortKey(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            Function<? super K, ? extends S> sortKeyMapper) {
+        return toNavigableMapBySortKey(keyMapper, valueMapper, sortKeyMapper,
+                naturalOrder());
+    }
+
+    /**
+     * Maps stream elements to desired keys and values into a read-only
+     * {@link NavigableMap}, ordering the keys by sort keys derived from them, given a
+     * {@link Comparator} for the sort keys.
+     *
+     * @param keyMapper         the {@link Function} to map a stream element as the target
+     *                          key
+     * @param valueMapper       the {@link Function} to map a stream element as the target
+     *                          value
+     * @param sortKeyMapper     the {@link Function} to derive the sort key of a key
+     * @param sortKeyComparator the {@link Comparator} to use for the sort keys
+     * @return a read-only {@link NavigableMap} with the mapped keys and values
+     * @see #toNavigableMapBySortKey(Function, Function, Function, Comparator,
+     * BinaryOperator)
+     */
+    public static <T, A, K, S, V,
+            M extends NavigableMap<K, V>> Collector<T, A, M> toNavigableMapBySortKey(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            Function<? super K, ? extends S> sortKeyMapper,
+            Comparator<? super S> sortKeyComparator) {
+        return toNavigableMapBySortKey(keyMapper, valueMapper, sortKeyMapper,
+                sortKeyComparator, throwOnMerge());
+    }
+
+    /**
+     * Maps stream elements to desired keys and values into a read-only
+     * {@link NavigableMap}, ordering the keys by sort keys derived from them, given a
+     * {@link Comparator} for the sort keys and a {@link BinaryOperator} for merging values
+     * on identical sort keys.
+     * <p>
+     * The sort key of each key is derived exactly once, and only sort keys are compared
+     * when sorting. This is cheaper than a key {@link Comparator} that derives what it
+     * compares on every comparison, such as one built with
+     * {@link Comparator#comparing(Function)}, especially for binary sort keys from
+     * {@link SortKeys}. The sort keys are kept alongside the entries, so that lookups only
+     * derive the sort key of the key to search for.
+     *
+     * @param keyMapper         the {@link Function} to map a stream element as the target
+     *                          key
+     * @param valueMapper       the {@link Function} to map a stream element as the target
+     *                          value
+     * @param sortKeyMapper     the {@link Function} to derive the sort key of a key
+     * @param sortKeyComparator the {@link Comparator} to use for the sort keys
+     * @param mergeOperator     the {@link BinaryOperator} to use for merging values
+     * @return a read-only {@link NavigableMap} with the mapped keys and values
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, A, K, S, V,
+            M extends NavigableMap<K, V>> Collector<T, A, M> toNavigableMapBySortKey(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            Function<? super K, ? extends S> sortKeyMapper,
+            Comparator<? super S> sortKeyComparator,
+            BinaryOperator<V> mergeOperator) {
+        return (Collector<T, A, M>) Collector.of(
+                () -> new KeyValueBuffer<S, Entry<K, V>>(sortKeyComparator,
+                        (a, b) -> new SimpleImmutableEntry<>(a.getKey(),
+                                mergeOperator.apply(a.getValue(), b.getValue()))),
+                (KeyValueBuffer<S, Entry<K, V>> buffer, T t) -> {
+                    K key = keyMapper.apply(t);
+                    buffer.add(sortKeyMapper.apply(key), new SimpleImmutableEntry<>(key,
+                            requireNonNull(valueMapper.apply(t))));
+                },
+                KeyValueBuffer::combine,
+                buffer -> SortKeyNavigableMap.of(buffer, sortKeyMapper, sortKeyComparator));
+    }
+
+    /**
+     * Simple one-to-one mapping of stream elements to their keys into a read-only
+     * {@link NavigableMap} built by radix sort, given natural ordering on {@link Long},
+     * {@link Integer}, {@link Double} or {@link String} keys.
+     *
+     * @param keyMapper the {@link Function} to map a stream element as the target key
+     * @return a read-only {@link NavigableMap} with the mapped keys and the stream
+     * elements as values
+     * @see #toRadixNavigableMap(Function, Function, Function, BinaryOperator)
      */
     public static <T, A,
             K extends Comparable<K>,
-            V extends Comparable<V>,
-            M extends NavigableMap<K, List<V>>> Collector<T, A, M> groupAndSortBy(
+            M extends NavigableMap<K, T>> Collector<T, A, M> toRadixNavigableMap(
+            Function<? super T, ? extends K> keyMapper) {
+        return toRadixNavigableMap(keyMapper, identity());
+    }
+
+    /**
+     * Simple one-to-one mapping of stream elements to desired keys and values into a
+     * read-only {@link NavigableMap} built by radix sort, given natural ordering on
+     * {@link Long}, {@link Integer}, {@link Double} or {@link String} keys.
+     *
+     * @param keyMapper   the {@link Function} to map a stream element as the target key
+     * @param valueMapper the {@link Function} to map a stream element as the target value
+     * @return a read-only {@link NavigableMap} with the mapped keys and values
+     * @see #toRadixNavigableMap(Function, Function, Function, BinaryOperator)
+     */
+    public static <T, A,
+            K extends Comparable<K>, V,
+            M extends NavigableMap<K, V>> Collector<T, A, M> toRadixNavigableMap(
             Function<? super T, ? extends K> keyMapper,
             Function<? super T, ? extends V> valueMapper) {
-        return groupAndSortBy(keyMapper, valueMapper, naturalOrder(), naturalOrder());
+        return toRadixNavigableMap(keyMapper, valueMapper, SortKeys::ofNatural);
     }
 
     /**
-     * Groups stream elements by mapped keys, given {@link Comparator} implementations for
-     * both keys and values.
+     * Simple one-to-one mapping of stream elements to desired keys and values into a
+     * read-only {@link NavigableMap} built by radix sort, given a key encoder.
      *
-     * @param keyMapper       the {@link Function} to map a stream element as the target key
-     * @param valueMapper     the {@link Function} to map a stream element as the target value
-     * @param keyComparator   the {@link Comparator} to use for the keys
-     * @param valueComparator the {@link Comparator} to use for the values
-     * @return a {@link NavigableMap} with the mapped keys and values
+     * @param keyMapper   the {@link Function} to map a stream element as the target key
+     * @param valueMapper the {@link Function} to map a stream element as the target value
+     * @param keyEncoder  the {@link Function} to encode a key as a binary sort key
+     * @return a read-only {@link NavigableMap} with the mapped keys and values
+     * @see #toRadixNavigableMap(Function, Function, Function, BinaryOperator)
+     */
+    public static <T, A, K, V,
+            M extends NavigableMap<K, V>> Collector<T, A, M> toRadixNavigableMap(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            Function<? super K, byte[]> keyEncoder) {
+        return toRadixNavigableMap(keyMapper, valueMapper, keyEncoder, throwOnMerge());
+    }
+
+    /**
+     * Maps stream elements to desired keys and values into a read-only
+     * {@link NavigableMap} built by radix sort, given a key encoder and a
+     * {@link BinaryOperator} for merging values on identical keys.
+     * <p>
+     * Keys are ordered by the unsigned bytes of their encoded sort keys, such as those
+     * from {@link SortKeys}, which are sorted by MSD radix sort in time linear to their
+     * total length. For primitive keys, the primitive collectors such as
+     * {@link #toLongNavigableMap(ToLongFunction, Function, BinaryOperator)} use LSD
+     * radix sort directly.
+     *
+     * @param keyMapper     the {@link Function} to map a stream element as the target key
+     * @param valueMapper   the {@link Function} to map a stream element as the target value
+     * @param keyEncoder    the {@link Function} to encode a key as a binary sort key
+     * @param mergeOperator the {@link BinaryOperator} to use for merging values
+     * @return a read-only {@link NavigableMap} with the mapped keys and values
+     * @see #toNavigableMapBySortKey(Function, Function, Function, Comparator,
+     * BinaryOperator)
+     */
+    public static <T, A, K, V,
+            M extends NavigableMap<K, V>> Collector<T, A, M> toRadixNavigableMap(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            Function<? super K, byte[]> keyEncoder,
+            BinaryOperator<V> mergeOperator) {
+        return toNavigableMapBySortKey(keyMapper, valueMapper, keyEncoder,
+                SortKeys.comparator(), mergeOperator);
+    }
+
+    /**
+     * Maps stream elements to desired keys and values into a read-only
+     * {@link NavigableMap} that may be spilled to disk, assuming natural ordering on the
+     * keys.
+     *
+     * @param keyMapper          the {@link Function} to map a stream element as the
+     *                           target key
+     * @param valueMapper        the {@link Function} to map a stream element as the
+     *                           target value
+     * @param keySerializer      the {@link Serializer} to use for the keys
+     * @param valueSerializer    the {@link Serializer} to use for the values
+     * @param maxBufferedEntries the maximum number of entries to buffer in memory, per
+     *                           partial result
+     * @return a read-only {@link NavigableMap} with the mapped keys and values
+     * @see #toNavigableMapSpilling(Function, Function, Comparator, BinaryOperator,
+     * Serializer, Serializer, int)
+     */
+    public static <T, A,
+            K extends Comparable<K>, V,
+            M extends NavigableMap<K, V>> Collector<T, A, M> toNavigableMapSpilling(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            Serializer<K> keySerializer,
+            Serializer<V> valueSerializer,
+            int maxBufferedEntries) {
+        return toNavigableMapSpilling(keyMapper, valueMapper, naturalOrder(),
+                throwOnMerge(), keySerializer, valueSerializer, maxBufferedEntries);
+    }
+
+    /**
+     * Maps stream elements to desired keys and values into a read-only
+     * {@link NavigableMap} that may be spilled to disk, given a {@link Comparator} for
+     * the keys and a {@link BinaryOperator} for merging values on identical keys.
+     * <p>
+     * At most {@code maxBufferedEntries} entries are buffered in memory per partial
+     * result. When full, they are sorted and written as a run to a temporary file. When
+     * finishing, the runs are merged into one file, which is memory-mapped, and only
+     * every {@value SpilledNavigableMap#BLOCK_SIZE}th key is kept in memory to search
+     * with. If nothing was spilled, the result is an in-memory
+     * {@link #toImmutableNavigableMap(Function, Function, Comparator, BinaryOperator)}
+     * instead.
+     * <p>
+     * Runs are deleted once merged, or as soon as mapping, merging or spilling an entry
+     * fails. The collection must therefore run to completion or to such a failure, as
+     * the runs of a stream that is abandoned otherwise, such as when an upstream
+     * operation fails, are left behind.
+     *
+     * @param keyMapper          the {@link Function} to map a stream element as the
+     *                           target key
+     * @param valueMapper        the {@link Function} to map a stream element as the
+     *                           target value
+     * @param keyComparator      the {@link Comparator} to use for the resulting
+     *                           {@link NavigableMap}
+     * @param mergeOperator      the {@link BinaryOperator} to use for merging values
+     * @param keySerializer      the {@link Serializer} to use for the keys
+     * @param valueSerializer    the {@link Serializer} to use for the values
+     * @param maxBufferedEntries the maximum number of entries to buffer in memory, per
+     *                           partial result
+     * @return a read-only {@link NavigableMap} with the mapped keys and values
+     * @throws IllegalArgumentException if {@code maxBufferedEntries} is not positive
      */
     @SuppressWarnings("unchecked")
     public static <T, A, K, V,
-            M extends NavigableMap<K, List<V>>> Collector<T, A, M> groupAndSortBy(
+            M extends NavigableMap<K, V>> Collector<T, A, M> toNavigableMapSpilling(
             Function<? super T, ? extends K> keyMapper,
             Function<? super T, ? extends V> valueMapper,
             Comparator<? super K> keyComparator,
-            Comparator<? super V> valueComparator) {
-        return (Collector<T, A, M>) groupingBy(keyMapper,
-                () -> (M) new TreeMap<K, List<V>>(keyComparator),
-                collectingAndThen(mapping(valueMapper, toList()),
-                        list -> list.stream().sorted(valueComparator)
-                                .collect(toList())));
+            BinaryOperator<V> mergeOperator,
+            Serializer<K> keySerializer,
+            Serializer<V> valueSerializer,
+            int maxBufferedEntries) {
+        SpillingBuffer.checkMaxBufferedEntries(maxBufferedEntries);
+        return (Collector<T, A, M>) Collector.of(
+                () -> new SpillingBuffer<K, V>(keyComparator, mergeOperator, keySerializer,
+                        valueSerializer, maxBufferedEntries),
+                (SpillingBuffer<K, V> buffer, T t) -> buffer.add(t, keyMapper,
+                        e -> requireNonNull(valueMapper.apply(e))),
+                SpillingBuffer::combine,
+                SpillingBuffer::toNavigableMap);
     }
 
     /**
-     * Concurrently groups stream elements by mapped keys, given natural ordering on the
-     * keys and the {@link List} of stream elements as values.
+     * Simple one-to-one concurrent mapping of stream elements to their keys, assuming
+     * natural ordering on the keys.
      *
      * @param keyMapper the {@link Function} to map a stream element as the target key
      * @return a {@link NavigableMap} with the mapped keys and the stream elements as
      * values
      */
-    public static <T extends Comparable<T>, A,
+    public static <T, A,
             K extends Comparable<K>,
-            M extends ConcurrentNavigableMap<K, List<T>>> Collector<T, A, M> groupAndSortByConcurrent(
+            M extends ConcurrentNavigableMap<K, T>> Collector<T, A, M> toConcurrentNavigableMap(
             Function<? super T, ? extends K> keyMapper) {
-        return groupAndSortByConcurrent(keyMapper, identity());
+        return toConcurrentNavigableMap(keyMapper, identity());
     }
 
     /**
-     * Concurrently groups stream elements by mapped keys, given natural ordering on the keys and the
-     * {@link List} of mapped values.
+     * Simple one-to-one concurrent mapping of stream elements to desired keys and values,
+     * given natural ordering on the keys.
      *
      * @param keyMapper   the {@link Function} to map a stream element as the target key
      * @param valueMapper the {@link Function} to map a stream element as the target value
      * @return a {@link NavigableMap} with the mapped keys and values
      */
     public static <T, A,
-            K extends Comparable<K>,
-            V extends Comparable<V>,
-            M extends ConcurrentNavigableMap<K, List<V>>> Collector<T, A, M> groupAndSortByConcurrent(
+            K extends Comparable<K>, V,
+            M extends ConcurrentNavigableMap<K, V>> Collector<T, A, M> toConcurrentNavigableMap(
             Function<? super T, ? extends K> keyMapper,
             Function<? super T, ? extends V> valueMapper) {
-        return groupAndSortByConcurrent(keyMapper, valueMapper,
-                naturalOrder(), naturalOrder());
+        return toConcurrentNavigableMap(keyMapper, valueMapper, naturalOrder());
     }
 
     /**
-     * Concurrently groups stream elements by mapped keys, given {@link Comparator}
-     * implementations for both keys and values.
+     * Simple one-to-one concurrent mapping of stream elements to desired keys and values,
+     * given a {@link Comparator} for the keys.
      *
-     * @param keyMapper       the {@link Function} to map a stream element as the target key
-     * @param valueMapper     the {@link Function} to map a stream element as the target value
-     * @param keyComparator   the {@link Comparator} to use for the keys
-     * @param valueComparator the {@link Comparator} to use for the values
+     * @param keyMapper     the {@link Function} to map a stream element as the target key
+     * @param valueMapper   the {@link Function} to map a stream element as the target value
+     * @param keyComparator the {@link Comparator} to use for the resulting
+     *                      {@link NavigableMap}
+     * @return a {@link NavigableMap} with the mapped keys and values
+     */
+    public static <T, A, K, V,
+            M extends ConcurrentNavigableMap<K, V>> Collector<T, A, M> toConcurrentNavigableMap(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            Comparator<? super K> keyComparator) {
+        return toConcurrentNavigableMap(keyMapper, valueMapper,
+                keyComparator, throwOnMerge());
+    }
+
+    /**
+     * Performs a concurrent mapping of stream elements to desired keys and values, given
+     * a {@link Comparator} for the keys and a {@link BinaryOperator} for merging values
+     * on identical keys.
+     *
+     * @param keyMapper     the {@link Function} to map a stream element as the target key
+     * @param valueMapper   the {@link Function} to map a stream element as the target value
+     * @param keyComparator the {@link Comparator} to use for the resulting
+     *                      {@link NavigableMap}
+     * @param mergeOperator the {@link BinaryOperator} to use for merging values
      * @return a {@link NavigableMap} with the mapped keys and values
      */
     @SuppressWarnings("unchecked")
     public static <T, A, K, V,
-            M extends ConcurrentNavigableMap<K, List<V>>> Collector<T, A, M> groupAndSortByConcurrent(
+            M extends ConcurrentNavigableMap<K, V>> Collector<T, A, M> toConcurrentNavigableMap(
             Function<? super T, ? extends K> keyMapper,
             Function<? super T, ? extends V> valueMapper,
             Comparator<? super K> keyComparator,
-            Comparator<? super V> valueComparator) {
-        return (Collector<T, A, M>) groupingByConcurrent(keyMapper,
-                () -> (M) new ConcurrentSkipListMap<K, List<V>>(keyComparator),
-                collectingAndThen(mapping(valueMapper, toList()),
-                        list -> list.stream().sorted(valueComparator).collect(toList())));
+            BinaryOperator<V> mergeOperator) {
+        return (Collector<T, A, M>) toConcurrentMap(keyMapper, valueMapper, mergeOperator,
+                () -> (M) new ConcurrentSkipListMap<K, List<V>>(keyComparator));
+    }
+
+    /**
+     * Simple one-to-one mapping of stream elements to their keys into a
+     * {@link ConcurrentNavigableMap}, without contention between worker threads,
+     * assuming natural ordering on the keys.
+     *
+     * @param keyMapper the {@link Function} to map a stream element as the target key
+     * @return a {@link ConcurrentNavigableMap} with the mapped keys and the stream
+     * elements as values
+     * @see #toConcurrentNavigableMapMerging(Function, Function, Comparator, BinaryOperator)
+     */
+    public static <T, A,
+            K extends Comparable<K>,
+            M extends ConcurrentNavigableMap<K, T>> Collector<T, A, M> toConcurrentNavigableMapMerging(
+            Function<? super T, ? extends K> keyMapper) {
+        return toConcurrentNavigableMapMerging(keyMapper, identity());
+    }
+
+    /**
+     * Simple one-to-one mapping of stream elements to desired keys and values into a
+     * {@link ConcurrentNavigableMap}, without contention between worker threads, given
+     * natural ordering on the keys.
+     *
+     * @param keyMapper   the {@link Function} to map a stream element as the target key
+     * @param valueMapper the {@link Function} to map a stream element as the target value
+     * @return a {@link ConcurrentNavigableMap} with the mapped keys and values
+     * @see #toConcurrentNavigableMapMerging(Function, Function, Comparator, BinaryOperator)
+     */
+    public static <T, A,
+            K extends Comparable<K>, V,
+            M extends ConcurrentNavigableMap<K, V>> Collector<T, A, M> toConcurrentNavigableMapMerging(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper) {
+        return toConcurrentNavigableMapMerging(keyMapper, valueMapper, naturalOrder());
+    }
+
+    /**
+     * Simple one-to-one mapping of stream elements to desired keys and values into a
+     * {@link ConcurrentNavigableMap}, without contention between worker threads, given
+     * a {@link Comparator} for the keys.
+     *
+     * @param keyMapper     the {@link Function} to map a stream element as the target key
+     * @param valueMapper   the {@link Function} to map a stream element as the target value
+     * @param keyComparator the {@link Comparator} to use for the resulting
+     *                      {@link NavigableMap}
+     * @return a {@link ConcurrentNavigableMap} with the mapped keys and values
+     * @see #toConcurrentNavigableMapMerging(Function, Function, Comparator, BinaryOperator)
+     */
+    public static <T, A, K, V,
+            M extends ConcurrentNavigableMap<K, V>> Collector<T, A, M> toConcurrentNavigableMapMerging(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            Comparator<? super K> keyComparator) {
+        return toConcurrentNavigableMapMerging(keyMapper, valueMapper,
+                keyComparator, throwOnMerge());
+    }
+
+    /**
+     * Maps stream elements to desired keys and values into a
+     * {@link ConcurrentNavigableMap}, given a {@link Comparator} for the keys and a
+     * {@link BinaryOperator} for merging values on identical keys.
+     * <p>
+     * Unlike {@link #toConcurrentNavigableMap(Function, Function, Comparator,
+     * BinaryOperator)}, worker threads do not share a map. Each builds its own unsorted
+     * run of entries, and the runs are sorted and k-way merged once when finishing, in
+     * parallel over ranges of keys. Values on identical keys are merged in encounter
+     * order.
+     *
+     * @param keyMapper     the {@link Function} to map a stream element as the target key
+     * @param valueMapper   the {@link Function} to map a stream element as the target value
+     * @param keyComparator the {@link Comparator} to use for the resulting
+     *                      {@link NavigableMap}
+     * @param mergeOperator the {@link BinaryOperator} to use for merging values
+     * @return a {@link ConcurrentNavigableMap} with the mapped keys and values
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, A, K, V,
+            M extends ConcurrentNavigableMap<K, V>> Collector<T, A, M> toConcurrentNavigableMapMerging(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            Comparator<? super K> keyComparator,
+            BinaryOperator<V> mergeOperator) {
+        return (Collector<T, A, M>) Collector.of(
+                () -> new SortedRuns<K, V>(keyComparator, mergeOperator),
+                (SortedRuns<K, V> runs, T t) -> runs.add(keyMapper.apply(t),
+                        requireNonNull(valueMapper.apply(t))),
+                SortedRuns::combine,
+                runs -> new ConcurrentSkipListMap<K, V>(
+                        runs.finish(identity()).toNavigableMap()));
+    }
+
+    /**
+     * Merges stream elements as deltas into an existing {@link NavigableMap}, given a
+     * {@link BinaryOperator} for merging a delta into the existing value of its key.
+     *
+     * @param target        the {@link NavigableMap} to merge into
+     * @param keyMapper     the {@link Function} to map a stream element as the target key
+     * @param valueMapper   the {@link Function} to map a stream element as the delta
+     * @param mergeOperator the {@link BinaryOperator} to use for merging values
+     * @return {@code target}, with the deltas merged
+     * @see #mergeIntoNavigableMap(NavigableMap, Function, Function, BinaryOperator,
+     * Predicate)
+     */
+    public static <T, A, K, V,
+            M extends NavigableMap<K, V>> Collector<T, A, M> mergeIntoNavigableMap(
+            M target,
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            BinaryOperator<V> mergeOperator) {
+        return mergeIntoNavigableMap(target, keyMapper, valueMapper, mergeOperator,
+                value -> false);
+    }
+
+    /**
+     * Merges stream elements as deltas into an existing {@link NavigableMap}, given a
+     * {@link BinaryOperator} for merging a delta into the existing value of its key, and
+     * a {@link Predicate} to remove keys by their merged values.
+     * <p>
+     * Deltas are buffered, with the deltas on identical keys merged in encounter order,
+     * and {@code target} is only modified when finishing, in sorted order of keys. This
+     * costs {@code O(d log n)} for {@code d} distinct keys in the deltas, instead of
+     * rebuilding the whole map. The merge operator is assumed to be associative, as
+     * deltas are merged with each other before being merged into {@code target}.
+     *
+     * @param target        the {@link NavigableMap} to merge into
+     * @param keyMapper     the {@link Function} to map a stream element as the target key
+     * @param valueMapper   the {@link Function} to map a stream element as the delta
+     * @param mergeOperator the {@link BinaryOperator} to use for merging values
+     * @param removal       the {@link Predicate} to remove a key if its merged value
+     *                      matches
+     * @return {@code target}, with the deltas merged
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, A, K, V,
+            M extends NavigableMap<K, V>> Collector<T, A, M> mergeIntoNavigableMap(
+            M target,
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            BinaryOperator<V> mergeOperator,
+            Predicate<? super V> removal) {
+        requireNonNull(target);
+        Comparator<? super K> keyComparator = keyComparator(target);
+        return (Collector<T, A, M>) Collector.of(
+                () -> new KeyValueBuffer<K, V>(keyComparator, mergeOperator),
+                (KeyValueBuffer<K, V> buffer, T t) -> buffer.add(keyMapper.apply(t),
+                        requireNonNull(valueMapper.apply(t))),
+                KeyValueBuffer::combine,
+                buffer -> {
+                    buffer.sort();
+                    for (int i = 0; i < buffer.size(); i++) {
+                        V delta = buffer.valueAt(i);
+                        target.compute(buffer.keyAt(i),
+                                (k, v) -> merge(v, delta, mergeOperator, removal));
+                    }
+                    return target;
+                });
+    }
+
+    /**
+     * Merges stream elements as deltas into an existing {@link ConcurrentNavigableMap},
+     * given a {@link BinaryOperator} for merging a delta into the existing value of its
+     * key.
+     *
+     * @param target        the {@link ConcurrentNavigableMap} to merge into
+     * @param keyMapper     the {@link Function} to map a stream element as the target key
+     * @param valueMapper   the {@link Function} to map a stream element as the delta
+     * @param mergeOperator the {@link BinaryOperator} to use for merging values
+     * @return {@code target}, with the deltas merged
+     * @see #mergeIntoConcurrentNavigableMap(ConcurrentNavigableMap, Function, Function,
+     * BinaryOperator, Predicate)
+     */
+    public static <T, A, K, V,
+            M extends ConcurrentNavigableMap<K, V>> Collector<T, A, M> mergeIntoConcurrentNavigableMap(
+            M target,
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            BinaryOperator<V> mergeOperator) {
+        return mergeIntoConcurrentNavigableMap(target, keyMapper, valueMapper,
+                mergeOperator, value -> false);
+    }
+
+    /**
+     * Merges stream elements as deltas into an existing {@link ConcurrentNavigableMap},
+     * given a {@link BinaryOperator} for merging a delta into the existing value of its
+     * key, and a {@link Predicate} to remove keys by their merged values.
+     * <p>
+     * This is a {@link Collector.Characteristics#CONCURRENT} collector, which merges
+     * every delta into {@code target} atomically as it is accumulated, so that readers of
+     * {@code target} see the deltas as they are merged. A key that is removed is added
+     * again by a later delta on it.
+     *
+     * @param target        the {@link ConcurrentNavigableMap} to merge into
+     * @param keyMapper     the {@link Function} to map a stream element as the target key
+     * @param valueMapper   the {@link Function} to map a stream element as the delta
+     * @param mergeOperator the {@link BinaryOperator} to use for merging values
+     * @param removal       the {@link Predicate} to remove a key if its merged value
+     *                      matches
+     * @return {@code target}, with the deltas merged
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, A, K, V,
+            M extends ConcurrentNavigableMap<K, V>> Collector<T, A, M> mergeIntoConcurrentNavigableMap(
+            M target,
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            BinaryOperator<V> mergeOperator,
+            Predicate<? super V> removal) {
+        requireNonNull(target);
+        return (Collector<T, A, M>) Collector.of(
+                () -> target,
+                (M map, T t) -> {
+                    V delta = requireNonNull(valueMapper.apply(t));
+                    map.compute(keyMapper.apply(t),
+                            (k, v) -> merge(v, delta, mergeOperator, removal));
+                },
+                (a, b) -> a,
+                Collector.Characteristics.CONCURRENT,
+                Collector.Characteristics.UNORDERED,
+                Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    /**
+     * Merges stream elements as deltas into a read-only {@link NavigableMap}, given a
+     * {@link BinaryOperator} for merging a delta into the existing value of its key.
+     *
+     * @param previous      the {@link NavigableMap} to merge into, which is not modified
+     * @param keyMapper     the {@link Function} to map a stream element as the target key
+     * @param valueMapper   the {@link Function} to map a stream element as the delta
+     * @param mergeOperator the {@link BinaryOperator} to use for merging values
+     * @return a new read-only {@link NavigableMap}, with the deltas merged
+     * @see #mergeIntoImmutableNavigableMap(NavigableMap, Function, Function,
+     * BinaryOperator, Predicate)
+     */
+    public static <T, A, K, V,
+            M extends NavigableMap<K, V>> Collector<T, A, M> mergeIntoImmutableNavigableMap(
+            NavigableMap<K, V> previous,
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            BinaryOperator<V> mergeOperator) {
+        return mergeIntoImmutableNavigableMap(previous, keyMapper, valueMapper,
+                mergeOperator, value -> false);
+    }
+
+    /**
+     * Merges stream elements as deltas into a read-only {@link NavigableMap}, given a
+     * {@link BinaryOperator} for merging a delta into the existing value of its key, and
+     * a {@link Predicate} to remove keys by their merged values.
+     * <p>
+     * The result is a new persistent {@link NavigableMap} over chunks of entries, and
+     * {@code previous} is left as it is, so that its readers stay consistent. When
+     * {@code previous} is itself a result of this method, only the chunks that the deltas
+     * fall into are copied, and all other chunks are shared. Other maps are copied into
+     * chunks once. The merge operator is assumed to be associative, as deltas are merged
+     * with each other before being merged into {@code previous}.
+     *
+     * @param previous      the {@link NavigableMap} to merge into, which is not modified
+     * @param keyMapper     the {@link Function} to map a stream element as the target key
+     * @param valueMapper   the {@link Function} to map a stream element as the delta
+     * @param mergeOperator the {@link BinaryOperator} to use for merging values
+     * @param removal       the {@link Predicate} to remove a key if its merged value
+     *                      matches
+     * @return a new read-only {@link NavigableMap}, with the deltas merged
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, A, K, V,
+            M extends NavigableMap<K, V>> Collector<T, A, M> mergeIntoImmutableNavigableMap(
+            NavigableMap<K, V> previous,
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            BinaryOperator<V> mergeOperator,
+            Predicate<? super V> removal) {
+        requireNonNull(previous);
+        Comparator<? super K> keyComparator = keyComparator(previous);
+        return (Collector<T, A, M>) Collector.of(
+                () -> new KeyValueBuffer<K, V>(keyComparator, mergeOperator),
+                (KeyValueBuffer<K, V> buffer, T t) -> buffer.add(keyMapper.apply(t),
+                        requireNonNull(valueMapper.apply(t))),
+                KeyValueBuffer::combine,
+                buffer -> ChunkedNavigableMap.merge(previous, buffer.sort(), keyComparator,
+                        mergeOperator, removal));
+    }
+
+    /**
+     * @param map the map
+     * @return the {@link Comparator} of the map, or natural ordering if it has none
+     */
+    @SuppressWarnings("unchecked")
+    private static <K> Comparator<? super K> keyComparator(NavigableMap<K, ?> map) {
+        return map.comparator() == null
+                ? (Comparator<? super K>) naturalOrder() : map.comparator();
+    }
+
+    /**
+     * @param value         the existing value, or {@code null} if there is none
+     * @param delta         the delta to merge
+     * @param mergeOperator the {@link BinaryOperator} to use for merging values
+     * @param removal       the {@link Predicate} to remove a key by its merged value
+     * @return the merged value, or {@code null} to remove it
+     */
+    private static <V> V merge(V value, V delta, BinaryOperator<V> mergeOperator,
+            Predicate<? super V> removal) {
+        V result = value == null ? delta : mergeOperator.apply(value, delta);
+        return removal.test(result) ? null : result;
+    }
+
+    /**
+     * Groups stream elements by mapped keys, given natural ordering on the keys and the
+     * {@link List} of stream elements as values.
+     *
+     * @param keyMapper the {@link Function} to map a stream element as the target key
+     * @return a {@link NavigableMap} with the mapped keys and the stream elements as
+     * values
+     */
+    public static <T extends Comparable<T>, A,
+            K extends Comparable<K>,
+            M extends NavigableMap<K, List<T>>> Collector<T, A, M> groupAndSortBy(
+            Function<? super T, ? extends K> keyMapper) {
+        return NavigableMapCollectors.<T, A, K, T, M>groupAndSortBy(keyMapper, identity());
+    }
+
+    /**
+     * Groups stream elements by mapped keys, given natural ordering on the keys and the
+     * {@link List} of mapped values.
+     *
+     * @param keyMapper   the {@link Function} to map a stream element as the target key
+     * @param valueMapper the {@link Function} to map a stream element as the target value
+     * @return a {@link NavigableMap} with the mapped keys and values
+     */
+    public static <T, A,
+            K extends Comparable<K>,
+            V extends Comparable<V>,
+            M extends NavigableMap<K, List<V>>> Collector<T, A, M> groupAndSortBy(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper) {
+        return groupAndSortBy(keyMapper, valueMapper, naturalOrder(), naturalOrder());
+    }
+
+    /**
+     * Groups stream elements by mapped keys, given {@link Comparator} implementations for
+     * both keys and values.
+     *
+     * @param keyMapper       the {@link Function} to map a stream element as the target key
+     * @param valueMapper     the {@link Function} to map a stream element as the target value
+     * @param keyComparator   the {@link Comparator} to use for the keys
+     * @param valueComparator the {@link Comparator} to use for the values
+     * @return a {@link NavigableMap} with the mapped keys and values
+     * @see #groupAndSortBy(Function, Function, Comparator, Comparator, GroupingOptions)
+     */
+    public static <T, A, K, V,
+            M extends NavigableMap<K, List<V>>> Collector<T, A, M> groupAndSortBy(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            Comparator<? super K> keyComparator,
+            Comparator<? super V> valueComparator) {
+        return groupAndSortBy(keyMapper, valueMapper, keyComparator, valueComparator,
+                GroupingOptions.defaults());
+    }
+
+    /**
+     * Groups stream elements by mapped keys, given {@link Comparator} implementations for
+     * both keys and values, and {@link GroupingOptions} for the {@link List} of values.
+     * <p>
+     * The values of each key are sorted in place, once, when finishing.
+     *
+     * @param keyMapper       the {@link Function} to map a stream element as the target key
+     * @param valueMapper     the {@link Function} to map a stream element as the target value
+     * @param keyComparator   the {@link Comparator} to use for the keys
+     * @param valueComparator the {@link Comparator} to use for the values
+     * @param options         the {@link GroupingOptions} to use for the values
+     * @return a {@link NavigableMap} with the mapped keys and values
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, A, K, V,
+            M extends NavigableMap<K, List<V>>> Collector<T, A, M> groupAndSortBy(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            Comparator<? super K> keyComparator,
+            Comparator<? super V> valueComparator,
+            GroupingOptions options) {
+        requireNonNull(options);
+        return (Collector<T, A, M>) groupingBy(keyMapper,
+                () -> (M) new TreeMap<K, List<V>>(keyComparator),
+                Collector.of(ValueList<V>::new,
+                        (ValueList<V> list, T t) -> list.add(valueMapper.apply(t)),
+                        ValueList::combine,
+                        list -> options.finish(list, valueComparator)));
+    }
+
+    /**
+     * Groups stream elements by mapped keys, given {@link Comparator} implementations for
+     * both keys and values, keeping only the first {@code limit} values of each key.
+     * <p>
+     * Each key only holds a bounded heap of values during accumulation, so that memory is
+     * proportional to the number of keys times {@code limit}. Identical values are kept
+     * in encounter order, as a stable sort would.
+     *
+     * @param keyMapper       the {@link Function} to map a stream element as the target key
+     * @param valueMapper     the {@link Function} to map a stream element as the target value
+     * @param keyComparator   the {@link Comparator} to use for the keys
+     * @param valueComparator the {@link Comparator} to use for the values
+     * @param limit           the maximum number of values per key
+     * @return a {@link NavigableMap} with the mapped keys and values
+     * @throws IllegalArgumentException if {@code limit} is not positive
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, A, K, V,
+            M extends NavigableMap<K, List<V>>> Collector<T, A, M> groupAndSortBy(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            Comparator<? super K> keyComparator,
+            Comparator<? super V> valueComparator,
+            int limit) {
+        BoundedValueHeap.checkLimit(limit);
+        return (Collector<T, A, M>) groupingBy(keyMapper,
+                () -> (M) new TreeMap<K, List<V>>(keyComparator),
+                Collector.of(() -> new BoundedValueHeap<V>(valueComparator, limit),
+                        (BoundedValueHeap<V> heap, T t) -> heap.add(valueMapper.apply(t)),
+                        BoundedValueHeap::combine,
+                        BoundedValueHeap::toSortedList));
+    }
+
+    /**
+     * Groups stream elements by mapped keys within {@link KeyBounds}, given natural
+     * ordering on the keys and the {@link List} of mapped values.
+     *
+     * @param keyMapper   the {@link Function} to map a stream element as the target key
+     * @param valueMapper the {@link Function} to map a stream element as the target value
+     * @param bounds      the {@link KeyBounds} of the keys to keep
+     * @return a {@link NavigableMap} with the mapped keys and values within bounds
+     * @see #groupAndSortBy(Function, Function, Comparator, Comparator, KeyBounds)
+     */
+    public static <T, A,
+            K extends Comparable<K>,
+            V extends Comparable<V>,
+            M extends NavigableMap<K, List<V>>> Collector<T, A, M> groupAndSortBy(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            KeyBounds<? super K> bounds) {
+        return groupAndSortBy(keyMapper, valueMapper, naturalOrder(), naturalOrder(),
+                bounds);
+    }
+
+    /**
+     * Groups stream elements by mapped keys within {@link KeyBounds}, given
+     * {@link Comparator} implementations for both keys and values.
+     * <p>
+     * Stream elements whose keys are out of range, or beyond the smallest or largest
+     * keys kept so far, are discarded before their values are mapped. When only the
+     * smallest or largest keys are kept, the values of a key that is evicted are
+     * discarded with it, so that memory is proportional to the keys that are kept.
+     *
+     * @param keyMapper       the {@link Function} to map a stream element as the target key
+     * @param valueMapper     the {@link Function} to map a stream element as the target value
+     * @param keyComparator   the {@link Comparator} to use for the keys
+     * @param valueComparator the {@link Comparator} to use for the values
+     * @param bounds          the {@link KeyBounds} of the keys to keep
+     * @return a {@link NavigableMap} with the mapped keys and values within bounds
+     * @throws IllegalArgumentException if the range of {@code bounds} ends before it
+     *                                  starts
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, A, K, V,
+            M extends NavigableMap<K, List<V>>> Collector<T, A, M> groupAndSortBy(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            Comparator<? super K> keyComparator,
+            Comparator<? super V> valueComparator,
+            KeyBounds<? super K> bounds) {
+        KeyBounds<K> keyBounds = KeyBounds.<K>narrow(bounds).check(keyComparator);
+        return (Collector<T, A, M>) Collector.of(
+                () -> new BoundedKeyMap<K, ValueList<V>>(keyComparator, keyBounds,
+                        ValueList::combine),
+                (BoundedKeyMap<K, ValueList<V>> map, T t) -> {
+                    K key = keyMapper.apply(t);
+                    if (keyBounds.contains(key, keyComparator) && map.admits(key)) {
+                        map.computeIfAbsent(key, k -> new ValueList<>())
+                                .add(valueMapper.apply(t));
+                    }
+                },
+                BoundedKeyMap::combine,
+                map -> (M) map.toNavigableMap(keyComparator,
+                        list -> GroupingOptions.defaults().finish(list, valueComparator)));
+    }
+
+    /**
+     * Groups stream elements by mapped keys, given natural ordering on the keys and a
+     * downstream {@link Collector} for the values.
+     *
+     * @param keyMapper  the {@link Function} to map a stream element as the target key
+     * @param downstream the {@link Collector} to use for the stream elements of each key
+     * @return a {@link NavigableMap} with the mapped keys and the downstream results
+     */
+    public static <T, A,
+            K extends Comparable<K>, D,
+            M extends NavigableMap<K, D>> Collector<T, A, M> groupAndSortBy(
+            Function<? super T, ? extends K> keyMapper,
+            Collector<? super T, ?, D> downstream) {
+        return groupAndSortBy(keyMapper, naturalOrder(), downstream);
+    }
+
+    /**
+     * Groups stream elements by mapped keys, given a {@link Comparator} for the keys and
+     * a downstream {@link Collector} for the values.
+     * <p>
+     * Unlike the {@link List}-based overloads, values are not materialized unless the
+     * downstream {@link Collector} does so.
+     *
+     * @param keyMapper     the {@link Function} to map a stream element as the target key
+     * @param keyComparator the {@link Comparator} to use for the keys
+     * @param downstream    the {@link Collector} to use for the stream elements of each key
+     * @return a {@link NavigableMap} with the mapped keys and the downstream results
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, A, K, D,
+            M extends NavigableMap<K, D>> Collector<T, A, M> groupAndSortBy(
+            Function<? super T, ? extends K> keyMapper,
+            Comparator<? super K> keyComparator,
+            Collector<? super T, ?, D> downstream) {
+        return (Collector<T, A, M>) groupingBy(keyMapper,
+                () -> (M) new TreeMap<K, D>(keyComparator), downstream);
+    }
+
+    /**
+     * Counts stream elements by mapped keys, given natural ordering on the keys.
+     *
+     * @param keyMapper the {@link Function} to map a stream element as the target key
+     * @return a {@link NavigableMap} with the mapped keys and their counts
+     */
+    public static <T, A,
+            K extends Comparable<K>,
+            M extends NavigableMap<K, Long>> Collector<T, A, M> groupAndCountBy(
+            Function<? super T, ? extends K> keyMapper) {
+        return groupAndCountBy(keyMapper, naturalOrder());
+    }
+
+    /**
+     * Counts stream elements by mapped keys, given a {@link Comparator} for the keys. The
+     * count of each key is kept as a primitive {@code long}.
+     *
+     * @param keyMapper     the {@link Function} to map a stream element as the target key
+     * @param keyComparator the {@link Comparator} to use for the keys
+     * @return a {@link NavigableMap} with the mapped keys and their counts
+     */
+    public static <T, A, K,
+            M extends NavigableMap<K, Long>> Collector<T, A, M> groupAndCountBy(
+            Function<? super T, ? extends K> keyMapper,
+            Comparator<? super K> keyComparator) {
+        return groupAndSortBy(keyMapper, keyComparator, summingLong(t -> 1L));
+    }
+
+    /**
+     * Sums mapped {@code long} values by mapped keys, given a {@link Comparator} for the
+     * keys. The sum of each key is kept as a primitive {@code long}.
+     *
+     * @param keyMapper     the {@link Function} to map a stream element as the target key
+     * @param keyComparator the {@link Comparator} to use for the keys
+     * @param valueMapper   the {@link ToLongFunction} to map a stream element as the value
+     * @return a {@link NavigableMap} with the mapped keys and their sums
+     */
+    public static <T, A, K,
+            M extends NavigableMap<K, Long>> Collector<T, A, M> groupAndSumLongBy(
+            Function<? super T, ? extends K> keyMapper,
+            Comparator<? super K> keyComparator,
+            ToLongFunction<? super T> valueMapper) {
+        return groupAndSortBy(keyMapper, keyComparator, summingLong(valueMapper));
+    }
+
+    /**
+     * Sums mapped {@code double} values by mapped keys, given a {@link Comparator} for
+     * the keys. The sum of each key is kept in primitive {@code double} fields.
+     *
+     * @param keyMapper     the {@link Function} to map a stream element as the target key
+     * @param keyComparator the {@link Comparator} to use for the keys
+     * @param valueMapper   the {@link ToDoubleFunction} to map a stream element as the
+     *                      value
+     * @return a {@link NavigableMap} with the mapped keys and their sums
+     */
+    public static <T, A, K,
+            M extends NavigableMap<K, Double>> Collector<T, A, M> groupAndSumDoubleBy(
+            Function<? super T, ? extends K> keyMapper,
+            Comparator<? super K> keyComparator,
+            ToDoubleFunction<? super T> valueMapper) {
+        return groupAndSortBy(keyMapper, keyComparator, summingDouble(valueMapper));
+    }
+
+    /**
+     * Summarizes mapped {@code long} values by mapped keys, given a {@link Comparator}
+     * for the keys.
+     *
+     * @param keyMapper     the {@link Function} to map a stream element as the target key
+     * @param keyComparator the {@link Comparator} to use for the keys
+     * @param valueMapper   the {@link ToLongFunction} to map a stream element as the value
+     * @return a {@link NavigableMap} with the mapped keys and their statistics
+     */
+    public static <T, A, K,
+            M extends NavigableMap<K, LongSummaryStatistics>> Collector<T, A, M> groupAndSummarizeLongBy(
+            Function<? super T, ? extends K> keyMapper,
+            Comparator<? super K> keyComparator,
+            ToLongFunction<? super T> valueMapper) {
+        return groupAndSortBy(keyMapper, keyComparator, summarizingLong(valueMapper));
+    }
+
+    /**
+     * Summarizes mapped {@code double} values by mapped keys, given a {@link Comparator}
+     * for the keys.
+     *
+     * @param keyMapper     the {@link Function} to map a stream element as the target key
+     * @param keyComparator the {@link Comparator} to use for the keys
+     * @param valueMapper   the {@link ToDoubleFunction} to map a stream element as the
+     *                      value
+     * @return a {@link NavigableMap} with the mapped keys and their statistics
+     */
+    public static <T, A, K,
+            M extends NavigableMap<K, DoubleSummaryStatistics>> Collector<T, A, M> groupAndSummarizeDoubleBy(
+            Function<? super T, ? extends K> keyMapper,
+            Comparator<? super K> keyComparator,
+            ToDoubleFunction<? super T> valueMapper) {
+        return groupAndSortBy(keyMapper, keyComparator, summarizingDouble(valueMapper));
+    }
+
+    /**
+     * Groups stream elements by mapped keys into a read-only {@link NavigableMap},
+     * ordering the keys by the natural ordering of sort keys derived from them, given a
+     * {@link Comparator} for the values.
+     *
+     * @param keyMapper       the {@link Function} to map a stream element as the target key
+     * @param valueMapper     the {@link Function} to map a stream element as the target
+     *                        value
+     * @param sortKeyMapper   the {@link Function} to derive the sort key of a key
+     * @param valueComparator the {@link Comparator} to use for the values
+     * @return a read-only {@link NavigableMap} with the mapped keys and values
+     * @see #groupAndSortBySortKey(Function, Function, Function, Comparator, Comparator)
+     */
+    public static <T, A, K, S extends Comparable<S>, V,
+            M extends NavigableMap<K, List<V>>> Collector<T, A, M> groupAndSortBySortKey(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            Function<? super K, ? extends S> sortKeyMapper,
+            Comparator<? super V> valueComparator) {
+        return groupAndSortBySortKey(keyMapper, valueMapper, sortKeyMapper, naturalOrder(),
+                valueComparator);
+    }
+
+    /**
+     * Groups stream elements by mapped keys into a read-only {@link NavigableMap},
+     * ordering the keys by sort keys derived from them, given {@link Comparator}
+     * implementations for both sort keys and values.
+     * <p>
+     * The sort key of each key is derived exactly once, and only sort keys are compared
+     * when sorting. Keys with identical sort keys are grouped together, under the first
+     * key encountered.
+     *
+     * @param keyMapper         the {@link Function} to map a stream element as the target
+     *                          key
+     * @param valueMapper       the {@link Function} to map a stream element as the target
+     *                          value
+     * @param sortKeyMapper     the {@link Function} to derive the sort key of a key
+     * @param sortKeyComparator the {@link Comparator} to use for the sort keys
+     * @param valueComparator   the {@link Comparator} to use for the values
+     * @return a read-only {@link NavigableMap} with the mapped keys and values
+     * @see #toNavigableMapBySortKey(Function, Function, Function, Comparator,
+     * BinaryOperator)
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, A, K, S, V,
+            M extends NavigableMap<K, List<V>>> Collector<T, A, M> groupAndSortBySortKey(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            Function<? super K, ? extends S> sortKeyMapper,
+            Comparator<? super S> sortKeyComparator,
+            Comparator<? super V> valueComparator) {
+        return (Collector<T, A, M>) Collector.of(
+                () -> new KeyValueBuffer<S, Entry<K, V>>(sortKeyComparator, null),
+                (KeyValueBuffer<S, Entry<K, V>> buffer, T t) -> {
+                    K key = keyMapper.apply(t);
+                    buffer.add(sortKeyMapper.apply(key),
+                            new SimpleImmutableEntry<>(key, valueMapper.apply(t)));
+                },
+                KeyValueBuffer::combine,
+                buffer -> (M) SortKeyNavigableMap.grouped(buffer, sortKeyMapper,
+                        sortKeyComparator, valueComparator, GroupingOptions.defaults()));
+    }
+
+    /**
+     * Groups stream elements by mapped keys into a read-only {@link NavigableMap} that
+     * may be spilled to disk, assuming natural ordering on both keys and values.
+     *
+     * @param keyMapper          the {@link Function} to map a stream element as the
+     *                           target key
+     * @param valueMapper        the {@link Function} to map a stream element as the
+     *                           target value
+     * @param keySerializer      the {@link Serializer} to use for the keys
+     * @param valueSerializer    the {@link Serializer} to use for the values
+     * @param maxBufferedEntries the maximum number of entries to buffer in memory, per
+     *                           partial result
+     * @return a read-only {@link NavigableMap} with the mapped keys and values
+     * @see #groupAndSortBySpilling(Function, Function, Comparator, Comparator, Serializer,
+     * Serializer, int)
+     */
+    public static <T, A,
+            K extends Comparable<K>, V extends Comparable<V>,
+            M extends NavigableMap<K, List<V>>> Collector<T, A, M> groupAndSortBySpilling(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            Serializer<K> keySerializer,
+            Serializer<V> valueSerializer,
+            int maxBufferedEntries) {
+        return groupAndSortBySpilling(keyMapper, valueMapper, naturalOrder(),
+                naturalOrder(), keySerializer, valueSerializer, maxBufferedEntries);
+    }
+
+    /**
+     * Groups stream elements by mapped keys into a read-only {@link NavigableMap} that
+     * may be spilled to disk, given {@link Comparator} implementations for both keys and
+     * values.
+     * <p>
+     * Entries are buffered and spilled as with
+     * {@link #toNavigableMapSpilling(Function, Function, Comparator, BinaryOperator,
+     * Serializer, Serializer, int)}, but every value is kept. The values of a key are
+     * only brought together when finishing, and must fit in memory. The {@link List} of
+     * values per key is unmodifiable.
+     *
+     * @param keyMapper          the {@link Function} to map a stream element as the
+     *                           target key
+     * @param valueMapper        the {@link Function} to map a stream element as the
+     *                           target value
+     * @param keyComparator      the {@link Comparator} to use for the resulting
+     *                           {@link NavigableMap}
+     * @param valueComparator    the {@link Comparator} to use for the values
+     * @param keySerializer      the {@link Serializer} to use for the keys
+     * @param valueSerializer    the {@link Serializer} to use for the values
+     * @param maxBufferedEntries the maximum number of entries to buffer in memory, per
+     *                           partial result
+     * @return a read-only {@link NavigableMap} with the mapped keys and values
+     * @throws IllegalArgumentException if {@code maxBufferedEntries} is not positive
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, A, K, V,
+            M extends NavigableMap<K, List<V>>> Collector<T, A, M> groupAndSortBySpilling(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            Comparator<? super K> keyComparator,
+            Comparator<? super V> valueComparator,
+            Serializer<K> keySerializer,
+            Serializer<V> valueSerializer,
+            int maxBufferedEntries) {
+        SpillingBuffer.checkMaxBufferedEntries(maxBufferedEntries);
+        return (Collector<T, A, M>) Collector.of(
+                () -> new SpillingBuffer<K, V>(keyComparator, null, keySerializer,
+                        valueSerializer, maxBufferedEntries),
+                (SpillingBuffer<K, V> buffer, T t) -> buffer.add(t, keyMapper,
+                        valueMapper),
+                SpillingBuffer::combine,
+                buffer -> (M) buffer.group(valueComparator));
+    }
+
+    /**
+     * Groups stream elements by mapped keys, and then by mapped sub-keys, given natural
+     * ordering on the keys, sub-keys and values.
+     *
+     * @param keyMapper    the {@link Function} to map a stream element as the target key
+     * @param subKeyMapper the {@link Function} to map a stream element as the target
+     *                     sub-key
+     * @param valueMapper  the {@link Function} to map a stream element as the target value
+     * @return a read-only {@link NavigableMap} with the mapped keys, and read-only
+     * {@link NavigableMap} instances with the mapped sub-keys and values
+     * @see #groupAndSortBy(Function, Comparator, Function, Comparator, Function,
+     * Comparator)
+     */
+    public static <T, A,
+            K1 extends Comparable<K1>, K2 extends Comparable<K2>, V extends Comparable<V>,
+            M extends NavigableMap<K1, NavigableMap<K2, List<V>>>> Collector<T, A, M> groupAndSortBy(
+            Function<? super T, ? extends K1> keyMapper,
+            Function<? super T, ? extends K2> subKeyMapper,
+            Function<? super T, ? extends V> valueMapper) {
+        return groupAndSortBy(keyMapper, naturalOrder(), subKeyMapper, naturalOrder(),
+                valueMapper, naturalOrder());
+    }
+
+    /**
+     * Groups stream elements by mapped keys, and then by mapped sub-keys, given
+     * {@link Comparator} implementations for the keys, sub-keys and values.
+     * <p>
+     * Unlike nesting {@link #groupAndSortBy(Function, Function, Comparator, Comparator)}
+     * within {@link #groupAndSortBy(Function, Comparator, Collector)}, the entries of
+     * each key are buffered in one pass, without a {@link TreeMap} or {@link List} per
+     * sub-key. They are sorted by their sub-keys once, when finishing, into a read-only
+     * {@link NavigableMap}.
+     *
+     * @param keyMapper        the {@link Function} to map a stream element as the target
+     *                         key
+     * @param keyComparator    the {@link Comparator} to use for the keys
+     * @param subKeyMapper     the {@link Function} to map a stream element as the target
+     *                         sub-key
+     * @param subKeyComparator the {@link Comparator} to use for the sub-keys
+     * @param valueMapper      the {@link Function} to map a stream element as the target
+     *                         value
+     * @param valueComparator  the {@link Comparator} to use for the values
+     * @return a {@link NavigableMap} with the mapped keys, and read-only
+     * {@link NavigableMap} instances with the mapped sub-keys and values
+     */
+    public static <T, A, K1, K2, V,
+            M extends NavigableMap<K1, NavigableMap<K2, List<V>>>> Collector<T, A, M> groupAndSortBy(
+            Function<? super T, ? extends K1> keyMapper,
+            Comparator<? super K1> keyComparator,
+            Function<? super T, ? extends K2> subKeyMapper,
+            Comparator<? super K2> subKeyComparator,
+            Function<? super T, ? extends V> valueMapper,
+            Comparator<? super V> valueComparator) {
+        return groupAndSortBy(keyMapper, keyComparator,
+                groupingBySubKey(subKeyMapper, subKeyComparator, valueMapper,
+                        valueComparator));
+    }
+
+    /**
+     * @param subKeyMapper     the {@link Function} to map a stream element as the target
+     *                         sub-key
+     * @param subKeyComparator the {@link Comparator} to use for the sub-keys
+     * @param valueMapper      the {@link Function} to map a stream element as the target
+     *                         value
+     * @param valueComparator  the {@link Comparator} to use for the values
+     * @return a downstream {@link Collector} buffering the entries of a key, and grouping
+     * them by their sub-keys when finishing
+     */
+    private static <T, K2, V> Collector<T, ?, NavigableMap<K2, List<V>>> groupingBySubKey(
+            Function<? super T, ? extends K2> subKeyMapper,
+            Comparator<? super K2> subKeyComparator,
+            Function<? super T, ? extends V> valueMapper,
+            Comparator<? super V> valueComparator) {
+        return Collector.of(() -> new KeyValueBuffer<K2, V>(subKeyComparator, null),
+                (buffer, t) -> buffer.add(subKeyMapper.apply(t), valueMapper.apply(t)),
+                KeyValueBuffer::combine,
+                buffer -> buffer.group(valueComparator, GroupingOptions.defaults())
+                        .toNavigableMap());
+    }
+
+    /**
+     * Concurrently groups stream elements by mapped keys, given natural ordering on the
+     * keys and the {@link List} of stream elements as values.
+     *
+     * @param keyMapper the {@link Function} to map a stream element as the target key
+     * @return a {@link NavigableMap} with the mapped keys and the stream elements as
+     * values
+     */
+    public static <T extends Comparable<T>, A,
+            K extends Comparable<K>,
+            M extends ConcurrentNavigableMap<K, List<T>>> Collector<T, A, M> groupAndSortByConcurrent(
+            Function<? super T, ? extends K> keyMapper) {
+        return NavigableMapCollectors.<T, A, K, T, M>groupAndSortByConcurrent(keyMapper,
+                identity());
+    }
+
+    /**
+     * Concurrently groups stream elements by mapped keys, given natural ordering on the keys and the
+     * {@link List} of mapped values.
+     *
+     * @param keyMapper   the {@link Function} to map a stream element as the target key
+     * @param valueMapper the {@link Function} to map a stream element as the target value
+     * @return a {@link NavigableMap} with the mapped keys and values
+     */
+    public static <T, A,
+            K extends Comparable<K>,
+            V extends Comparable<V>,
+            M extends ConcurrentNavigableMap<K, List<V>>> Collector<T, A, M> groupAndSortByConcurrent(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper) {
+        return groupAndSortByConcurrent(keyMapper, valueMapper,
+                naturalOrder(), naturalOrder());
+    }
+
+    /**
+     * Concurrently groups stream elements by mapped keys, given {@link Comparator}
+     * implementations for both keys and values.
+     *
+     * @param keyMapper       the {@link Function} to map a stream element as the target key
+     * @param valueMapper     the {@link Function} to map a stream element as the target value
+     * @param keyComparator   the {@link Comparator} to use for the keys
+     * @param valueComparator the {@link Comparator} to use for the values
+     * @return a {@link NavigableMap} with the mapped keys and values
+     * @see #groupAndSortByConcurrent(Function, Function, Comparator, Comparator,
+     * GroupingOptions)
+     */
+    public static <T, A, K, V,
+            M extends ConcurrentNavigableMap<K, List<V>>> Collector<T, A, M> groupAndSortByConcurrent(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            Comparator<? super K> keyComparator,
+            Comparator<? super V> valueComparator) {
+        return groupAndSortByConcurrent(keyMapper, valueMapper, keyComparator,
+                valueComparator, GroupingOptions.defaults());
+    }
+
+    /**
+     * Concurrently groups stream elements by mapped keys, given {@link Comparator}
+     * implementations for both keys and values, and {@link GroupingOptions} for the
+     * {@link List} of values.
+     * <p>
+     * Values are accumulated into lazily striped buffers per key, so that worker threads
+     * adding to the same key do not serialize on a single lock. The stripes are only
+     * concatenated and sorted in place once, when finishing.
+     *
+     * @param keyMapper       the {@link Function} to map a stream element as the target key
+     * @param valueMapper     the {@link Function} to map a stream element as the target value
+     * @param keyComparator   the {@link Comparator} to use for the keys
+     * @param valueComparator the {@link Comparator} to use for the values
+     * @param options         the {@link GroupingOptions} to use for the values
+     * @return a {@link NavigableMap} with the mapped keys and values
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, A, K, V,
+            M extends ConcurrentNavigableMap<K, List<V>>> Collector<T, A, M> groupAndSortByConcurrent(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            Comparator<? super K> keyComparator,
+            Comparator<? super V> valueComparator,
+            GroupingOptions options) {
+        requireNonNull(options);
+        return (Collector<T, A, M>) groupingByConcurrent(keyMapper,
+                () -> (M) new ConcurrentSkipListMap<K, List<V>>(keyComparator),
+                Collector.of(StripedValueBuffer<V>::new,
+                        (StripedValueBuffer<V> buffer, T t) -> buffer.add(valueMapper.apply(t)),
+                        StripedValueBuffer::combine,
+                        buffer -> options.finish(buffer.toValueList(), valueComparator),
+                        Collector.Characteristics.CONCURRENT,
+                        Collector.Characteristics.UNORDERED));
+    }
+
+    /**
+     * Concurrently groups stream elements by mapped keys, given {@link Comparator}
+     * implementations for both keys and values, keeping only the first {@code limit}
+     * values of each key.
+     *
+     * @param keyMapper       the {@link Function} to map a stream element as the target key
+     * @param valueMapper     the {@link Function} to map a stream element as the target value
+     * @param keyComparator   the {@link Comparator} to use for the keys
+     * @param valueComparator the {@link Comparator} to use for the values
+     * @param limit           the maximum number of values per key
+     * @return a {@link NavigableMap} with the mapped keys and values
+     * @throws IllegalArgumentException if {@code limit} is not positive
+     * @see #groupAndSortBy(Function, Function, Comparator, Comparator, int)
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, A, K, V,
+            M extends ConcurrentNavigableMap<K, List<V>>> Collector<T, A, M> groupAndSortByConcurrent(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            Comparator<? super K> keyComparator,
+            Comparator<? super V> valueComparator,
+            int limit) {
+        BoundedValueHeap.checkLimit(limit);
+        return (Collector<T, A, M>) groupingByConcurrent(keyMapper,
+                () -> (M) new ConcurrentSkipListMap<K, List<V>>(keyComparator),
+                Collector.of(() -> new BoundedValueHeap<V>(valueComparator, limit),
+                        (BoundedValueHeap<V> heap, T t) -> heap.add(valueMapper.apply(t)),
+                        BoundedValueHeap::combine,
+                        BoundedValueHeap::toSortedList));
+    }
+
+    /**
+     * Concurrently groups stream elements by mapped keys, given natural ordering on the
+     * keys and a downstream {@link Collector} for the values.
+     *
+     * @param keyMapper  the {@link Function} to map a stream element as the target key
+     * @param downstream the {@link Collector} to use for the stream elements of each key
+     * @return a {@link ConcurrentNavigableMap} with the mapped keys and the downstream
+     * results
+     */
+    public static <T, A,
+            K extends Comparable<K>, D,
+            M extends ConcurrentNavigableMap<K, D>> Collector<T, A, M> groupAndSortByConcurrent(
+            Function<? super T, ? extends K> keyMapper,
+            Collector<? super T, ?, D> downstream) {
+        return groupAndSortByConcurrent(keyMapper, naturalOrder(), downstream);
+    }
+
+    /**
+     * Concurrently groups stream elements by mapped keys, given a {@link Comparator} for
+     * the keys and a downstream {@link Collector} for the values.
+     * <p>
+     * If the downstream {@link Collector} is not
+     * {@link Collector.Characteristics#CONCURRENT}, accumulation into each key is
+     * synchronized.
+     *
+     * @param keyMapper     the {@link Function} to map a stream element as the target key
+     * @param keyComparator the {@link Comparator} to use for the keys
+     * @param downstream    the {@link Collector} to use for the stream elements of each key
+     * @return a {@link ConcurrentNavigableMap} with the mapped keys and the downstream
+     * results
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, A, K, D,
+            M extends ConcurrentNavigableMap<K, D>> Collector<T, A, M> groupAndSortByConcurrent(
+            Function<? super T, ? extends K> keyMapper,
+            Comparator<? super K> keyComparator,
+            Collector<? super T, ?, D> downstream) {
+        return (Collector<T, A, M>) groupingByConcurrent(keyMapper,
+                () -> (M) new ConcurrentSkipListMap<K, D>(keyComparator), downstream);
+    }
+
+    /**
+     * Concurrently counts stream elements by mapped keys, given natural ordering on the
+     * keys.
+     *
+     * @param keyMapper the {@link Function} to map a stream element as the target key
+     * @return a {@link ConcurrentNavigableMap} with the mapped keys and their counts
+     */
+    public static <T, A,
+            K extends Comparable<K>,
+            M extends ConcurrentNavigableMap<K, Long>> Collector<T, A, M> groupAndCountByConcurrent(
+            Function<? super T, ? extends K> keyMapper) {
+        return groupAndCountByConcurrent(keyMapper, naturalOrder());
+    }
+
+    /**
+     * Concurrently counts stream elements by mapped keys, given a {@link Comparator} for
+     * the keys. The count of each key is kept in a {@link LongAdder}, so that no lock is
+     * taken per element.
+     *
+     * @param keyMapper     the {@link Function} to map a stream element as the target key
+     * @param keyComparator the {@link Comparator} to use for the keys
+     * @return a {@link ConcurrentNavigableMap} with the mapped keys and their counts
+     */
+    public static <T, A, K,
+            M extends ConcurrentNavigableMap<K, Long>> Collector<T, A, M> groupAndCountByConcurrent(
+            Function<? super T, ? extends K> keyMapper,
+            Comparator<? super K> keyComparator) {
+        return groupAndSumLongByConcurrent(keyMapper, keyComparator, t -> 1L);
+    }
+
+    /**
+     * Concurrently sums mapped {@code long} values by mapped keys, given a
+     * {@link Comparator} for the keys. The sum of each key is kept in a
+     * {@link LongAdder}, so that no lock is taken per element.
+     *
+     * @param keyMapper     the {@link Function} to map a stream element as the target key
+     * @param keyComparator the {@link Comparator} to use for the keys
+     * @param valueMapper   the {@link ToLongFunction} to map a stream element as the value
+     * @return a {@link ConcurrentNavigableMap} with the mapped keys and their sums
+     */
+    public static <T, A, K,
+            M extends ConcurrentNavigableMap<K, Long>> Collector<T, A, M> groupAndSumLongByConcurrent(
+            Function<? super T, ? extends K> keyMapper,
+            Comparator<? super K> keyComparator,
+            ToLongFunction<? super T> valueMapper) {
+        return groupAndSortByConcurrent(keyMapper, keyComparator,
+                Collector.of(LongAdder::new,
+                        (LongAdder adder, T t) -> adder.add(valueMapper.applyAsLong(t)),
+                        (left, right) -> {
+                            left.add(right.sum());
+                            return left;
+                        },
+                        LongAdder::sum,
+                        Collector.Characteristics.CONCURRENT,
+                        Collector.Characteristics.UNORDERED));
+    }
+
+    /**
+     * Concurrently sums mapped {@code double} values by mapped keys, given a
+     * {@link Comparator} for the keys. The sum of each key is kept in a
+     * {@link DoubleAdder}, so that no lock is taken per element.
+     *
+     * @param keyMapper     the {@link Function} to map a stream element as the target key
+     * @param keyComparator the {@link Comparator} to use for the keys
+     * @param valueMapper   the {@link ToDoubleFunction} to map a stream element as the
+     *                      value
+     * @return a {@link ConcurrentNavigableMap} with the mapped keys and their sums
+     */
+    public static <T, A, K,
+            M extends ConcurrentNavigableMap<K, Double>> Collector<T, A, M> groupAndSumDoubleByConcurrent(
+            Function<? super T, ? extends K> keyMapper,
+            Comparator<? super K> keyComparator,
+            ToDoubleFunction<? super T> valueMapper) {
+        return groupAndSortByConcurrent(keyMapper, keyComparator,
+                Collector.of(DoubleAdder::new,
+                        (DoubleAdder adder, T t) -> adder.add(valueMapper.applyAsDouble(t)),
+                        (left, right) -> {
+                            left.add(right.sum());
+                            return left;
+                        },
+                        DoubleAdder::sum,
+                        Collector.Characteristics.CONCURRENT,
+                        Collector.Characteristics.UNORDERED));
+    }
+
+    /**
+     * Concurrently summarizes mapped {@code long} values by mapped keys, given a
+     * {@link Comparator} for the keys.
+     *
+     * @param keyMapper     the {@link Function} to map a stream element as the target key
+     * @param keyComparator the {@link Comparator} to use for the keys
+     * @param valueMapper   the {@link ToLongFunction} to map a stream element as the value
+     * @return a {@link ConcurrentNavigableMap} with the mapped keys and their statistics
+     */
+    public static <T, A, K,
+            M extends ConcurrentNavigableMap<K, LongSummaryStatistics>> Collector<T, A, M> groupAndSummarizeLongByConcurrent(
+            Function<? super T, ? extends K> keyMapper,
+            Comparator<? super K> keyComparator,
+            ToLongFunction<? super T> valueMapper) {
+        return groupAndSortByConcurrent(keyMapper, keyComparator,
+                summarizingLong(valueMapper));
+    }
+
+    /**
+     * Concurrently summarizes mapped {@code double} values by mapped keys, given a
+     * {@link Comparator} for the keys.
+     *
+     * @param keyMapper     the {@link Function} to map a stream element as the target key
+     * @param keyComparator the {@link Comparator} to use for the keys
+     * @param valueMapper   the {@link ToDoubleFunction} to map a stream element as the
+     *                      value
+     * @return a {@link ConcurrentNavigableMap} with the mapped keys and their statistics
+     */
+    public static <T, A, K,
+            M extends ConcurrentNavigableMap<K, DoubleSummaryStatistics>> Collector<T, A, M> groupAndSummarizeDoubleByConcurrent(
+            Function<? super T, ? extends K> keyMapper,
+            Comparator<? super K> keyComparator,
+            ToDoubleFunction<? super T> valueMapper) {
+        return groupAndSortByConcurrent(keyMapper, keyComparator,
+                summarizingDouble(valueMapper));
+    }
+
+    /**
+     * Concurrently groups stream elements by mapped keys, without contention between
+     * worker threads, given natural ordering on the keys and the {@link List} of stream
+     * elements as values.
+     *
+     * @param keyMapper the {@link Function} to map a stream element as the target key
+     * @return a {@link ConcurrentNavigableMap} with the mapped keys and the stream
+     * elements as values
+     * @see #groupAndSortByConcurrentMerging(Function, Function, Comparator, Comparator)
+     */
+    public static <T extends Comparable<T>, A,
+            K extends Comparable<K>,
+            M extends ConcurrentNavigableMap<K, List<T>>> Collector<T, A, M> groupAndSortByConcurrentMerging(
+            Function<? super T, ? extends K> keyMapper) {
+        return NavigableMapCollectors.<T, A, K, T, M>groupAndSortByConcurrentMerging(
+                keyMapper, identity());
+    }
+
+    /**
+     * Concurrently groups stream elements by mapped keys, without contention between
+     * worker threads, given natural ordering on the keys and the {@link List} of mapped
+     * values.
+     *
+     * @param keyMapper   the {@link Function} to map a stream element as the target key
+     * @param valueMapper the {@link Function} to map a stream element as the target value
+     * @return a {@link ConcurrentNavigableMap} with the mapped keys and values
+     * @see #groupAndSortByConcurrentMerging(Function, Function, Comparator, Comparator)
+     */
+    public static <T, A,
+            K extends Comparable<K>,
+            V extends Comparable<V>,
+            M extends ConcurrentNavigableMap<K, List<V>>> Collector<T, A, M> groupAndSortByConcurrentMerging(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper) {
+        return groupAndSortByConcurrentMerging(keyMapper, valueMapper,
+                naturalOrder(), naturalOrder());
+    }
+
+    /**
+     * Concurrently groups stream elements by mapped keys, given {@link Comparator}
+     * implementations for both keys and values.
+     * <p>
+     * Unlike {@link #groupAndSortByConcurrent(Function, Function, Comparator,
+     * Comparator)}, worker threads do not share a map. Each builds its own unsorted run
+     * of entries, and the runs are sorted and k-way merged once when finishing, in
+     * parallel over ranges of keys.
+     *
+     * @param keyMapper       the {@link Function} to map a stream element as the target key
+     * @param valueMapper     the {@link Function} to map a stream element as the target value
+     * @param keyComparator   the {@link Comparator} to use for the keys
+     * @param valueComparator the {@link Comparator} to use for the values
+     * @return a {@link ConcurrentNavigableMap} with the mapped keys and values
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, A, K, V,
+            M extends ConcurrentNavigableMap<K, List<V>>> Collector<T, A, M> groupAndSortByConcurrentMerging(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            Comparator<? super K> keyComparator,
+            Comparator<? super V> valueComparator) {
+        return (Collector<T, A, M>) Collector.of(
+                () -> new SortedRuns<K, V>(keyComparator, null),
+                (SortedRuns<K, V> runs, T t) -> runs.add(keyMapper.apply(t),
+                        valueMapper.apply(t)),
+                SortedRuns::combine,
+                runs -> (M) new ConcurrentSkipListMap<K, List<V>>(runs.<List<V>>finish(
+                        run -> run.group(valueComparator, GroupingOptions.defaults())).toNavigableMap()));
+    }
+
+    /**
+     * Concurrently groups stream elements by mapped keys, and then by mapped sub-keys,
+     * given natural ordering on the keys, sub-keys and values.
+     *
+     * @param keyMapper    the {@link Function} to map a stream element as the target key
+     * @param subKeyMapper the {@link Function} to map a stream element as the target
+     *                     sub-key
+     * @param valueMapper  the {@link Function} to map a stream element as the target value
+     * @return a {@link ConcurrentNavigableMap} with the mapped keys, and read-only
+     * {@link NavigableMap} instances with the mapped sub-keys and values
+     * @see #groupAndSortByConcurrent(Function, Comparator, Function, Comparator, Function,
+     * Comparator)
+     */
+    public static <T, A,
+            K1 extends Comparable<K1>, K2 extends Comparable<K2>, V extends Comparable<V>,
+            M extends ConcurrentNavigableMap<K1, NavigableMap<K2, List<V>>>> Collector<T, A, M> groupAndSortByConcurrent(
+            Function<? super T, ? extends K1> keyMapper,
+            Function<? super T, ? extends K2> subKeyMapper,
+            Function<? super T, ? extends V> valueMapper) {
+        return groupAndSortByConcurrent(keyMapper, naturalOrder(), subKeyMapper,
+                naturalOrder(), valueMapper, naturalOrder());
+    }
+
+    /**
+     * Concurrently groups stream elements by mapped keys, and then by mapped sub-keys,
+     * given {@link Comparator} implementations for the keys, sub-keys and values.
+     * <p>
+     * The entries of each key are accumulated into lazily striped buffers, as with
+     * {@link #groupAndSortByConcurrent(Function, Function, Comparator, Comparator,
+     * GroupingOptions)}, so that worker threads adding to the same key do not serialize on
+     * a single lock. The stripes are only sorted, merged and grouped by sub-key once, when
+     * finishing.
+     *
+     * @param keyMapper        the {@link Function} to map a stream element as the target
+     *                         key
+     * @param keyComparator    the {@link Comparator} to use for the keys
+     * @param subKeyMapper     the {@link Function} to map a stream element as the target
+     *                         sub-key
+     * @param subKeyComparator the {@link Comparator} to use for the sub-keys
+     * @param valueMapper      the {@link Function} to map a stream element as the target
+     *                         value
+     * @param valueComparator  the {@link Comparator} to use for the values
+     * @return a {@link ConcurrentNavigableMap} with the mapped keys, and read-only
+     * {@link NavigableMap} instances with the mapped sub-keys and values
+     */
+    public static <T, A, K1, K2, V,
+            M extends ConcurrentNavigableMap<K1, NavigableMap<K2, List<V>>>> Collector<T, A, M> groupAndSortByConcurrent(
+            Function<? super T, ? extends K1> keyMapper,
+            Comparator<? super K1> keyComparator,
+            Function<? super T, ? extends K2> subKeyMapper,
+            Comparator<? super K2> subKeyComparator,
+            Function<? super T, ? extends V> valueMapper,
+            Comparator<? super V> valueComparator) {
+        return groupAndSortByConcurrent(keyMapper, keyComparator,
+                groupingBySubKeyConcurrent(subKeyMapper, subKeyComparator, valueMapper,
+                        valueComparator));
+    }
+
+    /**
+     * @param subKeyMapper     the {@link Function} to map a stream element as the target
+     *                         sub-key
+     * @param subKeyComparator the {@link Comparator} to use for the sub-keys
+     * @param valueMapper      the {@link Function} to map a stream element as the target
+     *                         value
+     * @param valueComparator  the {@link Comparator} to use for the values
+     * @return a concurrent downstream {@link Collector} buffering the entries of a key in
+     * stripes, and grouping them by their sub-keys when finishing
+     */
+    private static <T, K2, V> Collector<T, ?, NavigableMap<K2, List<V>>> groupingBySubKeyConcurrent(
+            Function<? super T, ? extends K2> subKeyMapper,
+            Comparator<? super K2> subKeyComparator,
+            Function<? super T, ? extends V> valueMapper,
+            Comparator<? super V> valueComparator) {
+        return Collector.of(() -> new StripedKeyValueBuffer<K2, V>(subKeyComparator),
+                (buffer, t) -> buffer.add(subKeyMapper.apply(t), valueMapper.apply(t)),
+                StripedKeyValueBuffer::combine,
+                buffer -> buffer.toKeyValueBuffer()
+                        .group(valueComparator, GroupingOptions.defaults())
+                        .toNavigableMap(),
+                Collector.Characteristics.CONCURRENT,
+                Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * Accumulates primitive keys, encoded as {@code long} values, without boxing them.
+     *
+     * @param keyEncoder  the {@link ToLongFunction} to map a stream element as the
+     *                    encoded key
+     * @param valueMapper the {@link Function} to map a stream element as the value
+     * @param ordering    the {@link UnaryOperator} to sort the accumulated entries
+     * @param constructor the {@link BiFunction} to create the result from the sorted
+     *                    keys and values
+     * @return a {@link Collector} of encoded keys and values
+     */
+    private static <T, V, R> Collector<T, ?, R> toEncodedKeyMap(
+            ToLongFunction<? super T> keyEncoder,
+            Function<? super T, ? extends V> valueMapper,
+            UnaryOperator<LongKeyValueBuffer<V>> ordering,
+            BiFunction<long[], Object[], R> constructor) {
+        return Collector.of(LongKeyValueBuffer<V>::new,
+                (buffer, t) -> buffer.add(keyEncoder.applyAsLong(t), valueMapper.apply(t)),
+                LongKeyValueBuffer::combine,
+                buffer -> {
+                    ordering.apply(buffer);
+                    return constructor.apply(buffer.keys(), buffer.values());
+                });
+    }
+
+    /**
+     * Simple one-to-one mapping of stream elements to their primitive {@code long}
+     * keys.
+     *
+     * @param keyMapper the {@link ToLongFunction} to map a stream element as the target key
+     * @return a {@link LongNavigableMap} with the mapped keys and the stream elements as values
+     */
+    public static <T, A> Collector<T, A, LongNavigableMap<T>> toLongNavigableMap(
+            ToLongFunction<? super T> keyMapper) {
+        return toLongNavigableMap(keyMapper, identity());
+    }
+
+    /**
+     * Simple one-to-one mapping of stream elements to desired primitive {@code long}
+     * keys and values.
+     *
+     * @param keyMapper   the {@link ToLongFunction} to map a stream element as the target key
+     * @param valueMapper the {@link Function} to map a stream element as the target value
+     * @return a {@link LongNavigableMap} with the mapped keys and values
+     */
+    public static <T, A, V> Collector<T, A, LongNavigableMap<V>> toLongNavigableMap(
+            ToLongFunction<? super T> keyMapper,
+            Function<? super T, ? extends V> valueMapper) {
+        return toLongNavigableMap(keyMapper, valueMapper, throwOnMerge());
+    }
+
+    /**
+     * Maps stream elements to desired primitive {@code long} keys and values, given a
+     * {@link BinaryOperator} for merging values on identical keys.
+     * <p>
+     * Keys are accumulated into a primitive array without boxing, and sorted once.
+     *
+     * @param keyMapper     the {@link ToLongFunction} to map a stream element as the target key
+     * @param valueMapper   the {@link Function} to map a stream element as the target value
+     * @param mergeOperator the {@link BinaryOperator} to use for merging values
+     * @return a {@link LongNavigableMap} with the mapped keys and values
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, A, V> Collector<T, A, LongNavigableMap<V>> toLongNavigableMap(
+            ToLongFunction<? super T> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            BinaryOperator<V> mergeOperator) {
+        return (Collector<T, A, LongNavigableMap<V>>)
+                NavigableMapCollectors.<T, V, LongNavigableMap<V>>toEncodedKeyMap(
+                        keyMapper,
+                        t -> requireNonNull(valueMapper.apply(t)),
+                        buffer -> buffer.merge(mergeOperator),
+                        LongNavigableMap<V>::new);
+    }
+
+    /**
+     * Groups stream elements by mapped primitive {@code long} keys, given the
+     * {@link List} of stream elements as values.
+     *
+     * @param keyMapper the {@link ToLongFunction} to map a stream element as the target key
+     * @return a {@link LongNavigableMap} with the mapped keys and the stream elements as values
+     */
+    public static <T extends Comparable<T>, A> Collector<T, A, LongNavigableMap<List<T>>>
+    groupAndSortByLong(ToLongFunction<? super T> keyMapper) {
+        return NavigableMapCollectors.<T, A, T>groupAndSortByLong(keyMapper, identity());
+    }
+
+    /**
+     * Groups stream elements by mapped primitive {@code long} keys, given natural
+     * ordering on the {@link List} of mapped values.
+     *
+     * @param keyMapper   the {@link ToLongFunction} to map a stream element as the target key
+     * @param valueMapper the {@link Function} to map a stream element as the target value
+     * @return a {@link LongNavigableMap} with the mapped keys and values
+     */
+    public static <T, A,
+            V extends Comparable<V>> Collector<T, A, LongNavigableMap<List<V>>> groupAndSortByLong(
+            ToLongFunction<? super T> keyMapper,
+            Function<? super T, ? extends V> valueMapper) {
+        return groupAndSortByLong(keyMapper, valueMapper, naturalOrder());
+    }
+
+    /**
+     * Groups stream elements by mapped primitive {@code long} keys, given a
+     * {@link Comparator} for the values.
+     * <p>
+     * Keys are accumulated into a primitive array without boxing, and sorted once.
+     *
+     * @param keyMapper       the {@link ToLongFunction} to map a stream element as the target key
+     * @param valueMapper     the {@link Function} to map a stream element as the target value
+     * @param valueComparator the {@link Comparator} to use for the values
+     * @return a {@link LongNavigableMap} with the mapped keys and values
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, A, V> Collector<T, A, LongNavigableMap<List<V>>> groupAndSortByLong(
+            ToLongFunction<? super T> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            Comparator<? super V> valueComparator) {
+        return (Collector<T, A, LongNavigableMap<List<V>>>)
+                NavigableMapCollectors.<T, V, LongNavigableMap<List<V>>>toEncodedKeyMap(
+                        keyMapper,
+                        valueMapper,
+                        buffer -> buffer.group(valueComparator, GroupingOptions.defaults()),
+                        LongNavigableMap<List<V>>::new);
+    }
+
+    /**
+     * Simple one-to-one mapping of stream elements to their primitive {@code int}
+     * keys.
+     *
+     * @param keyMapper the {@link ToIntFunction} to map a stream element as the target key
+     * @return a {@link IntNavigableMap} with the mapped keys and the stream elements as values
+     */
+    public static <T, A> Collector<T, A, IntNavigableMap<T>> toIntNavigableMap(
+            ToIntFunction<? super T> keyMapper) {
+        return toIntNavigableMap(keyMapper, identity());
+    }
+
+    /**
+     * Simple one-to-one mapping of stream elements to desired primitive {@code int}
+     * keys and values.
+     *
+     * @param keyMapper   the {@link ToIntFunction} to map a stream element as the target key
+     * @param valueMapper the {@link Function} to map a stream element as the target value
+     * @return a {@link IntNavigableMap} with the mapped keys and values
+     */
+    public static <T, A, V> Collector<T, A, IntNavigableMap<V>> toIntNavigableMap(
+            ToIntFunction<? super T> keyMapper,
+            Function<? super T, ? extends V> valueMapper) {
+        return toIntNavigableMap(keyMapper, valueMapper, throwOnMerge());
+    }
+
+    /**
+     * Maps stream elements to desired primitive {@code int} keys and values, given a
+     * {@link BinaryOperator} for merging values on identical keys.
+     * <p>
+     * Keys are accumulated into a primitive array without boxing, and sorted once.
+     *
+     * @param keyMapper     the {@link ToIntFunction} to map a stream element as the target key
+     * @param valueMapper   the {@link Function} to map a stream element as the target value
+     * @param mergeOperator the {@link BinaryOperator} to use for merging values
+     * @return a {@link IntNavigableMap} with the mapped keys and values
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, A, V> Collector<T, A, IntNavigableMap<V>> toIntNavigableMap(
+            ToIntFunction<? super T> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            BinaryOperator<V> mergeOperator) {
+        return (Collector<T, A, IntNavigableMap<V>>)
+                NavigableMapCollectors.<T, V, IntNavigableMap<V>>toEncodedKeyMap(
+                        keyMapper::applyAsInt,
+                        t -> requireNonNull(valueMapper.apply(t)),
+                        buffer -> buffer.merge(mergeOperator),
+                        IntNavigableMap<V>::new);
+    }
+
+    /**
+     * Groups stream elements by mapped primitive {@code int} keys, given the
+     * {@link List} of stream elements as values.
+     *
+     * @param keyMapper the {@link ToIntFunction} to map a stream element as the target key
+     * @return a {@link IntNavigableMap} with the mapped keys and the stream elements as values
+     */
+    public static <T extends Comparable<T>, A> Collector<T, A, IntNavigableMap<List<T>>>
+    groupAndSortByInt(ToIntFunction<? super T> keyMapper) {
+        return NavigableMapCollectors.<T, A, T>groupAndSortByInt(keyMapper, identity());
+    }
+
+    /**
+     * Groups stream elements by mapped primitive {@code int} keys, given natural
+     * ordering on the {@link List} of mapped values.
+     *
+     * @param keyMapper   the {@link ToIntFunction} to map a stream element as the target key
+     * @param valueMapper the {@link Function} to map a stream element as the target value
+     * @return a {@link IntNavigableMap} with the mapped keys and values
+     */
+    public static <T, A,
+            V extends Comparable<V>> Collector<T, A, IntNavigableMap<List<V>>> groupAndSortByInt(
+            ToIntFunction<? super T> keyMapper,
+            Function<? super T, ? extends V> valueMapper) {
+        return groupAndSortByInt(keyMapper, valueMapper, naturalOrder());
+    }
+
+    /**
+     * Groups stream elements by mapped primitive {@code int} keys, given a
+     * {@link Comparator} for the values.
+     * <p>
+     * Keys are accumulated into a primitive array without boxing, and sorted once.
+     *
+     * @param keyMapper       the {@link ToIntFunction} to map a stream element as the target key
+     * @param valueMapper     the {@link Function} to map a stream element as the target value
+     * @param valueComparator the {@link Comparator} to use for the values
+     * @return a {@link IntNavigableMap} with the mapped keys and values
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, A, V> Collector<T, A, IntNavigableMap<List<V>>> groupAndSortByInt(
+            ToIntFunction<? super T> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            Comparator<? super V> valueComparator) {
+        return (Collector<T, A, IntNavigableMap<List<V>>>)
+                NavigableMapCollectors.<T, V, IntNavigableMap<List<V>>>toEncodedKeyMap(
+                        keyMapper::applyAsInt,
+                        valueMapper,
+                        buffer -> buffer.group(valueComparator, GroupingOptions.defaults()),
+                        IntNavigableMap<List<V>>::new);
+    }
+
+    /**
+     * Simple one-to-one mapping of stream elements to their primitive {@code double}
+     * keys.
+     *
+     * @param keyMapper the {@link ToDoubleFunction} to map a stream element as the target key
+     * @return a {@link DoubleNavigableMap} with the mapped keys and the stream elements as values
+     */
+    public static <T, A> Collector<T, A, DoubleNavigableMap<T>> toDoubleNavigableMap(
+            ToDoubleFunction<? super T> keyMapper) {
+        return toDoubleNavigableMap(keyMapper, identity());
+    }
+
+    /**
+     * Simple one-to-one mapping of stream elements to desired primitive {@code double}
+     * keys and values.
+     *
+     * @param keyMapper   the {@link ToDoubleFunction} to map a stream element as the target key
+     * @param valueMapper the {@link Function} to map a stream element as the target value
+     * @return a {@link DoubleNavigableMap} with the mapped keys and values
+     */
+    public static <T, A, V> Collector<T, A, DoubleNavigableMap<V>> toDoubleNavigableMap(
+            ToDoubleFunction<? super T> keyMapper,
+            Function<? super T, ? extends V> valueMapper) {
+        return toDoubleNavigableMap(keyMapper, valueMapper, throwOnMerge());
+    }
+
+    /**
+     * Maps stream elements to desired primitive {@code double} keys and values, given a
+     * {@link BinaryOperator} for merging values on identical keys.
+     * <p>
+     * Keys are accumulated into a primitive array without boxing, and sorted once.
+     *
+     * @param keyMapper     the {@link ToDoubleFunction} to map a stream element as the target key
+     * @param valueMapper   the {@link Function} to map a stream element as the target value
+     * @param mergeOperator the {@link BinaryOperator} to use for merging values
+     * @return a {@link DoubleNavigableMap} with the mapped keys and values
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, A, V> Collector<T, A, DoubleNavigableMap<V>> toDoubleNavigableMap(
+            ToDoubleFunction<? super T> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            BinaryOperator<V> mergeOperator) {
+        return (Collector<T, A, DoubleNavigableMap<V>>)
+                NavigableMapCollectors.<T, V, DoubleNavigableMap<V>>toEncodedKeyMap(
+                        t -> DoubleNavigableMap.encodeKey(keyMapper.applyAsDouble(t)),
+                        t -> requireNonNull(valueMapper.apply(t)),
+                        buffer -> buffer.merge(mergeOperator),
+                        DoubleNavigableMap<V>::new);
+    }
+
+    /**
+     * Groups stream elements by mapped primitive {@code double} keys, given the
+     * {@link List} of stream elements as values.
+     *
+     * @param keyMapper the {@link ToDoubleFunction} to map a stream element as the target key
+     * @return a {@link DoubleNavigableMap} with the mapped keys and the stream elements as values
+     */
+    public static <T extends Comparable<T>, A> Collector<T, A, DoubleNavigableMap<List<T>>>
+    groupAndSortByDouble(ToDoubleFunction<? super T> keyMapper) {
+        return NavigableMapCollectors.<T, A, T>groupAndSortByDouble(keyMapper, identity());
+    }
+
+    /**
+     * Groups stream elements by mapped primitive {@code double} keys, given natural
+     * ordering on the {@link List} of mapped values.
+     *
+     * @param keyMapper   the {@link ToDoubleFunction} to map a stream element as the target key
+     * @param valueMapper the {@link Function} to map a stream element as the target value
+     * @return a {@link DoubleNavigableMap} with the mapped keys and values
+     */
+    public static <T, A,
+            V extends Comparable<V>> Collector<T, A, DoubleNavigableMap<List<V>>> groupAndSortByDouble(
+            ToDoubleFunction<? super T> keyMapper,
+            Function<? super T, ? extends V> valueMapper) {
+        return groupAndSortByDouble(keyMapper, valueMapper, naturalOrder());
+    }
+
+    /**
+     * Groups stream elements by mapped primitive {@code double} keys, given a
+     * {@link Comparator} for the values.
+     * <p>
+     * Keys are accumulated into a primitive array without boxing, and sorted once.
+     *
+     * @param keyMapper       the {@link ToDoubleFunction} to map a stream element as the target key
+     * @param valueMapper     the {@link Function} to map a stream element as the target value
+     * @param valueComparator the {@link Comparator} to use for the values
+     * @return a {@link DoubleNavigableMap} with the mapped keys and values
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, A, V> Collector<T, A, DoubleNavigableMap<List<V>>> groupAndSortByDouble(
+            ToDoubleFunction<? super T> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            Comparator<? super V> valueComparator) {
+        return (Collector<T, A, DoubleNavigableMap<List<V>>>)
+                NavigableMapCollectors.<T, V, DoubleNavigableMap<List<V>>>toEncodedKeyMap(
+                        t -> DoubleNavigableMap.encodeKey(keyMapper.applyAsDouble(t)),
+                        valueMapper,
+                        buffer -> buffer.group(valueComparator, GroupingOptions.defaults()),
+                        DoubleNavigableMap<List<V>>::new);
+    }
+
+    /**
+     * Counts, sums, and finds the minimum and maximum of, mapped values per bucket.
+     * <p>
+     * This replaces looking up the bucket of every value with
+     * {@link NavigableMap#floorKey(Object)} on a {@link NavigableMap} of lower bounds, and
+     * updating boxed statistics. Statistics are accumulated into primitive arrays, so that
+     * accumulating a value neither boxes nor allocates, and partial results of parallel
+     * streams are combined in time linear to the number of buckets.
+     *
+     * @param valueMapper the {@link ToDoubleFunction} to map a stream element as a value
+     * @param buckets     the {@link Buckets} to count values into
+     * @return a {@link DoubleNavigableMap} from the lower bound of every bucket, including
+     * empty ones, to its {@link BucketStatistics}
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, A> Collector<T, A, DoubleNavigableMap<BucketStatistics>> toHistogram(
+            ToDoubleFunction<? super T> valueMapper,
+            Buckets buckets) {
+        requireNonNull(buckets);
+        return (Collector<T, A, DoubleNavigableMap<BucketStatistics>>) Collector.of(
+                () -> new Histogram(buckets),
+                (Histogram histogram, T t) -> histogram.add(valueMapper.applyAsDouble(t)),
+                Histogram::combine,
+                Histogram::toNavigableMap);
+    }
+
+    /**
+     * Counts, sums, and finds the minimum and maximum of, values per bucket, accumulating
+     * them straight from a {@link DoubleStream} without boxing them first.
+     *
+     * @param values  the {@link DoubleStream} of values
+     * @param buckets the {@link Buckets} to count values into
+     * @return a {@link DoubleNavigableMap} from the lower bound of every bucket, including
+     * empty ones, to its {@link BucketStatistics}
+     * @see #toHistogram(ToDoubleFunction, Buckets)
+     */
+    public static DoubleNavigableMap<BucketStatistics> toHistogram(DoubleStream values,
+            Buckets buckets) {
+        requireNonNull(buckets);
+        return values.collect(() -> new Histogram(buckets), Histogram::add,
+                Histogram::combine).toNavigableMap();
+    }
+
+    /**
+     * Counts, sums, and finds the minimum and maximum of, values per bucket, accumulating
+     * them straight from a {@link LongStream} without boxing them first.
+     *
+     * @param values  the {@link LongStream} of values
+     * @param buckets the {@link Buckets} to count values into
+     * @return a {@link DoubleNavigableMap} from the lower bound of every bucket, including
+     * empty ones, to its {@link BucketStatistics}
+     * @see #toHistogram(ToDoubleFunction, Buckets)
+     */
+    public static DoubleNavigableMap<BucketStatistics> toHistogram(LongStream values,
+            Buckets buckets) {
+        requireNonNull(buckets);
+        return values.collect(() -> new Histogram(buckets), Histogram::add,
+                Histogram::combine).toNavigableMap();
     }
 }
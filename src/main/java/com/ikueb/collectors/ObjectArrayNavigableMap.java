@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import java.util.Comparator;
+
+/**
+ * An {@link ArrayNavigableMap} over parallel key and value arrays.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+final class ObjectArrayNavigableMap<K, V> extends ArrayNavigableMap<K, V> {
+
+    private final Object[] keys;
+    private final Object[] values;
+    private final Comparator<? super K> comparator;
+
+    /**
+     * @param keys       the keys, sorted and distinct according to the comparator
+     * @param values     the values, in the same order as their keys
+     * @param size       the number of entries
+     * @param comparator the {@link Comparator} the keys are sorted by
+     */
+    ObjectArrayNavigableMap(Object[] keys, Object[] values, int size,
+            Comparator<? super K> comparator) {
+        this(keys, values, comparator, 0, size, false);
+    }
+
+    private ObjectArrayNavigableMap(Object[] keys, Object[] values,
+            Comparator<? super K> comparator, int from, int to, boolean descending) {
+        super(from, to, descending);
+        this.keys = keys;
+        this.values = values;
+        this.comparator = comparator;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    K keyAt(int index) {
+        return (K) keys[index];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    V valueAt(int index) {
+        return (V) values[index];
+    }
+
+    @Override
+    Comparator<? super K> keyComparator() {
+        return comparator;
+    }
+
+    @Override
+    ArrayNavigableMap<K, V> view(int from, int to, boolean descending) {
+        return new ObjectArrayNavigableMap<>(keys, values, comparator, from, to,
+                descending);
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Writes and reads values of a type, for the spilling {@link java.util.stream.Collector}
+ * implementations in {@link NavigableMapCollectors}.
+ *
+ * @param <T> the type of values
+ */
+public interface Serializer<T> {
+
+    /**
+     * @param value  the value to write
+     * @param output the {@link DataOutput} to write to
+     * @throws IOException if writing fails
+     */
+    void write(T value, DataOutput output) throws IOException;
+
+    /**
+     * @param input the {@link DataInput} to read from
+     * @return the value read
+     * @throws IOException if reading fails
+     */
+    T read(DataInput input) throws IOException;
+
+    /**
+     * @return a {@link Serializer} for {@link Long} values
+     */
+    static Serializer<Long> longs() {
+        return new Serializer<Long>() {
+            @Override
+            public void write(Long value, DataOutput output) throws IOException {
+                output.writeLong(value);
+            }
+
+            @Override
+            public Long read(DataInput input) throws IOException {
+                return input.readLong();
+            }
+        };
+    }
+
+    /**
+     * @return a {@link Serializer} for {@link Integer} values
+     */
+    static Serializer<Integer> integers() {
+        return new Serializer<Integer>() {
+            @Override
+            public void write(Integer value, DataOutput output) throws IOException {
+                output.writeInt(value);
+            }
+
+            @Override
+            public Integer read(DataInput input) throws IOException {
+                return input.readInt();
+            }
+        };
+    }
+
+    /**
+     * @return a {@link Serializer} for {@link String} values of any length, as UTF-8
+     */
+    static Serializer<String> strings() {
+        return new Serializer<String>() {
+            @Override
+            public void write(String value, DataOutput output) throws IOException {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                output.writeInt(bytes.length);
+                output.write(bytes);
+            }
+
+            @Override
+            public String read(DataInput input) throws IOException {
+                byte[] bytes = new byte[input.readInt()];
+                input.readFully(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+    }
+
+    /**
+     * @param serializer the {@link Serializer} for the elements
+     * @return a {@link Serializer} for {@link List} values, which reads unmodifiable
+     * {@link List} instances
+     */
+    static <T> Serializer<List<T>> listOf(Serializer<T> serializer) {
+        return new Serializer<List<T>>() {
+            @Override
+            public void write(List<T> value, DataOutput output) throws IOException {
+                output.writeInt(value.size());
+                for (T element : value) {
+                    serializer.write(element, output);
+                }
+            }
+
+            @Override
+            public List<T> read(DataInput input) throws IOException {
+                int size = input.readInt();
+                ValueList<T> results = new ValueList<>();
+                for (int i = 0; i < size; i++) {
+                    results.add(serializer.read(input));
+                }
+                return Collections.unmodifiableList(results);
+            }
+        };
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * An {@link ArrayNavigableMap} whose keys are ordered by sort keys derived from them.
+ * The sort key of every entry is cached alongside it, so that a lookup only derives the
+ * sort key of the key to search for, once.
+ *
+ * @param <K> the type of keys
+ * @param <S> the type of sort keys
+ * @param <V> the type of values
+ */
+final class SortKeyNavigableMap<K, S, V> extends ArrayNavigableMap<K, V> {
+
+    private final Object[] sortKeys;
+    private final Object[] keys;
+    private final Object[] values;
+    private final Function<? super K, ? extends S> sortKeyMapper;
+    private final Comparator<? super S> sortKeyComparator;
+    private final Comparator<? super K> comparator;
+
+    /**
+     * @param sortKeys          the sort keys, sorted and distinct according to the sort
+     *                          key comparator
+     * @param keys              the keys, in the same order as their sort keys
+     * @param values            the values, in the same order as their sort keys
+     * @param sortKeyMapper     the {@link Function} to derive the sort key of a key
+     * @param sortKeyComparator the {@link Comparator} the sort keys are sorted by
+     */
+    SortKeyNavigableMap(Object[] sortKeys, Object[] keys, Object[] values,
+            Function<? super K, ? extends S> sortKeyMapper,
+            Comparator<? super S> sortKeyComparator) {
+        this(sortKeys, keys, values, sortKeyMapper, sortKeyComparator,
+                Comparator.comparing(sortKeyMapper, sortKeyComparator),
+                0, keys.length, false);
+    }
+
+    private SortKeyNavigableMap(Object[] sortKeys, Object[] keys, Object[] values,
+            Function<? super K, ? extends S> sortKeyMapper,
+            Comparator<? super S> sortKeyComparator, Comparator<? super K> comparator,
+            int from, int to, boolean descending) {
+        super(from, to, descending);
+        this.sortKeys = sortKeys;
+        this.keys = keys;
+        this.values = values;
+        this.sortKeyMapper = sortKeyMapper;
+        this.sortKeyComparator = sortKeyComparator;
+        this.comparator = comparator;
+    }
+
+    /**
+     * @param buffer            the buffer of sort keys, and their keys and values
+     * @param sortKeyMapper     the {@link Function} to derive the sort key of a key
+     * @param sortKeyComparator the {@link Comparator} to use for the sort keys
+     * @return a map over the sorted entries of the buffer
+     */
+    static <K, S, V> SortKeyNavigableMap<K, S, V> of(KeyValueBuffer<S, Entry<K, V>> buffer,
+            Function<? super K, ? extends S> sortKeyMapper,
+            Comparator<? super S> sortKeyComparator) {
+        buffer.sort();
+        int size = buffer.size();
+        Object[] sortKeys = new Object[size];
+        Object[] keys = new Object[size];
+        Object[] values = new Object[size];
+        for (int i = 0; i < size; i++) {
+            Entry<K, V> entry = buffer.valueAt(i);
+            sortKeys[i] = buffer.keyAt(i);
+            keys[i] = entry.getKey();
+            values[i] = entry.getValue();
+        }
+        return new SortKeyNavigableMap<>(sortKeys, keys, values, sortKeyMapper,
+                sortKeyComparator);
+    }
+
+    /**
+     * @param buffer            the buffer of sort keys, and their keys and values
+     * @param sortKeyMapper     the {@link Function} to derive the sort key of a key
+     * @param sortKeyComparator the {@link Comparator} to use for the sort keys
+     * @param valueComparator   the {@link Comparator} to use for the values
+     * @param options           the {@link GroupingOptions} to use for the values
+     * @return a map over the sorted entries of the buffer, with the values of identical
+     * sort keys grouped under the first key encountered
+     */
+    static <K, S, V> SortKeyNavigableMap<K, S, List<V>> grouped(
+            KeyValueBuffer<S, Entry<K, V>> buffer,
+            Function<? super K, ? extends S> sortKeyMapper,
+            Comparator<? super S> sortKeyComparator,
+            Comparator<? super V> valueComparator,
+            GroupingOptions options) {
+        buffer.sort();
+        int size = buffer.size();
+        Object[] sortKeys = new Object[size];
+        Object[] keys = new Object[size];
+        Object[] values = new Object[size];
+        int distinct = 0;
+        for (int i = 0, j; i < size; i = j) {
+            ValueList<V> list = new ValueList<>();
+            for (j = i; j < size
+                    && sortKeyComparator.compare(buffer.keyAt(i), buffer.keyAt(j)) == 0; j++) {
+                list.add(buffer.valueAt(j).getValue());
+            }
+            sortKeys[distinct] = buffer.keyAt(i);
+            keys[distinct] = buffer.valueAt(i).getKey();
+            values[distinct++] = options.finish(list, valueComparator);
+        }
+        return new SortKeyNavigableMap<>(Arrays.copyOf(sortKeys, distinct),
+                Arrays.copyOf(keys, distinct), Arrays.copyOf(values, distinct),
+                sortKeyMapper, sortKeyComparator);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    K keyAt(int index) {
+        return (K) keys[index];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    V valueAt(int index) {
+        return (V) values[index];
+    }
+
+    @Override
+    Comparator<? super K> keyComparator() {
+        return comparator;
+    }
+
+    @Override
+    int compareAt(int index, Object key) {
+        return probe(key).applyAsInt(index);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    IntUnaryOperator probe(Object key) {
+        S sortKey = sortKeyMapper.apply((K) key);
+        return i -> sortKeyComparator.compare((S) sortKeys[i], sortKey);
+    }
+
+    @Override
+    ArrayNavigableMap<K, V> view(int from, int to, boolean descending) {
+        return new SortKeyNavigableMap<>(sortKeys, keys, values, sortKeyMapper,
+                sortKeyComparator, comparator, from, to, descending);
+    }
+}
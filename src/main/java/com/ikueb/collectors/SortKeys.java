@@ -0,0 +1,160 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Comparator;
+
+/**
+ * Normalized binary sort keys, whose unsigned lexicographic ordering, as given by
+ * {@link #comparator()}, matches the natural ordering of the values they encode.
+ * <p>
+ * Such sort keys are meant to be derived once per element with the {@code BySortKey}
+ * collectors in {@link NavigableMapCollectors}, so that sorting only compares bytes.
+ */
+public final class SortKeys {
+
+    private static final byte ESCAPE = (byte) 0xFF;
+    private static final Comparator<byte[]> COMPARATOR = SortKeys::compare;
+
+    private SortKeys() {
+        // empty
+    }
+
+    /**
+     * @param value the value to encode
+     * @return a sort key ordered as {@link String#compareTo(String)}, which writes each
+     *         {@code char} as two big-endian bytes, so that unpaired surrogates are kept
+     *         as they are, instead of being replaced by a charset
+     */
+    public static byte[] of(String value) {
+        byte[] results = new byte[value.length() * 2];
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            results[2 * i] = (byte) (c >>> Byte.SIZE);
+            results[2 * i + 1] = (byte) c;
+        }
+        return results;
+    }
+
+    /**
+     * @param value the value to encode
+     * @return a sort key ordered as {@link Long#compare(long, long)}
+     */
+    public static byte[] of(long value) {
+        long bits = value ^ Long.MIN_VALUE;
+        byte[] results = new byte[Long.BYTES];
+        for (int i = results.length - 1; i >= 0; i--, bits >>>= Byte.SIZE) {
+            results[i] = (byte) bits;
+        }
+        return results;
+    }
+
+    /**
+     * @param value the value to encode
+     * @return a sort key ordered as {@link Integer#compare(int, int)}
+     */
+    public static byte[] of(int value) {
+        int bits = value ^ Integer.MIN_VALUE;
+        byte[] results = new byte[Integer.BYTES];
+        for (int i = results.length - 1; i >= 0; i--, bits >>>= Byte.SIZE) {
+            results[i] = (byte) bits;
+        }
+        return results;
+    }
+
+    /**
+     * @param value the value to encode
+     * @return a sort key ordered as {@link Double#compare(double, double)}
+     */
+    public static byte[] of(double value) {
+        return of(DoubleNavigableMap.encodeKey(value));
+    }
+
+    /**
+     * Combines sort keys into one, ordered by the first sort key, then by the second, and
+     * so on. Each sort key is escaped and terminated, so that a shorter sort key still
+     * orders before a longer one sharing its prefix.
+     *
+     * @param sortKeys the sort keys to combine
+     * @return the combined sort key
+     */
+    public static byte[] tuple(byte[]... sortKeys) {
+        ByteArrayOutputStream results = new ByteArrayOutputStream();
+        for (byte[] sortKey : sortKeys) {
+            for (byte b : sortKey) {
+                results.write(b);
+                if (b == 0) {
+                    results.write(ESCAPE);
+                }
+            }
+            results.write(0);
+            results.write(0);
+        }
+        return results.toByteArray();
+    }
+
+    /**
+     * Encodes keys of the supported types by their natural ordering.
+     *
+     * @param key the {@link Long}, {@link Integer}, {@link Double} or {@link String} to
+     *            encode
+     * @return the sort key
+     * @throws IllegalArgumentException if the type of the key is not supported
+     */
+    static byte[] ofNatural(Object key) {
+        if (key instanceof Long) {
+            return of((long) (Long) key);
+        }
+        if (key instanceof Integer) {
+            return of((int) (Integer) key);
+        }
+        if (key instanceof Double) {
+            return of((double) (Double) key);
+        }
+        if (key instanceof String) {
+            return of((String) key);
+        }
+        throw new IllegalArgumentException("Unsupported key type: "
+                + (key == null ? null : key.getClass().getName()));
+    }
+
+    /**
+     * Sorting with this {@link Comparator} in {@link NavigableMapCollectors} uses MSD
+     * radix sort over the bytes of the sort keys.
+     *
+     * @return a {@link Comparator} comparing sort keys as unsigned bytes,
+     * lexicographically
+     */
+    public static Comparator<byte[]> comparator() {
+        return COMPARATOR;
+    }
+
+    /**
+     * @param a the first sort key
+     * @param b the second sort key
+     * @return the result of comparing the sort keys as unsigned bytes, lexicographically
+     */
+    static int compare(byte[] a, byte[] b) {
+        int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            if (a[i] != b[i]) {
+                return Integer.compare(a[i] & 0xFF, b[i] & 0xFF);
+            }
+        }
+        return Integer.compare(a.length, b.length);
+    }
+}
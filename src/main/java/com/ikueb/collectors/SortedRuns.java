@@ -0,0 +1,185 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Mutable accumulation container where every worker thread appends to its own run of
+ * entries, and combining only concatenates the lists of runs. The runs are sorted and
+ * k-way merged once when finishing, in parallel over ranges of keys.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+final class SortedRuns<K, V> {
+
+    /**
+     * Below this number of entries, finishing does not partition the key range.
+     */
+    private static final int PARTITION_THRESHOLD = 1 << 13;
+
+    /**
+     * The number of keys to sample from each run per partition.
+     */
+    private static final int OVERSAMPLING = 4;
+
+    private final Comparator<Object> comparator;
+    private final BinaryOperator<V> mergeOperator;
+    private final List<KeyValueBuffer<K, V>> runs = new ArrayList<>();
+
+    /**
+     * @param keyComparator the {@link Comparator} to use for the keys
+     * @param mergeOperator the {@link BinaryOperator} to use for merging values, or
+     *                      {@code null} to keep all of them
+     */
+    @SuppressWarnings("unchecked")
+    SortedRuns(Comparator<? super K> keyComparator, BinaryOperator<V> mergeOperator) {
+        this.comparator = (Comparator<Object>) keyComparator;
+        this.mergeOperator = mergeOperator;
+        runs.add(new KeyValueBuffer<>(keyComparator, mergeOperator));
+    }
+
+    /**
+     * @param key   the key to add
+     * @param value the value to add
+     */
+    void add(K key, V value) {
+        runs.get(runs.size() - 1).add(key, value);
+    }
+
+    /**
+     * Appends the runs of another container after the runs of this one.
+     *
+     * @param other the container to append
+     * @return this container
+     */
+    SortedRuns<K, V> combine(SortedRuns<K, V> other) {
+        runs.addAll(other.runs);
+        return this;
+    }
+
+    /**
+     * Sorts and merges all runs.
+     *
+     * @param finisher the {@link Function} to apply to each merged range of keys, in
+     *                 parallel
+     * @return the result of concatenating the merged ranges
+     */
+    <U> KeyValueBuffer<K, U> finish(
+            Function<KeyValueBuffer<K, V>, KeyValueBuffer<K, U>> finisher) {
+        runs.removeIf(run -> run.size() == 0);
+        runs.parallelStream().forEach(KeyValueBuffer::sort);
+        int total = runs.stream().mapToInt(KeyValueBuffer::size).sum();
+        int partitions = total < PARTITION_THRESHOLD
+                ? 1 : ForkJoinPool.getCommonPoolParallelism() * OVERSAMPLING;
+        int[][] bounds = partition(partitions);
+        return IntStream.range(0, partitions).parallel()
+                .mapToObj(p -> finisher.apply(merge(bounds, p)))
+                .collect(toList())
+                .stream()
+                .reduce(KeyValueBuffer::combine)
+                .orElseGet(() -> finisher.apply(
+                        new KeyValueBuffer<>(comparator, mergeOperator)));
+    }
+
+    /**
+     * Splits the sorted runs into ranges of keys, so that identical keys always fall
+     * into the same range.
+     *
+     * @param partitions the number of ranges
+     * @return for each run, the {@code partitions + 1} boundary indices of the ranges
+     */
+    private int[][] partition(int partitions) {
+        Object[] splitters = sampleSplitters(partitions);
+        int[][] bounds = new int[runs.size()][partitions + 1];
+        for (int r = 0; r < runs.size(); r++) {
+            KeyValueBuffer<K, V> run = runs.get(r);
+            bounds[r][partitions] = run.size();
+            for (int p = 1; p < partitions; p++) {
+                int low = bounds[r][p - 1];
+                int high = run.size();
+                while (low < high) {
+                    int middle = (low + high) >>> 1;
+                    if (comparator.compare(run.keyAt(middle), splitters[p - 1]) < 0) {
+                        low = middle + 1;
+                    } else {
+                        high = middle;
+                    }
+                }
+                bounds[r][p] = low;
+            }
+        }
+        return bounds;
+    }
+
+    private Object[] sampleSplitters(int partitions) {
+        if (partitions == 1) {
+            return new Object[0];
+        }
+        int perRun = partitions * OVERSAMPLING;
+        Object[] samples = runs.stream()
+                .flatMap(run -> IntStream.range(0, perRun)
+                        .mapToObj(i -> run.keyAt((int) ((long) i * run.size() / perRun))))
+                .sorted(comparator)
+                .toArray();
+        Object[] splitters = new Object[partitions - 1];
+        for (int p = 1; p < partitions; p++) {
+            splitters[p - 1] = samples[(int) ((long) p * samples.length / partitions)];
+        }
+        return splitters;
+    }
+
+    /**
+     * Merges one range of keys across all runs. Identical keys are taken from the runs in
+     * order, so that values are merged in encounter order.
+     *
+     * @param bounds    the boundary indices of the ranges
+     * @param partition the range to merge
+     * @return the merged range
+     */
+    private KeyValueBuffer<K, V> merge(int[][] bounds, int partition) {
+        KeyValueBuffer<K, V> results = new KeyValueBuffer<>(comparator, mergeOperator);
+        int[] positions = new int[runs.size()];
+        PriorityQueue<Integer> queue = new PriorityQueue<>(Math.max(1, runs.size()),
+                (a, b) -> {
+                    int result = comparator.compare(runs.get(a).keyAt(positions[a]),
+                            runs.get(b).keyAt(positions[b]));
+                    return result == 0 ? Integer.compare(a, b) : result;
+                });
+        for (int r = 0; r < runs.size(); r++) {
+            positions[r] = bounds[r][partition];
+            if (positions[r] < bounds[r][partition + 1]) {
+                queue.add(r);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int r = queue.poll();
+            KeyValueBuffer<K, V> run = runs.get(r);
+            results.add(run.keyAt(positions[r]), run.valueAt(positions[r]));
+            if (++positions[r] < bounds[r][partition + 1]) {
+                queue.add(r);
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,362 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A read-only {@link ArrayNavigableMap} over entries serialized into a memory-mapped
+ * file, in sorted order.
+ * <p>
+ * Entries are stored in blocks of {@value #BLOCK_SIZE}, and only the first key of every
+ * block is kept in memory, as a sparse index. A search first narrows down to one block
+ * by the in-memory keys, and then decodes that block only. The last decoded block is
+ * cached, so that iterating over the entries decodes every block once.
+ * <p>
+ * The file is deleted as soon as it is mapped, where the platform permits it, and its
+ * storage is released once the mapping is garbage collected.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+final class SpilledNavigableMap<K, V> extends ArrayNavigableMap<K, V> {
+
+    static final int BLOCK_SIZE = 64;
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    private final Storage<K, V> storage;
+
+    private SpilledNavigableMap(Storage<K, V> storage, int from, int to,
+            boolean descending) {
+        super(from, to, descending);
+        this.storage = storage;
+    }
+
+    @Override
+    K keyAt(int index) {
+        return storage.keyAt(index);
+    }
+
+    @Override
+    V valueAt(int index) {
+        return storage.valueAt(index);
+    }
+
+    @Override
+    Comparator<? super K> keyComparator() {
+        return storage.comparator;
+    }
+
+    /**
+     * Searches the first keys of the blocks in this view, which are in memory, before
+     * searching the one block that the search key falls in.
+     */
+    @Override
+    int bound(IntUnaryOperator probe, boolean upper) {
+        int firstBlock = (from + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int endBlock = (to + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int block = bound(i -> probe.applyAsInt(i * BLOCK_SIZE), upper, firstBlock,
+                Math.max(firstBlock, endBlock));
+        return bound(probe, upper,
+                block == firstBlock ? from : (block - 1) * BLOCK_SIZE + 1,
+                block < endBlock ? block * BLOCK_SIZE : to);
+    }
+
+    @Override
+    ArrayNavigableMap<K, V> view(int from, int to, boolean descending) {
+        return new SpilledNavigableMap<>(storage, from, to, descending);
+    }
+
+    /**
+     * Decoded entries of a block.
+     */
+    private static final class Block {
+
+        private final int number;
+        private final Object[] keys;
+        private final Object[] values;
+
+        private Block(int number, int size) {
+            this.number = number;
+            this.keys = new Object[size];
+            this.values = new Object[size];
+        }
+    }
+
+    /**
+     * The mapped segments of the file and the sparse index over them, shared by all
+     * views.
+     */
+    private static final class Storage<K, V> {
+
+        private final ByteBuffer[] segments;
+        private final long[] segmentStarts;
+        private final Object[] blockKeys;
+        private final long[] blockOffsets;
+        private final int[] blockSegments;
+        private final Comparator<? super K> comparator;
+        private final Serializer<K> keySerializer;
+        private final Serializer<V> valueSerializer;
+        private final int size;
+        private volatile Block cached;
+
+        private Storage(ByteBuffer[] segments, long[] segmentStarts, Object[] blockKeys,
+                long[] blockOffsets, int[] blockSegments, Comparator<? super K> comparator,
+                Serializer<K> keySerializer, Serializer<V> valueSerializer, int size) {
+            this.segments = segments;
+            this.segmentStarts = segmentStarts;
+            this.blockKeys = blockKeys;
+            this.blockOffsets = blockOffsets;
+            this.blockSegments = blockSegments;
+            this.comparator = comparator;
+            this.keySerializer = keySerializer;
+            this.valueSerializer = valueSerializer;
+            this.size = size;
+        }
+
+        @SuppressWarnings("unchecked")
+        private K keyAt(int index) {
+            return (K) (index % BLOCK_SIZE == 0 ? blockKeys[index / BLOCK_SIZE]
+                    : block(index / BLOCK_SIZE).keys[index % BLOCK_SIZE]);
+        }
+
+        @SuppressWarnings("unchecked")
+        private V valueAt(int index) {
+            return (V) block(index / BLOCK_SIZE).values[index % BLOCK_SIZE];
+        }
+
+        private Block block(int number) {
+            Block block = cached;
+            if (block == null || block.number != number) {
+                cached = block = decode(number);
+            }
+            return block;
+        }
+
+        private Block decode(int number) {
+            int segment = blockSegments[number];
+            ByteBuffer buffer = segments[segment].duplicate();
+            buffer.position((int) (blockOffsets[number] - segmentStarts[segment]));
+            DataInput input = new DataInputStream(new ByteBufferInputStream(buffer));
+            Block block = new Block(number,
+                    Math.min(BLOCK_SIZE, size - number * BLOCK_SIZE));
+            try {
+                for (int i = 0; i < block.keys.length; i++) {
+                    block.keys[i] = keySerializer.read(input);
+                    block.values[i] = valueSerializer.read(input);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return block;
+        }
+    }
+
+    /**
+     * Writes entries in sorted order to a temporary file, and maps it.
+     *
+     * @param <K> the type of keys
+     * @param <V> the type of values
+     */
+    static final class Writer<K, V> implements Closeable {
+
+        private final Comparator<? super K> comparator;
+        private final Serializer<K> keySerializer;
+        private final Serializer<V> valueSerializer;
+        private final Path path;
+        private final CountingOutputStream counter;
+        private final DataOutputStream output;
+        private long[] segmentStarts = {0};
+        private int segments = 1;
+        private Object[] blockKeys = new Object[1];
+        private long[] blockOffsets = new long[1];
+        private int[] blockSegments = new int[1];
+        private int size;
+        private boolean finished;
+
+        /**
+         * @param comparator      the {@link Comparator} the keys are sorted by
+         * @param keySerializer   the {@link Serializer} to use for the keys
+         * @param valueSerializer the {@link Serializer} to use for the values
+         * @throws UncheckedIOException if the temporary file cannot be created
+         */
+        Writer(Comparator<? super K> comparator, Serializer<K> keySerializer,
+                Serializer<V> valueSerializer) {
+            this.comparator = comparator;
+            this.keySerializer = keySerializer;
+            this.valueSerializer = valueSerializer;
+            try {
+                this.path = Files.createTempFile("collectors-", ".map");
+                this.counter = new CountingOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(path)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.output = new DataOutputStream(counter);
+        }
+
+        /**
+         * @param key   the key to write, which must be greater than the last key
+         * @param value the value to write
+         * @throws IllegalStateException if there are too many entries
+         * @throws UncheckedIOException  if writing fails
+         */
+        void write(K key, V value) {
+            if (size == Integer.MAX_VALUE) {
+                throw new IllegalStateException("Too many entries.");
+            }
+            if (size % BLOCK_SIZE == 0) {
+                startBlock(key);
+            }
+            try {
+                keySerializer.write(key, output);
+                valueSerializer.write(value, output);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            size++;
+        }
+
+        private void startBlock(K key) {
+            int block = size / BLOCK_SIZE;
+            if (block == blockKeys.length) {
+                blockKeys = Arrays.copyOf(blockKeys, block << 1);
+                blockOffsets = Arrays.copyOf(blockOffsets, block << 1);
+                blockSegments = Arrays.copyOf(blockSegments, block << 1);
+            }
+            if (counter.count - segmentStarts[segments - 1] > SEGMENT_SIZE) {
+                if (segments == segmentStarts.length) {
+                    segmentStarts = Arrays.copyOf(segmentStarts, segments << 1);
+                }
+                segmentStarts[segments++] = counter.count;
+            }
+            blockKeys[block] = key;
+            blockOffsets[block] = counter.count;
+            blockSegments[block] = segments - 1;
+        }
+
+        /**
+         * @return a read-only map over the written entries
+         * @throws UncheckedIOException if the file cannot be mapped
+         */
+        SpilledNavigableMap<K, V> finish() {
+            ByteBuffer[] buffers = new ByteBuffer[segments];
+            try {
+                output.close();
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    for (int i = 0; i < segments; i++) {
+                        long end = i + 1 < segments ? segmentStarts[i + 1] : counter.count;
+                        buffers[i] = channel.map(MapMode.READ_ONLY, segmentStarts[i],
+                                end - segmentStarts[i]);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            finished = true;
+            delete(path);
+            int blocks = (size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            return new SpilledNavigableMap<>(new Storage<>(buffers,
+                    Arrays.copyOf(segmentStarts, segments),
+                    Arrays.copyOf(blockKeys, blocks), Arrays.copyOf(blockOffsets, blocks),
+                    Arrays.copyOf(blockSegments, blocks), comparator, keySerializer,
+                    valueSerializer, size), 0, size, false);
+        }
+
+        /**
+         * Deletes the file, unless this has been finished.
+         */
+        @Override
+        public void close() {
+            if (!finished) {
+                try {
+                    output.close();
+                } catch (IOException e) {
+                    // ignored, as the file is deleted anyway
+                }
+                delete(path);
+            }
+        }
+    }
+
+    /**
+     * @param path the file to delete now, or when the JVM exits if it is still in use
+     */
+    static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            path.toFile().deleteOnExit();
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * Mutable accumulation container that buffers at most a given number of entries in a
+ * {@link KeyValueBuffer}, and spills them as a sorted run to a temporary file whenever
+ * it is full.
+ * <p>
+ * When finishing, if nothing was spilled, the result is built in memory as usual.
+ * Otherwise, the runs are merged by a k-way merge into a {@link SpilledNavigableMap},
+ * and deleted. Runs are kept in encounter order, so that the values of identical keys
+ * are still merged, or grouped, in encounter order.
+ * <p>
+ * Runs are also deleted as soon as mapping, merging or spilling an entry fails. Runs
+ * are only deleted when the collection runs to completion or fails in one of these ways,
+ * so a stream that is abandoned otherwise, such as when an upstream operation fails,
+ * leaves its runs behind.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+final class SpillingBuffer<K, V> {
+
+    private final Comparator<? super K> comparator;
+    private final BinaryOperator<V> mergeOperator;
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private final int maxBufferedEntries;
+    private final List<Path> runs = new ArrayList<>();
+    private KeyValueBuffer<K, V> buffer;
+
+    /**
+     * @param keyComparator      the {@link Comparator} to use for the keys
+     * @param mergeOperator      the {@link BinaryOperator} to use for merging values, or
+     *                           {@code null} to keep all of them
+     * @param keySerializer      the {@link Serializer} to use for the keys
+     * @param valueSerializer    the {@link Serializer} to use for the values
+     * @param maxBufferedEntries the maximum number of entries to buffer in memory
+     */
+    SpillingBuffer(Comparator<? super K> keyComparator, BinaryOperator<V> mergeOperator,
+            Serializer<K> keySerializer, Serializer<V> valueSerializer,
+            int maxBufferedEntries) {
+        this.comparator = keyComparator;
+        this.mergeOperator = mergeOperator;
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        this.maxBufferedEntries = maxBufferedEntries;
+        this.buffer = new KeyValueBuffer<>(keyComparator, mergeOperator);
+    }
+
+    /**
+     * @param maxBufferedEntries the maximum number of entries to buffer in memory
+     * @return {@code maxBufferedEntries}, if positive
+     * @throws IllegalArgumentException if {@code maxBufferedEntries} is not positive
+     */
+    static int checkMaxBufferedEntries(int maxBufferedEntries) {
+        if (maxBufferedEntries < 1) {
+            throw new IllegalArgumentException(
+                    "Maximum number of buffered entries must be positive.");
+        }
+        return maxBufferedEntries;
+    }
+
+    /**
+     * Adds an entry mapped from a stream element, and deletes the spilled runs if that
+     * fails.
+     *
+     * @param element     the stream element to add
+     * @param keyMapper   the {@link Function} to map the element as the key
+     * @param valueMapper the {@link Function} to map the element as the value
+     * @throws UncheckedIOException if spilling fails
+     */
+    <T> void add(T element, Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper) {
+        try {
+            buffer.add(keyMapper.apply(element), valueMapper.apply(element));
+            if (buffer.size() >= maxBufferedEntries) {
+                spill();
+            }
+        } catch (RuntimeException | Error e) {
+            discard();
+            throw e;
+        }
+    }
+
+    /**
+     * Combines with another buffer, whose entries were all encountered after the entries
+     * of this one. Buffered entries are merged in memory if the other buffer has not
+     * spilled, and spilled first otherwise, to keep the runs in encounter order.
+     *
+     * @param other the buffer to combine with
+     * @return this buffer
+     * @throws UncheckedIOException if spilling fails
+     */
+    SpillingBuffer<K, V> combine(SpillingBuffer<K, V> other) {
+        try {
+            if (other.runs.isEmpty()) {
+                buffer = buffer.combine(other.buffer);
+                if (buffer.size() >= maxBufferedEntries) {
+                    spill();
+                }
+            } else {
+                spill();
+                runs.addAll(other.runs);
+                other.runs.clear();
+                buffer = other.buffer;
+            }
+        } catch (RuntimeException | Error e) {
+            discard();
+            other.discard();
+            throw e;
+        }
+        return this;
+    }
+
+    /**
+     * Deletes the spilled runs, and drops the buffered entries.
+     */
+    private void discard() {
+        runs.forEach(SpilledNavigableMap::delete);
+        runs.clear();
+        buffer = new KeyValueBuffer<>(comparator, mergeOperator);
+    }
+
+    /**
+     * Writes the buffered entries as a new run, which is only kept once it is fully
+     * written, and deleted otherwise.
+     */
+    private void spill() {
+        if (buffer.size() == 0) {
+            return;
+        }
+        buffer.sort();
+        Path path;
+        try {
+            path = Files.createTempFile("collectors-", ".run");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        boolean written = false;
+        try {
+            write(path);
+            written = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (!written) {
+                SpilledNavigableMap.delete(path);
+            }
+        }
+        runs.add(path);
+        buffer = new KeyValueBuffer<>(comparator, mergeOperator);
+    }
+
+    private void write(Path path) throws IOException {
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(path)))) {
+            output.writeInt(buffer.size());
+            for (int i = 0; i < buffer.size(); i++) {
+                keySerializer.write(buffer.keyAt(i), output);
+                valueSerializer.write(buffer.valueAt(i), output);
+            }
+        }
+    }
+
+    /**
+     * @return a read-only {@link NavigableMap} over the entries, with the values of
+     * identical keys merged
+     * @throws UncheckedIOException if merging the spilled runs fails
+     */
+    NavigableMap<K, V> toNavigableMap() {
+        if (runs.isEmpty()) {
+            return buffer.toNavigableMap();
+        }
+        return merge(values -> {
+            V result = values.get(0);
+            for (int i = 1; i < values.size(); i++) {
+                result = mergeOperator.apply(result, values.get(i));
+            }
+            return result;
+        }, valueSerializer);
+    }
+
+    /**
+     * @param valueComparator the {@link Comparator} to use for the values
+     * @return a read-only {@link NavigableMap} over the entries, with the values of
+     * identical keys grouped into unmodifiable {@link List} instances
+     * @throws UncheckedIOException if merging the spilled runs fails
+     */
+    NavigableMap<K, List<V>> group(Comparator<? super V> valueComparator) {
+        GroupingOptions options = GroupingOptions.defaults().unmodifiable();
+        if (runs.isEmpty()) {
+            return buffer.group(valueComparator, options).toNavigableMap();
+        }
+        return merge(values -> options.finish(values, valueComparator),
+                Serializer.listOf(valueSerializer));
+    }
+
+    private <R> NavigableMap<K, R> merge(Function<ValueList<V>, R> finisher,
+            Serializer<R> serializer) {
+        List<Run> readers = new ArrayList<>(runs.size() + 1);
+        PriorityQueue<Run> queue = new PriorityQueue<>(runs.size() + 1, (a, b) -> {
+            int result = comparator.compare(a.key, b.key);
+            return result == 0 ? Integer.compare(a.index, b.index) : result;
+        });
+        try (SpilledNavigableMap.Writer<K, R> writer = spillAndOpen(serializer)) {
+            for (Path path : runs) {
+                Run run = new Run(readers.size(), path);
+                readers.add(run);
+                if (run.next()) {
+                    queue.add(run);
+                }
+            }
+            while (!queue.isEmpty()) {
+                K key = queue.peek().key;
+                ValueList<V> values = new ValueList<>();
+                while (!queue.isEmpty() && comparator.compare(queue.peek().key, key) == 0) {
+                    Run run = queue.poll();
+                    values.add(run.value);
+                    if (run.next()) {
+                        queue.add(run);
+                    }
+                }
+                writer.write(key, finisher.apply(values));
+            }
+            return writer.finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            for (Run run : readers) {
+                run.close();
+            }
+            discard();
+        }
+    }
+
+    private <R> SpilledNavigableMap.Writer<K, R> spillAndOpen(Serializer<R> serializer) {
+        spill();
+        return new SpilledNavigableMap.Writer<>(comparator, keySerializer, serializer);
+    }
+
+    /**
+     * Reads the entries of a spilled run in order.
+     */
+    private final class Run implements Closeable {
+
+        private final int index;
+        private final DataInputStream input;
+        private int remaining;
+        private K key;
+        private V value;
+
+        private Run(int index, Path path) throws IOException {
+            this.index = index;
+            this.input = new DataInputStream(
+                    new BufferedInputStream(Files.newInputStream(path)));
+            try {
+                this.remaining = input.readInt();
+            } catch (IOException | RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        private boolean next() throws IOException {
+            if (remaining == 0) {
+                return false;
+            }
+            remaining--;
+            key = keySerializer.read(input);
+            value = valueSerializer.read(input);
+            return true;
+        }
+
+        @Override
+        public void close() {
+            try {
+                input.close();
+            } catch (IOException e) {
+                // ignored, as the run is deleted anyway
+            }
+        }
+    }
+}
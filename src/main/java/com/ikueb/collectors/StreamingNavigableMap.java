@@ -0,0 +1,307 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Comparator;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+import static java.util.Comparator.naturalOrder;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The streaming counterpart of the one-to-one mapping {@link java.util.stream.Collector}
+ * implementations in {@link NavigableMapCollectors}, for unbounded streams: elements are
+ * accepted continuously, mapped to keys and values, and merged on identical keys, while
+ * the lowest keys are evicted by a window or a maximum size.
+ * <pre>{@code
+ * StreamingNavigableMap<Event, Long, Long> counts = StreamingNavigableMap.byWindow(
+ *         Event::getMinute, event -> 1L, naturalOrder(), Long::sum, minute -> minute - 60);
+ * events.forEach(counts);
+ * NavigableMap<Long, Long> lastHour = counts.snapshot();
+ * }</pre>
+ * Accepting an element only appends it to a lock-free queue of pending deltas, after
+ * checking that its key can be compared, so that a bad key fails on the thread that
+ * supplied it. Pending deltas are folded, with one thread at a time, into a persistent
+ * read-only map that shares all unchanged chunks of entries with its previous version,
+ * either by the thread that fills the queue up to a threshold, or when a snapshot is
+ * taken. Folding threads never block accepting threads, and eviction only drops whole
+ * chunks, besides copying the one chunk that the new lowest key falls into.
+ * <p>
+ * By default, the accepting thread that crosses the threshold pays for the fold, which
+ * sorts up to the threshold of deltas and merges them in. Where producers must not see
+ * such latency spikes, {@link #foldingOn(Executor)} hands that fold to an
+ * {@link Executor} instead, and taking snapshots regularly keeps the queue short.
+ * <p>
+ * If folding fails, such as when the merge operator throws, the deltas being folded are
+ * discarded, the exception is thrown to the folding thread, and the map keeps accepting
+ * elements.
+ * <p>
+ * A {@link #snapshot()} is an immutable, consistent view, and taking one is cheap when
+ * there are no pending deltas.
+ *
+ * @param <T> the type of stream elements
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+public final class StreamingNavigableMap<T, K, V> implements Consumer<T> {
+
+    private static final int MINIMUM_FOLD_THRESHOLD = 1024;
+
+    private final Function<? super T, ? extends K> keyMapper;
+    private final Function<? super T, ? extends V> valueMapper;
+    private final Comparator<? super K> keyComparator;
+    private final BinaryOperator<V> mergeOperator;
+    private final int maxSize;
+    private final UnaryOperator<K> windowStart;
+    private final Executor foldExecutor;
+    private final AtomicBoolean foldScheduled = new AtomicBoolean();
+    private final Queue<Entry<K, V>> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile ChunkedNavigableMap<K, V> current;
+
+    private StreamingNavigableMap(Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            Comparator<? super K> keyComparator, BinaryOperator<V> mergeOperator,
+            int maxSize, UnaryOperator<K> windowStart, Executor foldExecutor) {
+        this.keyMapper = requireNonNull(keyMapper);
+        this.valueMapper = requireNonNull(valueMapper);
+        this.keyComparator = requireNonNull(keyComparator);
+        this.mergeOperator = requireNonNull(mergeOperator);
+        this.maxSize = maxSize;
+        this.windowStart = windowStart;
+        this.foldExecutor = foldExecutor;
+        this.current = ChunkedNavigableMap.empty(keyComparator);
+    }
+
+    /**
+     * Maps stream elements to desired keys and values without eviction, assuming natural
+     * ordering on the keys.
+     *
+     * @param keyMapper     the {@link Function} to map a stream element as the target key
+     * @param valueMapper   the {@link Function} to map a stream element as the target value
+     * @param mergeOperator the {@link BinaryOperator} to use for merging values
+     * @return a new instance, where keys are only evicted by {@link #evictBefore(Object)}
+     */
+    public static <T, K extends Comparable<K>, V> StreamingNavigableMap<T, K, V> of(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            BinaryOperator<V> mergeOperator) {
+        return of(keyMapper, valueMapper, naturalOrder(), mergeOperator);
+    }
+
+    /**
+     * Maps stream elements to desired keys and values without eviction, given a
+     * {@link Comparator} for the keys.
+     *
+     * @param keyMapper     the {@link Function} to map a stream element as the target key
+     * @param valueMapper   the {@link Function} to map a stream element as the target value
+     * @param keyComparator the {@link Comparator} to use for the keys
+     * @param mergeOperator the {@link BinaryOperator} to use for merging values
+     * @return a new instance, where keys are only evicted by {@link #evictBefore(Object)}
+     */
+    public static <T, K, V> StreamingNavigableMap<T, K, V> of(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            Comparator<? super K> keyComparator,
+            BinaryOperator<V> mergeOperator) {
+        return new StreamingNavigableMap<>(keyMapper, valueMapper, keyComparator,
+                mergeOperator, Integer.MAX_VALUE, null, null);
+    }
+
+    /**
+     * Maps stream elements to desired keys and values, keeping at most
+     * {@code maxSize} keys by evicting the lowest ones.
+     *
+     * @param keyMapper     the {@link Function} to map a stream element as the target key
+     * @param valueMapper   the {@link Function} to map a stream element as the target value
+     * @param keyComparator the {@link Comparator} to use for the keys
+     * @param mergeOperator the {@link BinaryOperator} to use for merging values
+     * @param maxSize       the maximum number of keys in a snapshot
+     * @return a new instance
+     * @throws IllegalArgumentException if {@code maxSize} is not positive
+     */
+    public static <T, K, V> StreamingNavigableMap<T, K, V> bySize(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            Comparator<? super K> keyComparator,
+            BinaryOperator<V> mergeOperator,
+            int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be positive.");
+        }
+        return new StreamingNavigableMap<>(keyMapper, valueMapper, keyComparator,
+                mergeOperator, maxSize, null, null);
+    }
+
+    /**
+     * Maps stream elements to desired keys and values, keeping only the keys within a
+     * window that ends at the highest key, such as the last hour of timestamps. Keys
+     * that arrive late, below the window, are evicted too.
+     *
+     * @param keyMapper     the {@link Function} to map a stream element as the target key
+     * @param valueMapper   the {@link Function} to map a stream element as the target value
+     * @param keyComparator the {@link Comparator} to use for the keys
+     * @param mergeOperator the {@link BinaryOperator} to use for merging values
+     * @param windowStart   the {@link UnaryOperator} to derive the lowest key to keep,
+     *                      inclusive, from the highest key
+     * @return a new instance
+     */
+    public static <T, K, V> StreamingNavigableMap<T, K, V> byWindow(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper,
+            Comparator<? super K> keyComparator,
+            BinaryOperator<V> mergeOperator,
+            UnaryOperator<K> windowStart) {
+        return new StreamingNavigableMap<>(keyMapper, valueMapper, keyComparator,
+                mergeOperator, Integer.MAX_VALUE, requireNonNull(windowStart), null);
+    }
+
+    /**
+     * Creates an empty instance with the same configuration as this one, whose accepting
+     * threads only hand the folding of pending deltas to an {@link Executor}, instead of
+     * folding them inline.
+     *
+     * @param executor the {@link Executor} to fold pending deltas on
+     * @return a new instance
+     */
+    public StreamingNavigableMap<T, K, V> foldingOn(Executor executor) {
+        return new StreamingNavigableMap<>(keyMapper, valueMapper, keyComparator,
+                mergeOperator, maxSize, windowStart, requireNonNull(executor));
+    }
+
+    /**
+     * Adds a stream element as a pending delta, and folds the pending deltas if there
+     * are enough of them and no other thread is folding, or schedules the fold if
+     * {@link #foldingOn(Executor) folding on an Executor}.
+     *
+     * @param t the stream element
+     * @throws NullPointerException if the key is {@code null} and the {@link Comparator}
+     *                              does not permit it, or the value is {@code null}
+     */
+    @Override
+    public void accept(T t) {
+        K key = keyMapper.apply(t);
+        V value = requireNonNull(valueMapper.apply(t));
+        keyComparator.compare(key, key); // type (and possibly null) check
+        pending.add(new SimpleImmutableEntry<>(key, value));
+        if (pendingCount.incrementAndGet() < foldThreshold()) {
+            return;
+        }
+        if (foldExecutor == null) {
+            tryFold();
+        } else if (foldScheduled.compareAndSet(false, true)) {
+            foldExecutor.execute(() -> {
+                foldScheduled.set(false);
+                tryFold();
+            });
+        }
+    }
+
+    private void tryFold() {
+        if (lock.tryLock()) {
+            try {
+                fold();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * @return a read-only {@link NavigableMap} of all elements accepted so far, less the
+     * evicted keys
+     */
+    public NavigableMap<K, V> snapshot() {
+        if (pendingCount.get() == 0) {
+            return current;
+        }
+        lock.lock();
+        try {
+            fold();
+            return current;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Evicts all keys less than the given key, in addition to any eviction by window or
+     * size. Keys less than the given key that are accepted later are not evicted by this.
+     *
+     * @param key the lowest key to keep, inclusive
+     * @return a read-only {@link NavigableMap} of the remaining keys
+     */
+    public NavigableMap<K, V> evictBefore(K key) {
+        lock.lock();
+        try {
+            fold();
+            current = current.dropFirst(current.headMap(key, false).size());
+            return current;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int foldThreshold() {
+        return Math.max(MINIMUM_FOLD_THRESHOLD,
+                current.size() / ChunkedNavigableMap.CHUNK_SIZE);
+    }
+
+    /**
+     * Folds the pending deltas in encounter order, applies eviction, and publishes the
+     * result. This must be called while holding the lock.
+     * <p>
+     * Every polled delta is uncounted even if folding fails, so that the count never
+     * exceeds the length of the queue.
+     */
+    private void fold() {
+        int count = pendingCount.get();
+        if (count == 0) {
+            return;
+        }
+        KeyValueBuffer<K, V> deltas = new KeyValueBuffer<>(keyComparator, mergeOperator);
+        int polled = 0;
+        try {
+            while (polled < count) {
+                Entry<K, V> entry = pending.poll();
+                polled++;
+                deltas.add(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            pendingCount.addAndGet(-polled);
+        }
+        ChunkedNavigableMap<K, V> result = ChunkedNavigableMap.merge(current, deltas.sort(),
+                keyComparator, mergeOperator, value -> false);
+        if (windowStart != null && !result.isEmpty()) {
+            result = result.dropFirst(
+                    result.headMap(windowStart.apply(result.lastKey()), false).size());
+        }
+        current = result.dropFirst(result.size() - maxSize);
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Thread-safe accumulation container for the entries of a single key, which spreads
+ * concurrent additions across lazily created stripes, each holding its own buffer.
+ * <p>
+ * Like {@link java.util.concurrent.atomic.LongAdder}, it starts with a single stripe,
+ * and only adds more once threads contend for one, up to the number of available
+ * processors. Threads pick a stripe by hashing their identifier, so that a hot key does
+ * not serialize every worker thread on a single lock.
+ *
+ * @param <B> the type of buffers
+ */
+abstract class StripedBuffer<B> {
+
+    private static final int PROCESSORS = Runtime.getRuntime().availableProcessors();
+    private static final int MAXIMUM_STRIPES = PROCESSORS <= 1
+            ? 1 : Integer.highestOneBit(PROCESSORS - 1) << 1;
+
+    /**
+     * A stripe, whose buffer must only be used while holding its lock.
+     *
+     * @param <E> the type of buffers
+     */
+    static final class Stripe<E> extends ReentrantLock {
+        private static final long serialVersionUID = 1L;
+
+        E buffer;
+
+        private Stripe(E buffer) {
+            this.buffer = buffer;
+        }
+    }
+
+    private final Supplier<B> bufferSupplier;
+    private volatile Stripe<B>[] stripes;
+
+    /**
+     * @param bufferSupplier the {@link Supplier} of an empty buffer for every stripe
+     */
+    StripedBuffer(Supplier<B> bufferSupplier) {
+        this.bufferSupplier = bufferSupplier;
+        this.stripes = newStripes(1, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Stripe<B>[] newStripes(int length, Stripe<B>[] existing) {
+        Stripe<B>[] results = (Stripe<B>[]) new Stripe<?>[length];
+        int copied = existing == null ? 0 : existing.length;
+        if (copied > 0) {
+            System.arraycopy(existing, 0, results, 0, copied);
+        }
+        for (int i = copied; i < length; i++) {
+            results[i] = new Stripe<>(bufferSupplier.get());
+        }
+        return results;
+    }
+
+    private static int hash() {
+        long id = Thread.currentThread().getId();
+        int h = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @return the stripe of the current thread, locked, which the caller must unlock
+     */
+    final Stripe<B> lockStripe() {
+        int h = hash();
+        Stripe<B>[] current = stripes;
+        Stripe<B> stripe = current[h & (current.length - 1)];
+        if (!stripe.tryLock()) {
+            current = grow(current);
+            stripe = current[h & (current.length - 1)];
+            stripe.lock();
+        }
+        return stripe;
+    }
+
+    /**
+     * Doubles the number of stripes after contention, unless another thread has already
+     * done so or the maximum is reached.
+     *
+     * @param contended the stripes on which contention happened
+     * @return the stripes to use
+     */
+    private synchronized Stripe<B>[] grow(Stripe<B>[] contended) {
+        if (stripes == contended && contended.length < MAXIMUM_STRIPES) {
+            stripes = newStripes(contended.length << 1, contended);
+        }
+        return stripes;
+    }
+
+    /**
+     * Moves the buffers of another instance into the first stripe of this one.
+     *
+     * @param other    the instance to take buffers from
+     * @param combiner the {@link BinaryOperator} to combine two buffers with
+     */
+    final void combine(StripedBuffer<B> other, BinaryOperator<B> combiner) {
+        Stripe<B> stripe = stripes[0];
+        stripe.lock();
+        try {
+            for (Stripe<B> source : other.stripes) {
+                stripe.buffer = combiner.apply(stripe.buffer, source.buffer);
+            }
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * Combines the buffers of all stripes. This must only be called after accumulation
+     * has completed.
+     *
+     * @param combiner the {@link BinaryOperator} to combine two buffers with
+     * @return the combined buffer
+     */
+    final B reduce(BinaryOperator<B> combiner) {
+        Stripe<B>[] current = stripes;
+        B result = current[0].buffer;
+        for (int i = 1; i < current.length; i++) {
+            result = combiner.apply(result, current[i].buffer);
+        }
+        return result;
+    }
+}
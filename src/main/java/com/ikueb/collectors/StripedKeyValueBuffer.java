@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import java.util.Comparator;
+
+/**
+ * Thread-safe accumulation container for the sub-keys and values of a single key, which
+ * spreads concurrent additions across lazily created stripes of {@link KeyValueBuffer}
+ * instances.
+ *
+ * @param <K> the type of sub-keys
+ * @param <V> the type of values
+ * @see StripedBuffer
+ */
+final class StripedKeyValueBuffer<K, V> extends StripedBuffer<KeyValueBuffer<K, V>> {
+
+    /**
+     * @param keyComparator the {@link Comparator} to use for the sub-keys
+     */
+    StripedKeyValueBuffer(Comparator<? super K> keyComparator) {
+        super(() -> new KeyValueBuffer<>(keyComparator, null));
+    }
+
+    /**
+     * @param key   the sub-key to add
+     * @param value the value to add
+     */
+    void add(K key, V value) {
+        Stripe<KeyValueBuffer<K, V>> stripe = lockStripe();
+        try {
+            stripe.buffer.add(key, value);
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * Moves the entries of another buffer into this one.
+     *
+     * @param other the buffer to take entries from
+     * @return this buffer
+     */
+    StripedKeyValueBuffer<K, V> combine(StripedKeyValueBuffer<K, V> other) {
+        combine(other, KeyValueBuffer::combine);
+        return this;
+    }
+
+    /**
+     * Sorts and merges the stripes. This must only be called after accumulation has
+     * completed.
+     *
+     * @return the entries
+     */
+    KeyValueBuffer<K, V> toKeyValueBuffer() {
+        return reduce(KeyValueBuffer::combine);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+/**
+ * Thread-safe accumulation container for the values of a single key, which spreads
+ * concurrent additions across lazily created stripes of {@link ValueList} instances.
+ *
+ * @param <V> the type of values
+ * @see StripedBuffer
+ */
+final class StripedValueBuffer<V> extends StripedBuffer<ValueList<V>> {
+
+    StripedValueBuffer() {
+        super(ValueList::new);
+    }
+
+    /**
+     * @param value the value to add
+     */
+    void add(V value) {
+        Stripe<ValueList<V>> stripe = lockStripe();
+        try {
+            stripe.buffer.add(value);
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * Moves the values of another buffer into this one.
+     *
+     * @param other the buffer to take values from
+     * @return this buffer
+     */
+    StripedValueBuffer<V> combine(StripedValueBuffer<V> other) {
+        combine(other, ValueList::combine);
+        return this;
+    }
+
+    /**
+     * Concatenates the stripes. This must only be called after accumulation has
+     * completed.
+     *
+     * @return the values
+     */
+    ValueList<V> toValueList() {
+        return reduce(ValueList::combine);
+    }
+}
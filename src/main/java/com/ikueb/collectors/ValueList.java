@@ -0,0 +1,177 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.RandomAccess;
+
+/**
+ * Array-backed {@link java.util.List} of grouped values, which can be sorted in place
+ * without the intermediate copies of a {@link java.util.stream.Stream} pipeline, and
+ * trimmed once complete.
+ *
+ * @param <V> the type of values
+ */
+final class ValueList<V> extends AbstractList<V> implements RandomAccess {
+
+    private static final Object[] EMPTY = {};
+    private static final int MINIMUM_CAPACITY = 4;
+
+    private Object[] elements;
+    private int size;
+
+    ValueList() {
+        this.elements = EMPTY;
+    }
+
+    /**
+     * Creates a list over a copy of a range of values.
+     *
+     * @param values the values to copy
+     * @param from   the first index, inclusive
+     * @param to     the last index, exclusive
+     */
+    ValueList(Object[] values, int from, int to) {
+        this.elements = Arrays.copyOfRange(values, from, to);
+        this.size = elements.length;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > elements.length) {
+            elements = Arrays.copyOf(elements, Math.max(MINIMUM_CAPACITY,
+                    Math.max(capacity, elements.length + (elements.length >> 1))));
+        }
+    }
+
+    private void checkIndex(int index, int bound) {
+        if (index < 0 || index >= bound) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(int index) {
+        checkIndex(index, size);
+        return (V) elements[index];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V set(int index, V value) {
+        checkIndex(index, size);
+        V previous = (V) elements[index];
+        elements[index] = value;
+        return previous;
+    }
+
+    @Override
+    public boolean add(V value) {
+        ensureCapacity(size + 1);
+        elements[size++] = value;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void add(int index, V value) {
+        checkIndex(index, size + 1);
+        ensureCapacity(size + 1);
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = value;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(int index) {
+        checkIndex(index, size);
+        V previous = (V) elements[index];
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        elements[--size] = null;
+        modCount++;
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(elements, 0, size, null);
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Object[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    @Override
+    public void sort(Comparator<? super V> comparator) {
+        sort(comparator, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Sorts the values in place.
+     *
+     * @param comparator        the {@link Comparator} to use
+     * @param parallelThreshold the minimum number of values to use
+     *                          {@link Arrays#parallelSort(Object[], int, int, Comparator)}
+     *                          for
+     */
+    @SuppressWarnings("unchecked")
+    void sort(Comparator<? super V> comparator, int parallelThreshold) {
+        if (size >= parallelThreshold) {
+            Arrays.parallelSort((V[]) elements, 0, size, comparator);
+        } else {
+            Arrays.sort((V[]) elements, 0, size, comparator);
+        }
+        modCount++;
+    }
+
+    /**
+     * Appends the values of another list after the values of this one.
+     *
+     * @param other the list to append
+     * @return this list
+     */
+    ValueList<V> combine(ValueList<V> other) {
+        ensureCapacity(size + other.size);
+        System.arraycopy(other.elements, 0, elements, size, other.size);
+        size += other.size;
+        modCount++;
+        return this;
+    }
+
+    /**
+     * Trims the backing array to the number of values.
+     *
+     * @return this list
+     */
+    ValueList<V> trimToSize() {
+        if (elements.length != size) {
+            elements = size == 0 ? EMPTY : Arrays.copyOf(elements, size);
+        }
+        return this;
+    }
+}
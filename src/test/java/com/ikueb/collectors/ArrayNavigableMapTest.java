@@ -0,0 +1,213 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static com.ikueb.collectors.NavigableMapCollectors.toImmutableNavigableMap;
+import static com.ikueb.collectors.NavigableMapCollectors.toIntNavigableMap;
+import static com.ikueb.collectors.NavigableMapCollectors.toNavigableMapBySortKey;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class ArrayNavigableMapTest {
+
+    private static final int[] PROBES = IntStream.rangeClosed(-2, 42).toArray();
+
+    /**
+     * Asserts that every read-only operation on the actual map, and recursively on its
+     * views, agrees with the expected map. Range views are not nested, as
+     * {@link TreeMap} rejects out-of-range keys on those.
+     */
+    static void assertSameNavigation(NavigableMap<Integer, Integer> actual,
+            NavigableMap<Integer, Integer> expected, int depth) {
+        assertThat(actual, equalTo(expected));
+        assertThat(actual.size(), equalTo(expected.size()));
+        assertThat(new ArrayList<>(actual.entrySet()),
+                equalTo(new ArrayList<>(expected.entrySet())));
+        assertThat(new ArrayList<>(actual.descendingKeySet()),
+                equalTo(new ArrayList<>(expected.descendingKeySet())));
+        assertThat(actual.firstEntry(), equalTo(expected.firstEntry()));
+        assertThat(actual.lastEntry(), equalTo(expected.lastEntry()));
+        for (int probe : PROBES) {
+            assertThat(actual.get(probe), equalTo(expected.get(probe)));
+            assertThat(actual.lowerEntry(probe), equalTo(expected.lowerEntry(probe)));
+            assertThat(actual.floorEntry(probe), equalTo(expected.floorEntry(probe)));
+            assertThat(actual.ceilingEntry(probe), equalTo(expected.ceilingEntry(probe)));
+            assertThat(actual.higherEntry(probe), equalTo(expected.higherEntry(probe)));
+            assertThat(actual.navigableKeySet().floor(probe),
+                    equalTo(expected.navigableKeySet().floor(probe)));
+        }
+        if (depth == 0) {
+            return;
+        }
+        assertSameNavigation(actual.descendingMap(), expected.descendingMap(), depth - 1);
+        for (int i = 0; i < PROBES.length; i += 7) {
+            int low = PROBES[i];
+            boolean inclusive = i % 2 == 0;
+            assertSameNavigation(actual.headMap(low, inclusive),
+                    expected.headMap(low, inclusive), 0);
+            assertSameNavigation(actual.tailMap(low, inclusive),
+                    expected.tailMap(low, inclusive), 0);
+            for (int j = i; j < PROBES.length; j += 11) {
+                int lower = actual.comparator().compare(low, PROBES[j]) <= 0
+                        ? low : PROBES[j];
+                int upper = lower == low ? PROBES[j] : low;
+                assertSameNavigation(actual.subMap(lower, inclusive, upper, !inclusive),
+                        expected.subMap(lower, inclusive, upper, !inclusive), 0);
+            }
+        }
+    }
+
+    private static NavigableMap<Integer, Integer> randomTreeMap(long seed,
+            Comparator<Integer> comparator) {
+        NavigableMap<Integer, Integer> results = new TreeMap<>(comparator);
+        new Random(seed).ints(30, 0, 40).forEach(i -> results.put(i, -i));
+        return results;
+    }
+
+    static <K, V> List<Map.Entry<K, V>> shuffled(Map<K, V> map) {
+        List<Map.Entry<K, V>> results = new ArrayList<>(map.entrySet());
+        Collections.shuffle(results, new Random(map.size()));
+        return results;
+    }
+
+    @Test
+    public void testNavigationMatchesTreeMap() {
+        NavigableMap<Integer, Integer> expected =
+                randomTreeMap(17L, Comparator.naturalOrder());
+        assertSameNavigation(shuffled(expected).stream()
+                        .collect(toImmutableNavigableMap(Map.Entry::getKey,
+                                Map.Entry::getValue)),
+                expected, 2);
+    }
+
+    @Test
+    public void testNavigationWithComparatorMatchesTreeMap() {
+        NavigableMap<Integer, Integer> expected =
+                randomTreeMap(42L, Comparator.reverseOrder());
+        assertSameNavigation(shuffled(expected).stream()
+                        .collect(toImmutableNavigableMap(Map.Entry::getKey,
+                                Map.Entry::getValue, Comparator.reverseOrder())),
+                expected, 2);
+    }
+
+    @Test
+    public void testIntKeyNavigationMatchesTreeMap() {
+        NavigableMap<Integer, Integer> expected =
+                randomTreeMap(7L, Comparator.naturalOrder());
+        assertSameNavigation(shuffled(expected).stream()
+                        .collect(toIntNavigableMap(Map.Entry::getKey,
+                                Map.Entry::getValue)),
+                expected, 2);
+    }
+
+    @Test
+    public void testSortKeyNavigationMatchesTreeMap() {
+        NavigableMap<Integer, Integer> expected =
+                randomTreeMap(23L, Comparator.reverseOrder());
+        assertSameNavigation(shuffled(expected).stream()
+                        .collect(toNavigableMapBySortKey(Map.Entry::getKey,
+                                Map.Entry::getValue, key -> SortKeys.of(-key),
+                                SortKeys.comparator())),
+                expected, 2);
+    }
+
+    @Test
+    public void testEmptyNavigationMatchesTreeMap() {
+        assertSameNavigation(IntStream.range(0, 0).boxed()
+                        .collect(toImmutableNavigableMap(i -> i)),
+                new TreeMap<>(), 1);
+    }
+
+    @Test(expectedExceptions = NoSuchElementException.class)
+    public void testEmptyFirstKeyThrows() {
+        IntStream.range(0, 0).boxed().collect(toImmutableNavigableMap(i -> i)).firstKey();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvertedSubMapThrows() {
+        IntStream.range(0, 4).boxed()
+                .collect(toImmutableNavigableMap(i -> i))
+                .subMap(3, 1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testOutOfRangeHeadMapOnSubMapThrows() {
+        IntStream.range(0, 10).boxed()
+                .collect(toImmutableNavigableMap(i -> i))
+                .subMap(2, true, 3, true)
+                .headMap(5, true);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testOutOfRangeTailMapOnSubMapThrows() {
+        IntStream.range(0, 10).boxed()
+                .collect(toImmutableNavigableMap(i -> i))
+                .subMap(2, true, 3, true)
+                .tailMap(1, false);
+    }
+
+    private static boolean throwsOutOfRange(Runnable runnable) {
+        try {
+            runnable.run();
+            return false;
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+
+    @Test
+    public void testNestedViewBoundsMatchTreeMap() {
+        NavigableMap<Integer, Integer> expected = new TreeMap<>();
+        IntStream.range(0, 20).filter(i -> i % 3 != 0).forEach(i -> expected.put(i, i));
+        NavigableMap<Integer, Integer> actual = IntStream.range(0, 20)
+                .filter(i -> i % 3 != 0).boxed()
+                .collect(toImmutableNavigableMap(i -> i));
+        List<NavigableMap<Integer, Integer>> actualViews = Arrays.asList(
+                actual.subMap(3, false, 12, true), actual.headMap(9, false).tailMap(3, true),
+                actual.descendingMap().subMap(12, false, 3, true),
+                actual.subMap(3, true, 12, false).descendingMap());
+        List<NavigableMap<Integer, Integer>> expectedViews = Arrays.asList(
+                expected.subMap(3, false, 12, true),
+                expected.headMap(9, false).tailMap(3, true),
+                expected.descendingMap().subMap(12, false, 3, true),
+                expected.subMap(3, true, 12, false).descendingMap());
+        for (int v = 0; v < actualViews.size(); v++) {
+            NavigableMap<Integer, Integer> actualView = actualViews.get(v);
+            NavigableMap<Integer, Integer> expectedView = expectedViews.get(v);
+            for (int probe = 0; probe < 16; probe++) {
+                for (boolean inclusive : new boolean[]{true, false}) {
+                    int key = probe;
+                    boolean expectedThrows = throwsOutOfRange(
+                            () -> expectedView.headMap(key, inclusive));
+                    assertThat(throwsOutOfRange(() -> actualView.headMap(key, inclusive)),
+                            equalTo(expectedThrows));
+                    if (!expectedThrows) {
+                        assertThat(actualView.headMap(key, inclusive),
+                                equalTo(expectedView.headMap(key, inclusive)));
+                    }
+                    assertThat(throwsOutOfRange(() -> actualView.tailMap(key, inclusive)),
+                            equalTo(throwsOutOfRange(
+                                    () -> expectedView.tailMap(key, inclusive))));
+                }
+            }
+        }
+    }
+}
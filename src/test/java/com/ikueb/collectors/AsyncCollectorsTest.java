@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.ikueb.collectors.NavigableMapCollectors.*;
+import static java.util.Comparator.naturalOrder;
+import static java.util.function.Function.identity;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class AsyncCollectorsTest {
+
+    private static List<CompletableFuture<Collection<Integer>>> batches(int count, int size) {
+        return IntStream.range(0, count)
+                        .mapToObj(i -> CompletableFuture.<Collection<Integer>>supplyAsync(
+                                () -> IntStream.range(i * size, (i + 1) * size)
+                                                .boxed()
+                                                .collect(Collectors.toList())))
+                        .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testCollectAsync() throws Exception {
+        NavigableMap<Integer, List<Integer>> result = AsyncCollectors.collectAsync(
+                batches(16, 1000), groupAndSortBy(i -> i % 7)).get();
+        NavigableMap<Integer, List<Integer>> expected = IntStream.range(0, 16000)
+                                                .boxed()
+                                                .collect(groupAndSortBy(i -> i % 7));
+        assertThat(result, equalTo(expected));
+    }
+
+    @Test
+    public void testCollectAsyncInBatchOrder() throws Exception {
+        List<CompletableFuture<Collection<String>>> batches = new ArrayList<>();
+        IntStream.range(0, 4).forEach(i -> batches.add(new CompletableFuture<>()));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CompletableFuture<NavigableMap<Integer, String>> result =
+                    AsyncCollectors.collectAsync(batches,
+                            toNavigableMap(String::length, identity(), naturalOrder(),
+                                    (a, b) -> a + b),
+                            executor);
+            for (int i = batches.size() - 1; i >= 0; i--) {
+                assertThat(result.isDone(), equalTo(false));
+                batches.get(i).complete(Arrays.asList("a" + i, "bb" + i));
+            }
+            NavigableMap<Integer, String> expected = new TreeMap<>();
+            expected.put(2, "a0a1a2a3");
+            expected.put(3, "bb0bb1bb2bb3");
+            assertThat(result.get(), equalTo(expected));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testCollectAsyncWithoutBatches() throws Exception {
+        List<CompletableFuture<List<Integer>>> batches = Collections.emptyList();
+        assertThat(AsyncCollectors.collectAsync(batches, groupAndSortBy(i -> i % 7))
+                                    .get()
+                                    .isEmpty(),
+                    equalTo(true));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testFailedBatchFails() throws Throwable {
+        List<CompletableFuture<Collection<Integer>>> batches = batches(4, 10);
+        CompletableFuture<Collection<Integer>> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException());
+        batches.add(1, failed);
+        try {
+            AsyncCollectors.collectAsync(batches, groupAndSortBy(i -> i % 7)).get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+}
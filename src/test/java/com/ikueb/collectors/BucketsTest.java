@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import org.testng.annotations.Test;
+
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class BucketsTest {
+
+    private static void assertSameBuckets(Buckets buckets, double... values) {
+        TreeMap<Double, Integer> expected = new TreeMap<>();
+        IntStream.range(0, buckets.size()).forEach(i -> expected.put(buckets.boundAt(i), i));
+        for (double value : values) {
+            Double key = Double.isNaN(value) ? null : expected.floorKey(value);
+            assertThat(buckets.indexOf(value), equalTo(key == null ? -1 : expected.get(key)));
+        }
+    }
+
+    private static double[] values(double from, double to) {
+        Random random = new Random(41L);
+        return random.doubles(5000, from, to).toArray();
+    }
+
+    @Test
+    public void testLinearBuckets() {
+        Buckets buckets = Buckets.linear(-1, 0.1, 40);
+        assertSameBuckets(buckets, values(-2, 4));
+        assertSameBuckets(buckets, IntStream.range(-15, 45)
+                                        .mapToDouble(i -> -1 + i * 0.1)
+                                        .toArray());
+        assertSameBuckets(buckets, Double.NaN, Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY, Double.MAX_VALUE, -0.0, 0.0);
+    }
+
+    @Test
+    public void testExponentialBuckets() {
+        Buckets buckets = Buckets.exponential(1, 2, 30);
+        assertSameBuckets(buckets, values(0, 0x1p31));
+        assertSameBuckets(buckets, IntStream.range(0, 32).mapToDouble(i -> 1L << i).toArray());
+    }
+
+    @Test
+    public void testExplicitBuckets() {
+        Buckets buckets = Buckets.of(-10, 0, 1, 5, 100);
+        assertSameBuckets(buckets, values(-20, 200));
+        assertSameBuckets(buckets, -10, 0, 1, 5, 100, Double.NaN);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnsortedBoundsThrow() {
+        Buckets.of(0, 2, 1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testDuplicateBoundsThrow() {
+        Buckets.of(0, 1, 1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNonPositiveWidthThrows() {
+        Buckets.linear(0, 0, 10);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNonPositiveStartThrows() {
+        Buckets.exponential(0, 2, 10);
+    }
+}
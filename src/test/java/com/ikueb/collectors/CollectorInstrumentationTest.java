@@ -0,0 +1,128 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.function.BinaryOperator;
+import java.util.stream.Collector;
+import java.util.stream.IntStream;
+
+import static com.ikueb.collectors.NavigableMapCollectors.groupAndSortBy;
+import static com.ikueb.collectors.NavigableMapCollectors.groupAndSortBySpilling;
+import static com.ikueb.collectors.NavigableMapCollectors.toImmutableNavigableMap;
+import static java.util.Comparator.naturalOrder;
+import static java.util.stream.Collectors.collectingAndThen;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.testng.Assert.fail;
+
+public class CollectorInstrumentationTest {
+
+    @Test
+    public void testDisabledReturnsUnwrapped() {
+        CollectorInstrumentation instrumentation = CollectorInstrumentation.disabled();
+        Comparator<Integer> comparator = naturalOrder();
+        BinaryOperator<Integer> mergeOperator = Integer::sum;
+        Collector<Integer, ?, NavigableMap<Integer, List<Integer>>> collector =
+                groupAndSortBy(i -> i);
+        assertThat(instrumentation.isEnabled(), equalTo(false));
+        assertThat(instrumentation.comparator(comparator), sameInstance(comparator));
+        assertThat(instrumentation.mergeOperator(mergeOperator), sameInstance(mergeOperator));
+        assertThat(instrumentation.instrumented(collector), sameInstance(collector));
+    }
+
+    @Test
+    public void testGroupingStats() {
+        List<CollectorStats> results = new ArrayList<>();
+        CollectorInstrumentation instrumentation = CollectorInstrumentation.of("grouping",
+                (name, stats) -> results.add(stats));
+        NavigableMap<Integer, List<Integer>> result = IntStream.range(0, 100)
+                .boxed()
+                .collect(instrumentation.instrumented(groupAndSortBy(i -> i % 3, i -> i,
+                        instrumentation.comparator(Comparator.<Integer>naturalOrder()),
+                        naturalOrder())));
+        assertThat(result.get(0).size(), equalTo(34));
+        assertThat(results.size(), equalTo(1));
+        CollectorStats stats = results.get(0);
+        assertThat(stats.accumulated(), equalTo(100L));
+        assertThat(stats.distinctKeys(), equalTo(3L));
+        assertThat(stats.largestGroup(), equalTo(34L));
+        assertThat(stats.merges(), equalTo(0L));
+        assertThat(stats.comparisons() > 0, equalTo(true));
+    }
+
+    @Test
+    public void testMergingStatsAreResetPerCollection() {
+        List<CollectorStats> results = new ArrayList<>();
+        CollectorInstrumentation instrumentation = CollectorInstrumentation.of("merging",
+                (name, stats) -> results.add(stats));
+        Collector<Integer, ?, NavigableMap<Integer, Integer>> collector =
+                instrumentation.instrumented(toImmutableNavigableMap(i -> i % 4, i -> i,
+                        naturalOrder(), instrumentation.mergeOperator(Integer::sum)));
+        for (int i = 0; i < 2; i++) {
+            assertThat(IntStream.range(0, 10).boxed().collect(collector).get(1),
+                    equalTo(1 + 5 + 9));
+        }
+        assertThat(results.size(), equalTo(2));
+        for (CollectorStats stats : results) {
+            assertThat(stats.accumulated(), equalTo(10L));
+            assertThat(stats.distinctKeys(), equalTo(4L));
+            assertThat(stats.largestGroup(), equalTo(-1L));
+            assertThat(stats.merges(), equalTo(6L));
+        }
+    }
+
+    @Test
+    public void testSpilledGroupingStatsSkipLargestGroup() {
+        List<CollectorStats> results = new ArrayList<>();
+        CollectorInstrumentation instrumentation = CollectorInstrumentation.of("spilling",
+                (name, stats) -> results.add(stats));
+        NavigableMap<Integer, List<Integer>> result = IntStream.range(0, 100)
+                .boxed()
+                .collect(instrumentation.instrumented(groupAndSortBySpilling(i -> i % 3,
+                        i -> i, Serializer.integers(), Serializer.integers(), 10)));
+        assertThat(result.get(0).size(), equalTo(34));
+        assertThat(results.size(), equalTo(1));
+        assertThat(results.get(0).distinctKeys(), equalTo(3L));
+        assertThat(results.get(0).largestGroup(), equalTo(-1L));
+    }
+
+    @Test
+    public void testStatsAreResetWhenFinisherFails() {
+        List<CollectorStats> results = new ArrayList<>();
+        CollectorInstrumentation instrumentation = CollectorInstrumentation.of("failing",
+                (name, stats) -> results.add(stats));
+        try {
+            IntStream.range(0, 10).boxed().collect(instrumentation.instrumented(
+                    collectingAndThen(toImmutableNavigableMap(i -> i), map -> {
+                        throw new IllegalStateException();
+                    })));
+            fail("Expecting the finisher to fail.");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        IntStream.range(0, 4).boxed()
+                .collect(instrumentation.instrumented(toImmutableNavigableMap(i -> i)));
+        assertThat(results.size(), equalTo(1));
+        assertThat(results.get(0).accumulated(), equalTo(4L));
+    }
+}
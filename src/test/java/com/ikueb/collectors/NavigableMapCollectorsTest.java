@@ -17,8 +17,18 @@ package com.ikueb.collectors;
 
 import org.testng.annotations.Test;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -87,6 +97,22 @@ public class NavigableMapCollectorsTest {
         IntStream.range(0, 4).boxed().collect(toNavigableMap(i -> 0));
     }
 
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNullKeyMappingThrows() {
+        IntStream.range(0, 1).boxed().collect(toNavigableMap(i -> (Integer) null));
+    }
+
+    @Test
+    public void testNullKeyMappingWithNullsFirstComparison() {
+        assertMapOrdering(IntStream.range(0, 2)
+                                    .boxed()
+                                    .collect(toNavigableMap(i -> i == 0 ? null : i,
+                                                i -> i,
+                                                Comparator.nullsFirst(naturalOrder()))),
+                            asNavigableMap(Comparator.nullsFirst(naturalOrder()),
+                                            null, 0, 1, 1));
+    }
+
     @Test
     public void testKeyMapping() {
         assertMapOrdering(IntStream.range(0, 4)
@@ -127,6 +153,344 @@ public class NavigableMapCollectorsTest {
                                             1, -4, 0, -2));
     }
 
+    @Test
+    public void testParallelKeyValueMappingWithValueMerger() {
+        NavigableMap<Integer, String> expected = new TreeMap<>();
+        IntStream.range(0, 10000).forEach(
+                i -> expected.merge(i % 997, Integer.toString(i), String::concat));
+        NavigableMap<Integer, String> result = IntStream.range(0, 10000)
+                                                .boxed()
+                                                .parallel()
+                                                .collect(toNavigableMap(i -> i % 997,
+                                                            i -> Integer.toString(i),
+                                                            naturalOrder(),
+                                                            String::concat));
+        assertMapOrdering(result, expected);
+        assertThat(result.put(-1, ""), equalTo(null));
+    }
+
+    @Test
+    public void testSortedKeyMappingComparesOncePerElement() {
+        AtomicInteger comparisons = new AtomicInteger();
+        Comparator<Integer> comparator = (a, b) -> {
+            comparisons.incrementAndGet();
+            return Integer.compare(a, b);
+        };
+        NavigableMap<Integer, Integer> result = IntStream.range(0, 10000)
+                                                .boxed()
+                                                .collect(toNavigableMap(i -> i / 2, i -> i,
+                                                            comparator, Integer::sum));
+        assertThat(comparisons.get(), equalTo(10000));
+        assertThat(result.size(), equalTo(5000));
+        assertThat(result.get(4999), equalTo(19997));
+    }
+
+    @Test
+    public void testSortedKeyValueMappingWithValueMerger() {
+        NavigableMap<Integer, String> expected = new TreeMap<>();
+        IntStream.range(0, 10000).forEach(
+                i -> expected.merge(i / 3, Integer.toString(i), String::concat));
+        NavigableMap<Integer, String> result = IntStream.range(0, 10000)
+                                                .boxed()
+                                                .parallel()
+                                                .collect(toNavigableMapFromSorted(i -> i / 3,
+                                                            i -> Integer.toString(i),
+                                                            naturalOrder(),
+                                                            String::concat));
+        assertMapOrdering(result, expected);
+        assertThat(result.put(-1, ""), equalTo(null));
+    }
+
+    @Test
+    public void testSortedKeyMapping() {
+        assertMapOrdering(IntStream.range(0, 4)
+                                    .boxed()
+                                    .collect(toNavigableMapFromSorted(i -> 4 - i, i -> i,
+                                                Comparator.reverseOrder())),
+                            asNavigableMap(Comparator.reverseOrder(), 4, 0, 3, 1, 2, 2, 1, 3));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testUnsortedKeyMappingThrows() {
+        IntStream.range(0, 4).boxed().collect(toNavigableMapFromSorted(i -> i % 3));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testParallelUnsortedKeyMappingThrows() {
+        IntStream.range(0, 10000)
+                .boxed()
+                .parallel()
+                .collect(toNavigableMapFromSorted(i -> i % 5000));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testDuplicateImmutableKeyMappingThrows() {
+        IntStream.range(0, 4).boxed().collect(toImmutableNavigableMap(i -> 0));
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testImmutableMappingIsReadOnly() {
+        IntStream.range(0, 4).boxed()
+                .collect(toImmutableNavigableMap(i -> 4 - i))
+                .put(5, 5);
+    }
+
+    @Test
+    public void testImmutableKeyMapping() {
+        assertMapOrdering(IntStream.range(0, 4)
+                                    .boxed()
+                                    .collect(toImmutableNavigableMap(i -> 4 - i)),
+                            asNavigableMap(1, 3, 2, 2, 3, 1, 4, 0));
+    }
+
+    @Test
+    public void testImmutableKeyValueMapping() {
+        assertMapOrdering(IntStream.range(0, 4)
+                                    .boxed()
+                                    .collect(toImmutableNavigableMap(i -> 4 - i,
+                                                Math::incrementExact)),
+                            asNavigableMap(1, 4, 2, 3, 3, 2, 4, 1));
+    }
+
+    @Test
+    public void testImmutableKeyValueMappingWithKeyComparison() {
+        assertMapOrdering(IntStream.range(0, 4)
+                                    .boxed()
+                                    .collect(toImmutableNavigableMap(i -> 4 - i,
+                                                Math::decrementExact,
+                                                Comparator.reverseOrder())),
+                            asNavigableMap(Comparator.reverseOrder(),
+                                            1, 2, 2, 1, 3, 0, 4, -1));
+    }
+
+    @Test
+    public void testImmutableKeyValueMappingWithKeyComparisonAndValueMerger() {
+        NavigableMap<Integer, String> expected = new TreeMap<>(Comparator.reverseOrder());
+        IntStream.range(0, 100).forEach(
+                i -> expected.merge(i % 2, Integer.toString(i), String::concat));
+        assertMapOrdering(IntStream.range(0, 100)
+                                    .boxed()
+                                    .parallel()
+                                    .collect(toImmutableNavigableMap(i -> i % 2,
+                                                i -> Integer.toString(i),
+                                                Comparator.reverseOrder(),
+                                                String::concat)),
+                            expected);
+    }
+
+    @Test
+    public void testSortKeyMappingDerivesSortKeysOnce() {
+        AtomicInteger derivations = new AtomicInteger();
+        Comparator<String> comparator = Comparator.comparing(String::length)
+                                            .thenComparing(naturalOrder());
+        NavigableMap<String, Integer> expected = IntStream.range(0, 10000)
+                                                .boxed()
+                                                .collect(toNavigableMap(
+                                                            i -> Integer.toString(i % 5000, 7),
+                                                            i -> i, comparator, Integer::sum));
+        NavigableMap<String, Integer> result = IntStream.range(0, 10000)
+                                                .boxed()
+                                                .parallel()
+                                                .collect(toNavigableMapBySortKey(
+                                                            i -> Integer.toString(i % 5000, 7),
+                                                            i -> i,
+                                                            key -> {
+                                                                derivations.incrementAndGet();
+                                                                return SortKeys.tuple(
+                                                                        SortKeys.of(key.length()),
+                                                                        SortKeys.of(key));
+                                                            },
+                                                            SortKeys.comparator(),
+                                                            Integer::sum));
+        assertThat(derivations.get(), equalTo(10000));
+        assertThat(new ArrayList<>(result.keySet()), equalTo(new ArrayList<>(expected.keySet())));
+        assertThat(new ArrayList<>(result.values()), equalTo(new ArrayList<>(expected.values())));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testDuplicateSortKeyMappingThrows() {
+        IntStream.range(0, 4).boxed().collect(toNavigableMapBySortKey(i -> i, i -> i,
+                i -> i % 2));
+    }
+
+    @Test
+    public void testGroupingBySortKey() {
+        assertMapOrdering(IntStream.range(0, 10)
+                                    .boxed()
+                                    .collect(groupAndSortBySortKey(i -> i % 3, i -> i,
+                                                i -> -i, Comparator.reverseOrder())),
+                            combineToNavigableMap(Comparator.reverseOrder(),
+                                                    toMap(0, 9, 6, 3, 0), toMap(1, 7, 4, 1),
+                                                    toMap(2, 8, 5, 2)));
+    }
+
+    @Test
+    public void testRadixKeyValueMappingWithValueMerger() {
+        Random random = new Random(11L);
+        List<String> keys = IntStream.range(0, 20000)
+                                .mapToObj(i -> "key-" + random.nextInt(100)
+                                                + (random.nextBoolean() ? "" : "\u0000")
+                                                + Integer.toString(random.nextInt(500), 36))
+                                .collect(Collectors.toList());
+        NavigableMap<String, String> expected = new TreeMap<>();
+        IntStream.range(0, keys.size()).forEach(
+                i -> expected.merge(keys.get(i), Integer.toString(i), String::concat));
+        NavigableMap<String, String> result = IntStream.range(0, keys.size())
+                                                .boxed()
+                                                .parallel()
+                                                .collect(toRadixNavigableMap(keys::get,
+                                                            i -> Integer.toString(i),
+                                                            SortKeys::of,
+                                                            String::concat));
+        assertMapOrdering(result, expected);
+        assertThat(result.floorKey("key-5"), equalTo(expected.floorKey("key-5")));
+    }
+
+    @Test
+    public void testRadixKeyMapping() {
+        long[] keys = new Random(13L).longs(5000).map(i -> i >> (i & 63)).distinct().toArray();
+        NavigableMap<Long, Long> expected = new TreeMap<>();
+        stream(keys).forEach(key -> expected.put(key, key));
+        assertMapOrdering(stream(keys).boxed()
+                                    .collect(toRadixNavigableMap(key -> key)),
+                            expected);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnsupportedRadixKeyMappingThrows() {
+        IntStream.range(0, 4).boxed().collect(toRadixNavigableMap(i -> (short) (int) i));
+    }
+
+    @Test
+    public void testSpillingKeyValueMappingWithValueMerger() {
+        long[] keys = new Random(19L).longs(20000, -3000, 3000).toArray();
+        NavigableMap<Long, String> expected = new TreeMap<>();
+        IntStream.range(0, keys.length).forEach(
+                i -> expected.merge(keys[i], Integer.toString(i), String::concat));
+        NavigableMap<Long, String> result = IntStream.range(0, keys.length)
+                                                .boxed()
+                                                .parallel()
+                                                .collect(toNavigableMapSpilling(i -> keys[i],
+                                                            i -> Integer.toString(i),
+                                                            naturalOrder(),
+                                                            String::concat,
+                                                            Serializer.longs(),
+                                                            Serializer.strings(),
+                                                            500));
+        assertMapOrdering(result, expected);
+        for (long key = -3100; key <= 3100; key += 7) {
+            assertThat(result.floorKey(key), equalTo(expected.floorKey(key)));
+            assertThat(result.higherKey(key), equalTo(expected.higherKey(key)));
+            assertThat(result.get(key), equalTo(expected.get(key)));
+        }
+        assertMapOrdering(result.subMap(-1234L, true, 567L, false),
+                            expected.subMap(-1234L, true, 567L, false));
+        assertMapOrdering(result.headMap(42L, true).descendingMap(),
+                            expected.headMap(42L, true).descendingMap());
+    }
+
+    @Test
+    public void testSpillingKeyValueMappingWithinBudget() {
+        NavigableMap<String, Integer> expected = new TreeMap<>();
+        IntStream.range(0, 4).forEach(i -> expected.put("key-" + i, i));
+        NavigableMap<String, Integer> result = IntStream.range(0, 4)
+                                                .boxed()
+                                                .collect(toNavigableMapSpilling(i -> "key-" + i,
+                                                            i -> i, Serializer.strings(),
+                                                            Serializer.integers(), 10));
+        assertMapOrdering(result, expected);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testSpillingWithoutBudgetThrows() {
+        IntStream.range(0, 4).boxed().collect(toNavigableMapSpilling(i -> i, i -> i,
+                Serializer.integers(), Serializer.integers(), 0));
+    }
+
+    private static Set<Path> spilledRuns() {
+        try (DirectoryStream<Path> runs = Files.newDirectoryStream(
+                Paths.get(System.getProperty("java.io.tmpdir")), "collectors-*.run")) {
+            Set<Path> results = new HashSet<>();
+            runs.forEach(results::add);
+            return results;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void assertNoRunsLeftBehind(Runnable failingCollection) {
+        Set<Path> before = spilledRuns();
+        try {
+            failingCollection.run();
+            fail("Expecting the collection to fail.");
+        } catch (IllegalStateException | UncheckedIOException e) {
+            // expected
+        }
+        Set<Path> after = spilledRuns();
+        after.removeAll(before);
+        assertThat(after, equalTo(Collections.emptySet()));
+    }
+
+    @Test
+    public void testFailedSpillingDeletesRuns() {
+        assertNoRunsLeftBehind(() -> IntStream.range(0, 1000)
+                                        .boxed()
+                                        .collect(toNavigableMapSpilling(i -> {
+                                                    if (i == 900) {
+                                                        throw new IllegalStateException();
+                                                    }
+                                                    return i;
+                                                }, i -> i, Serializer.integers(),
+                                                Serializer.integers(), 100)));
+        assertNoRunsLeftBehind(() -> IntStream.range(0, 1000)
+                                        .boxed()
+                                        .collect(toNavigableMapSpilling(i -> i % 10, i -> i,
+                                                naturalOrder(), (a, b) -> {
+                                                    throw new IllegalStateException();
+                                                }, Serializer.integers(),
+                                                Serializer.integers(), 5)));
+        Serializer<Integer> failing = new Serializer<Integer>() {
+            @Override
+            public void write(Integer value, DataOutput output) throws IOException {
+                if (value == 500) {
+                    throw new IOException();
+                }
+                output.writeInt(value);
+            }
+
+            @Override
+            public Integer read(DataInput input) throws IOException {
+                return input.readInt();
+            }
+        };
+        assertNoRunsLeftBehind(() -> IntStream.range(0, 1000)
+                                        .boxed()
+                                        .collect(groupAndSortBySpilling(i -> i, i -> i,
+                                                failing, Serializer.integers(), 100)));
+    }
+
+    @Test
+    public void testGroupingWithSpilling() {
+        Random random = new Random(23L);
+        List<String> keys = IntStream.range(0, 10000)
+                                .mapToObj(i -> "key-" + random.nextInt(400))
+                                .collect(Collectors.toList());
+        NavigableMap<String, List<Integer>> expected = new TreeMap<>();
+        IntStream.range(0, keys.size()).forEach(
+                i -> expected.computeIfAbsent(keys.get(i), k -> new ArrayList<>()).add(i % 10));
+        expected.values().forEach(values -> values.sort(naturalOrder()));
+        NavigableMap<String, List<Integer>> result = IntStream.range(0, keys.size())
+                                                        .boxed()
+                                                        .parallel()
+                                                        .collect(groupAndSortBySpilling(
+                                                                keys::get, i -> i % 10,
+                                                                Serializer.strings(),
+                                                                Serializer.integers(), 300));
+        assertMapOrdering(result, expected);
+        assertThat(result.ceilingKey("key-2"), equalTo(expected.ceilingKey("key-2")));
+        assertThat(result.lastEntry(), equalTo(expected.lastEntry()));
+    }
+
     @Test(expectedExceptions = IllegalStateException.class)
     public void testDuplicateConcurrentKeyMappingThrows() {
         IntStream.range(0, 4).boxed().collect(toNavigableMap(i -> 0));
@@ -172,6 +536,123 @@ public class NavigableMapCollectorsTest {
                                             1, -4, 0, -2));
     }
 
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testDuplicateMergingConcurrentKeyMappingThrows() {
+        IntStream.range(0, 4).boxed().collect(toConcurrentNavigableMapMerging(i -> 0));
+    }
+
+    @Test
+    public void testMergingConcurrentKeyValueMapping() {
+        assertMapOrdering(IntStream.range(0, 4)
+                                    .boxed()
+                                    .collect(toConcurrentNavigableMapMerging(i -> 4 - i,
+                                                Math::incrementExact)),
+                            asNavigableMap(1, 4, 2, 3, 3, 2, 4, 1));
+    }
+
+    @Test
+    public void testParallelMergingConcurrentKeyValueMappingWithValueMerger() {
+        NavigableMap<Integer, String> expected = new TreeMap<>(Comparator.reverseOrder());
+        IntStream.range(0, 50000).forEach(
+                i -> expected.merge(i % 4999, Integer.toString(i), String::concat));
+        NavigableMap<Integer, String> result = IntStream.range(0, 50000)
+                                                .boxed()
+                                                .parallel()
+                                                .collect(toConcurrentNavigableMapMerging(
+                                                            i -> i % 4999,
+                                                            i -> Integer.toString(i),
+                                                            Comparator.reverseOrder(),
+                                                            String::concat));
+        assertMapOrdering(result, expected);
+        assertThat(result.put(-1, ""), equalTo(null));
+    }
+
+    private static NavigableMap<Integer, Integer> mergeDeltas(
+            NavigableMap<Integer, Integer> previous, int[] keys, int[] deltas) {
+        NavigableMap<Integer, Integer> results = new TreeMap<>(previous);
+        IntStream.range(0, keys.length).forEach(
+                i -> results.merge(keys[i], deltas[i], Integer::sum));
+        results.values().removeIf(value -> value == 0);
+        return results;
+    }
+
+    @Test
+    public void testMergingIntoNavigableMap() {
+        NavigableMap<Integer, Integer> target = new TreeMap<>(Comparator.reverseOrder());
+        IntStream.range(0, 100).forEach(i -> target.put(i, 1));
+        int[] keys = new Random(29L).ints(1000, 50, 150).toArray();
+        int[] deltas = stream(keys).map(key -> key % 3 - 1).toArray();
+        NavigableMap<Integer, Integer> expected = mergeDeltas(target, keys, deltas);
+        TreeMap<Integer, Integer> result = IntStream.range(0, keys.length)
+                                            .boxed()
+                                            .parallel()
+                                            .collect(mergeIntoNavigableMap(
+                                                        (TreeMap<Integer, Integer>) target,
+                                                        i -> keys[i], i -> deltas[i],
+                                                        Integer::sum, value -> value == 0));
+        assertThat(result == target, equalTo(true));
+        assertMapOrdering(result, expected);
+    }
+
+    @Test
+    public void testMergingIntoConcurrentNavigableMap() {
+        ConcurrentSkipListMap<Integer, Integer> target = new ConcurrentSkipListMap<>();
+        IntStream.range(0, 100).forEach(i -> target.put(i, 1));
+        int[] keys = new Random(31L).ints(20000, 50, 150).toArray();
+        int[] deltas = stream(keys).map(key -> key % 3 - 1).toArray();
+        NavigableMap<Integer, Integer> expected = mergeDeltas(target, keys, deltas);
+        ConcurrentSkipListMap<Integer, Integer> result = IntStream.range(0, keys.length)
+                                                            .boxed()
+                                                            .parallel()
+                                                            .collect(
+                                                                mergeIntoConcurrentNavigableMap(
+                                                                    target, i -> keys[i],
+                                                                    i -> deltas[i],
+                                                                    Integer::sum,
+                                                                    value -> value == 0));
+        assertThat(result == target, equalTo(true));
+        assertMapOrdering(result, expected);
+    }
+
+    @Test
+    public void testMergingIntoImmutableNavigableMap() {
+        Random random = new Random(37L);
+        NavigableMap<Integer, Integer> initial = new TreeMap<>();
+        IntStream.range(0, 5000).forEach(i -> initial.put(i * 2, 1));
+        NavigableMap<Integer, Integer> expected = initial;
+        NavigableMap<Integer, Integer> result = initial;
+        for (int round = 0; round < 5; round++) {
+            int[] keys = random.ints(round == 4 ? 8000 : 300, -100, 10100).toArray();
+            int[] deltas = stream(keys).map(key -> key % 2 == 0 ? -1 : 1).toArray();
+            NavigableMap<Integer, Integer> previous = result;
+            NavigableMap<Integer, Integer> snapshot = new TreeMap<>(previous);
+            result = IntStream.range(0, keys.length)
+                        .boxed()
+                        .parallel()
+                        .collect(mergeIntoImmutableNavigableMap(previous, i -> keys[i],
+                                    i -> deltas[i], Integer::sum, value -> value == 0));
+            expected = mergeDeltas(expected, keys, deltas);
+            assertMapOrdering(result, expected);
+            assertMapOrdering(previous, snapshot);
+        }
+        for (int key = -200; key < 10200; key += 37) {
+            assertThat(result.floorKey(key), equalTo(expected.floorKey(key)));
+            assertThat(result.get(key), equalTo(expected.get(key)));
+        }
+        assertMapOrdering(result.subMap(1234, true, 5678, false).descendingMap(),
+                            expected.subMap(1234, true, 5678, false).descendingMap());
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testMergingIntoImmutableNavigableMapIsReadOnly() {
+        NavigableMap<Integer, Integer> result = IntStream.range(0, 4)
+                                                    .boxed()
+                                                    .collect(mergeIntoImmutableNavigableMap(
+                                                                new TreeMap<>(), i -> i,
+                                                                i -> i, Integer::sum));
+        result.put(4, 4);
+    }
+
     @Test
     public void testGroupingKeyMapping() {
         assertMapOrdering(IntStream.range(0, 4)
@@ -199,6 +680,224 @@ public class NavigableMapCollectorsTest {
                                                     toMap(3, 9, 3), toMap(2, 6, 0)));
     }
 
+    @Test
+    public void testGroupingValuesAreModifiable() {
+        NavigableMap<Integer, List<Integer>> result = IntStream.range(0, 4)
+                                                .boxed()
+                                                .collect(groupAndSortBy(i -> i % 2));
+        result.get(0).add(4);
+        assertThat(result.get(0), equalTo(Arrays.asList(0, 2, 4)));
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testUnmodifiableGroupingValues() {
+        IntStream.range(0, 4)
+                .boxed()
+                .collect(groupAndSortBy(i -> i % 2, i -> i, naturalOrder(),
+                            naturalOrder(), GroupingOptions.defaults().unmodifiable()))
+                .get(0)
+                .add(4);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidParallelSortThresholdThrows() {
+        GroupingOptions.defaults().parallelSortThreshold(0);
+    }
+
+    @Test
+    public void testGroupingKeyValueMappingWithParallelSort() {
+        NavigableMap<Integer, List<Integer>> expected = IntStream.range(0, 50000)
+                                                .boxed()
+                                                .collect(groupAndSortBy(i -> i % 3,
+                                                            i -> (i * 7919) % 50000,
+                                                            Comparator.reverseOrder(),
+                                                            Comparator.reverseOrder()));
+        GroupingOptions options = GroupingOptions.defaults().parallelSortThreshold(1000);
+        assertMapOrdering(IntStream.range(0, 50000)
+                                    .boxed()
+                                    .parallel()
+                                    .collect(groupAndSortBy(i -> i % 3,
+                                                i -> (i * 7919) % 50000,
+                                                Comparator.reverseOrder(),
+                                                Comparator.reverseOrder(), options)),
+                            expected);
+        assertMapOrdering(IntStream.range(0, 50000)
+                                    .boxed()
+                                    .parallel()
+                                    .collect(groupAndSortByConcurrent(i -> i % 3,
+                                                i -> (i * 7919) % 50000,
+                                                Comparator.reverseOrder(),
+                                                Comparator.reverseOrder(), options)),
+                            expected);
+    }
+
+    @Test
+    public void testLazilySortedGroupingValues() {
+        AtomicInteger comparisons = new AtomicInteger();
+        Comparator<Integer> comparator = (a, b) -> {
+            comparisons.incrementAndGet();
+            return Integer.compare(a, b);
+        };
+        NavigableMap<Integer, List<Integer>> result = IntStream.range(0, 10000)
+                                                .map(i -> (i * 7919) % 10000)
+                                                .boxed()
+                                                .collect(groupAndSortBy(i -> i % 10, i -> i,
+                                                            naturalOrder(), comparator,
+                                                            GroupingOptions.defaults().lazy()));
+        assertThat(comparisons.get(), equalTo(0));
+        List<Integer> first = result.firstEntry().getValue();
+        IntStream.range(0, first.size())
+                .parallel()
+                .forEach(i -> assertThat(first.get(i), equalTo(i * 10)));
+        int sorted = comparisons.get();
+        assertThat(sorted > 0, equalTo(true));
+        assertThat(result.get(1).size(), equalTo(1000));
+        assertThat(comparisons.get(), equalTo(sorted));
+        assertMapOrdering(result, IntStream.range(0, 10000)
+                                            .boxed()
+                                            .collect(groupAndSortBy(i -> i % 10)));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidGroupingLimitThrows() {
+        IntStream.range(0, 4)
+                .boxed()
+                .collect(groupAndSortBy(i -> i, i -> i, naturalOrder(), naturalOrder(), 0));
+    }
+
+    @Test
+    public void testGroupingKeyValueMappingWithLimit() {
+        assertMapOrdering(IntStream.range(0, 10)
+                                    .boxed()
+                                    .collect(groupAndSortBy(i -> i % 2, i -> i,
+                                                Comparator.reverseOrder(),
+                                                Comparator.reverseOrder(), 3)),
+                            combineToNavigableMap(Comparator.reverseOrder(),
+                                                    toMap(1, 9, 7, 5), toMap(0, 8, 6, 4)));
+    }
+
+    @Test
+    public void testParallelGroupingKeyValueMappingWithLimitIsStable() {
+        Comparator<int[]> byValue = Comparator.comparingInt(pair -> pair[1]);
+        NavigableMap<Integer, List<int[]>> expected = IntStream.range(0, 50000)
+                                                .mapToObj(i -> new int[] { i, (i * 7919) % 50 })
+                                                .collect(groupAndSortBy(pair -> pair[0] % 7,
+                                                            pair -> pair, naturalOrder(), byValue));
+        NavigableMap<Integer, List<int[]>> sequential = IntStream.range(0, 50000)
+                                                .mapToObj(i -> new int[] { i, (i * 7919) % 50 })
+                                                .collect(groupAndSortBy(pair -> pair[0] % 7,
+                                                            pair -> pair, naturalOrder(), byValue, 25));
+        NavigableMap<Integer, List<int[]>> parallel = IntStream.range(0, 50000)
+                                                .parallel()
+                                                .mapToObj(i -> new int[] { i, (i * 7919) % 50 })
+                                                .collect(groupAndSortBy(pair -> pair[0] % 7,
+                                                            pair -> pair, naturalOrder(), byValue, 25));
+        for (NavigableMap<Integer, List<int[]>> result : Arrays.asList(sequential, parallel)) {
+            assertThat(result.keySet(), equalTo(expected.keySet()));
+            expected.forEach((key, values) -> assertThat(
+                    result.get(key).stream().map(pair -> pair[0]).collect(Collectors.toList()),
+                    equalTo(values.subList(0, 25).stream().map(pair -> pair[0])
+                                .collect(Collectors.toList()))));
+        }
+    }
+
+    @Test
+    public void testGroupingKeyMappingWithDownstream() {
+        NavigableMap<Integer, String> expected = new TreeMap<>();
+        expected.put(0, "0369");
+        expected.put(1, "147");
+        expected.put(2, "258");
+        assertMapOrdering(IntStream.range(0, 10)
+                                    .boxed()
+                                    .collect(groupAndSortBy(i -> i % 3,
+                                                Collectors.mapping(String::valueOf,
+                                                        Collectors.joining()))),
+                            expected);
+    }
+
+    @Test
+    public void testCounting() {
+        NavigableMap<Integer, Long> expected = new TreeMap<>(Comparator.reverseOrder());
+        IntStream.range(0, 50000).forEach(i -> expected.merge(i % 97, 1L, Long::sum));
+        assertMapOrdering(IntStream.range(0, 50000)
+                                    .boxed()
+                                    .parallel()
+                                    .collect(groupAndCountBy(i -> i % 97,
+                                                Comparator.reverseOrder())),
+                            expected);
+        assertMapOrdering(IntStream.range(0, 50000)
+                                    .boxed()
+                                    .parallel()
+                                    .collect(groupAndCountByConcurrent(i -> i % 97,
+                                                Comparator.reverseOrder())),
+                            expected);
+    }
+
+    @Test
+    public void testSumming() {
+        NavigableMap<Integer, Long> expected = new TreeMap<>();
+        IntStream.range(0, 50000).forEach(i -> expected.merge(i % 97, (long) i, Long::sum));
+        assertMapOrdering(IntStream.range(0, 50000)
+                                    .boxed()
+                                    .parallel()
+                                    .collect(groupAndSumLongBy(i -> i % 97, naturalOrder(),
+                                                i -> i)),
+                            expected);
+        assertMapOrdering(IntStream.range(0, 50000)
+                                    .boxed()
+                                    .parallel()
+                                    .collect(groupAndSumLongByConcurrent(i -> i % 97,
+                                                naturalOrder(), i -> i)),
+                            expected);
+        NavigableMap<Integer, Double> doubles = IntStream.range(0, 50000)
+                                                .boxed()
+                                                .parallel()
+                                                .collect(groupAndSumDoubleByConcurrent(
+                                                            i -> i % 97, naturalOrder(),
+                                                            i -> i / 2.0));
+        expected.forEach((key, sum) -> assertThat(doubles.get(key), equalTo(sum / 2.0)));
+        NavigableMap<Integer, Double> sequential = IntStream.range(0, 50000)
+                                                .boxed()
+                                                .collect(groupAndSumDoubleBy(i -> i % 97,
+                                                            naturalOrder(), i -> i / 2.0));
+        assertMapOrdering(sequential, doubles);
+    }
+
+    @Test
+    public void testSummarizing() {
+        NavigableMap<Integer, LongSummaryStatistics> longs = IntStream.range(0, 10)
+                                                .boxed()
+                                                .parallel()
+                                                .collect(groupAndSummarizeLongByConcurrent(
+                                                            i -> i % 2, naturalOrder(),
+                                                            i -> i));
+        assertThat(longs.keySet(), equalTo(new TreeSet<>(Arrays.asList(0, 1))));
+        assertThat(longs.get(0).getMax(), equalTo(8L));
+        assertThat(longs.get(1).getSum(), equalTo(25L));
+        NavigableMap<Integer, DoubleSummaryStatistics> doubles = IntStream.range(0, 10)
+                                                .boxed()
+                                                .collect(groupAndSummarizeDoubleBy(
+                                                            i -> i % 2,
+                                                            Comparator.reverseOrder(),
+                                                            i -> i / 2.0));
+        assertThat(doubles.firstKey(), equalTo(1));
+        assertThat(doubles.get(0).getAverage(), equalTo(2.0));
+        assertThat(doubles.get(1).getCount(), equalTo(5L));
+        assertThat(IntStream.range(0, 10)
+                            .boxed()
+                            .collect(groupAndSummarizeLongBy(i -> i % 2, naturalOrder(),
+                                        i -> i))
+                            .get(1).getMin(),
+                    equalTo(1L));
+        assertThat(IntStream.range(0, 10)
+                            .boxed()
+                            .parallel()
+                            .collect(groupAndSummarizeDoubleByConcurrent(i -> i % 2,
+                                        naturalOrder(), i -> i))
+                            .get(0).getSum(),
+                    equalTo(20.0));
+    }
+
     @Test
     public void testConcurrentGroupingKeyMapping() {
         assertMapOrdering(IntStream.range(0, 4)
@@ -227,4 +926,360 @@ public class NavigableMapCollectorsTest {
                             combineToNavigableMap(Comparator.reverseOrder(),
                                                     toMap(3, 9, 3), toMap(2, 6, 0)));
     }
+
+    @Test
+    public void testParallelConcurrentGroupingKeyValueMappingWithLimit() {
+        NavigableMap<Integer, List<Integer>> expected = new TreeMap<>();
+        IntStream.range(0, 50000).boxed()
+                .collect(groupAndSortBy(i -> i % 13, i -> (i * 7919) % 50000))
+                .forEach((key, values) -> expected.put(key, values.subList(0, 10)));
+        assertMapOrdering(IntStream.range(0, 50000)
+                                    .boxed()
+                                    .parallel()
+                                    .collect(groupAndSortByConcurrent(i -> i % 13,
+                                                i -> (i * 7919) % 50000,
+                                                naturalOrder(), naturalOrder(), 10)),
+                            expected);
+    }
+
+    @Test
+    public void testConcurrentGroupingKeyMappingWithDownstream() {
+        NavigableMap<Integer, Set<Integer>> expected = new TreeMap<>();
+        IntStream.range(0, 10000).forEach(
+                i -> expected.computeIfAbsent(i % 7, k -> new HashSet<>()).add(i));
+        assertMapOrdering(IntStream.range(0, 10000)
+                                    .boxed()
+                                    .parallel()
+                                    .collect(groupAndSortByConcurrent(i -> i % 7,
+                                                Collectors.toSet())),
+                            expected);
+    }
+
+    @Test
+    public void testParallelConcurrentGroupingHotKeyMapping() {
+        NavigableMap<Integer, List<Integer>> expected = IntStream.range(0, 50000)
+                                                .boxed()
+                                                .collect(groupAndSortBy(i -> i % 10 < 8 ? 0 : i % 97));
+        assertMapOrdering(IntStream.range(0, 50000)
+                                    .map(i -> (i * 7919) % 50000)
+                                    .boxed()
+                                    .parallel()
+                                    .collect(groupAndSortByConcurrent(i -> i % 10 < 8 ? 0 : i % 97)),
+                            expected);
+    }
+
+    @Test
+    public void testMergingConcurrentGroupingKeyValueMappingWithComparisons() {
+        assertMapOrdering(IntStream.range(0, 4)
+                                    .boxed()
+                                    .collect(groupAndSortByConcurrentMerging(i -> 2 + i % 2,
+                                                i -> i * 3,
+                                                Comparator.reverseOrder(),
+                                                Comparator.reverseOrder())),
+                            combineToNavigableMap(Comparator.reverseOrder(),
+                                                    toMap(3, 9, 3), toMap(2, 6, 0)));
+    }
+
+    @Test
+    public void testParallelMergingConcurrentGroupingKeyMapping() {
+        NavigableMap<Integer, List<Integer>> expected = IntStream.range(0, 50000)
+                                                .boxed()
+                                                .collect(groupAndSortBy(i -> i % 313));
+        assertMapOrdering(IntStream.range(0, 50000)
+                                    .map(i -> (i * 7919) % 50000)
+                                    .boxed()
+                                    .parallel()
+                                    .collect(groupAndSortByConcurrentMerging(i -> i % 313)),
+                            expected);
+    }
+
+    private static NavigableMap<Integer, NavigableMap<Integer, List<Integer>>> groupTwice(
+            IntStream stream, Comparator<Integer> comparator) {
+        NavigableMap<Integer, NavigableMap<Integer, List<Integer>>> results =
+                new TreeMap<>(comparator);
+        stream.forEach(i -> results.computeIfAbsent(i % 7, k -> new TreeMap<>(comparator))
+                                    .computeIfAbsent(i % 5, k -> new ArrayList<>())
+                                    .add(i));
+        results.values().forEach(map -> map.values().forEach(list -> list.sort(comparator)));
+        return results;
+    }
+
+    @Test
+    public void testTwoLevelGrouping() {
+        NavigableMap<Integer, NavigableMap<Integer, List<Integer>>> expected =
+                groupTwice(IntStream.range(0, 1000), naturalOrder());
+        NavigableMap<Integer, NavigableMap<Integer, List<Integer>>> result =
+                IntStream.range(0, 1000)
+                            .map(i -> (i * 7919) % 1000)
+                            .boxed()
+                            .collect(groupAndSortBy(i -> i % 7, i -> i % 5, i -> i));
+        assertMapOrdering(result, expected);
+        assertThat(result.get(3).headMap(2), equalTo(expected.get(3).headMap(2)));
+        assertThat(result.get(3).descendingMap().firstKey(), equalTo(4));
+        assertThat(result.get(3).get(5), equalTo(null));
+    }
+
+    @Test
+    public void testTwoLevelGroupingWithComparisons() {
+        Comparator<Integer> comparator = Comparator.reverseOrder();
+        assertMapOrdering(IntStream.range(0, 1000)
+                                    .boxed()
+                                    .parallel()
+                                    .collect(groupAndSortBy(i -> i % 7, comparator,
+                                                i -> i % 5, comparator, i -> i, comparator)),
+                            groupTwice(IntStream.range(0, 1000), comparator));
+    }
+
+    @Test
+    public void testParallelTwoLevelConcurrentGrouping() {
+        NavigableMap<Integer, NavigableMap<Integer, List<Integer>>> result =
+                IntStream.range(0, 50000)
+                            .map(i -> (i * 7919) % 50000)
+                            .boxed()
+                            .parallel()
+                            .collect(groupAndSortByConcurrent(i -> i % 7, i -> i % 5, i -> i));
+        assertMapOrdering(result, groupTwice(IntStream.range(0, 50000), naturalOrder()));
+        assertThat(result.getClass(), equalTo(ConcurrentSkipListMap.class));
+    }
+
+    @Test
+    public void testParallelTwoLevelConcurrentGroupingOnHotKey() {
+        NavigableMap<Integer, NavigableMap<Integer, List<Integer>>> expected =
+                groupTwice(IntStream.range(0, 50000).map(i -> i * 7), naturalOrder());
+        NavigableMap<Integer, NavigableMap<Integer, List<Integer>>> result =
+                IntStream.range(0, 50000)
+                            .map(i -> (i * 7919) % 50000 * 7)
+                            .boxed()
+                            .parallel()
+                            .collect(groupAndSortByConcurrent(i -> i % 7, i -> i % 5, i -> i));
+        assertThat(result.size(), equalTo(1));
+        assertMapOrdering(result, expected);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testDuplicateLongKeyMappingThrows() {
+        IntStream.range(0, 4).boxed().collect(toLongNavigableMap(i -> 0L));
+    }
+
+    @Test
+    public void testLongKeyMapping() {
+        LongNavigableMap<Integer> result = IntStream.range(0, 4)
+                                                .boxed()
+                                                .collect(toLongNavigableMap(i -> 4L - i));
+        assertMapOrdering(result, IntStream.range(0, 4)
+                                            .boxed()
+                                            .collect(toNavigableMap(i -> 4L - i)));
+        assertThat(result.get(2L), equalTo(2));
+        assertThat(result.containsKey(5L), equalTo(false));
+        assertThat(result.lowerValue(2L), equalTo(3));
+        assertThat(result.floorValue(0L), equalTo(null));
+        assertThat(result.ceilingValue(5L), equalTo(null));
+        assertThat(result.higherValue(2L), equalTo(1));
+        assertThat(result.descendingMap().floorEntry(2L).getValue(), equalTo(2));
+    }
+
+    @Test
+    public void testIntKeyValueMappingWithValueMerger() {
+        IntNavigableMap<Integer> result = IntStream.range(0, 10)
+                                                .boxed()
+                                                .parallel()
+                                                .collect(toIntNavigableMap(i -> -(i % 3),
+                                                            i -> i, Integer::sum));
+        assertMapOrdering(result, asNavigableMap(-2, 15, -1, 12, 0, 18));
+        assertThat(result.floorValue(-1), equalTo(12));
+        assertThat(result.ceilingValue(-3), equalTo(15));
+    }
+
+    @Test
+    public void testLargeLongKeyValueMappingWithValueMerger() {
+        long[] keys = new Random(17L).longs(20000, -1000, 1000).map(i -> i << 40).toArray();
+        NavigableMap<Long, String> expected = new TreeMap<>();
+        IntStream.range(0, keys.length).forEach(
+                i -> expected.merge(keys[i], Integer.toString(i), String::concat));
+        assertMapOrdering(IntStream.range(0, keys.length)
+                                    .boxed()
+                                    .parallel()
+                                    .collect(toLongNavigableMap(i -> keys[i],
+                                                i -> Integer.toString(i),
+                                                String::concat)),
+                            expected);
+    }
+
+    @Test
+    public void testDoubleKeyMapping() {
+        double[] keys = { 0.0, -0.0, 1.5, -1.5, Double.NaN, Double.NEGATIVE_INFINITY };
+        DoubleNavigableMap<Integer> result = IntStream.range(0, keys.length)
+                                                .boxed()
+                                                .collect(toDoubleNavigableMap(i -> keys[i]));
+        assertThat(new ArrayList<>(result.keySet()),
+                equalTo(stream(keys).sorted().boxed().collect(Collectors.toList())));
+        assertThat(result.get(-0.0), equalTo(1));
+        assertThat(result.floorValue(-1.0), equalTo(3));
+        assertThat(result.higherValue(Double.POSITIVE_INFINITY), equalTo(4));
+    }
+
+    @Test
+    public void testGroupingLongKeyMapping() {
+        assertMapOrdering(IntStream.range(0, 4)
+                                    .boxed()
+                                    .collect(groupAndSortByLong(i -> i % 2)),
+                            IntStream.range(0, 4)
+                                    .boxed()
+                                    .collect(groupAndSortBy(i -> (long) (i % 2))));
+    }
+
+    @Test
+    public void testGroupingIntKeyValueMapping() {
+        assertMapOrdering(IntStream.range(0, 4)
+                                    .boxed()
+                                    .parallel()
+                                    .collect(groupAndSortByInt(i -> 1 + i % 2, i -> i * 2)),
+                            combineToNavigableMap(toMap(1, 0, 4), toMap(2, 2, 6)));
+    }
+
+    @Test
+    public void testGroupingDoubleKeyValueMappingWithComparison() {
+        assertMapOrdering(IntStream.range(0, 4)
+                                    .boxed()
+                                    .collect(groupAndSortByDouble(i -> 2 + i % 2, i -> i * 3.0,
+                                                Comparator.reverseOrder())),
+                            combineToNavigableMap(toMap(2.0, 6.0, 0.0),
+                                                    toMap(3.0, 9.0, 3.0)));
+    }
+
+    @Test
+    public void testHistogram() {
+        int[] values = new Random(43L).ints(100000, -50, 1000).toArray();
+        Buckets buckets = Buckets.exponential(1, 2, 8);
+        NavigableMap<Double, DoubleSummaryStatistics> expected = new TreeMap<>();
+        IntStream.range(0, 8).forEach(i -> expected.put(Math.pow(2, i),
+                new DoubleSummaryStatistics()));
+        stream(values).filter(value -> value >= 1)
+                        .forEach(value -> expected.floorEntry((double) value)
+                                                    .getValue()
+                                                    .accept(value));
+        DoubleNavigableMap<BucketStatistics> result = stream(values)
+                                                        .boxed()
+                                                        .parallel()
+                                                        .collect(toHistogram(i -> i, buckets));
+        assertThat(new ArrayList<>(result.keySet()), equalTo(new ArrayList<>(expected.keySet())));
+        expected.forEach((key, statistics) -> assertThat(result.get(key),
+                equalTo(new BucketStatistics(statistics.getCount(), statistics.getSum(),
+                        statistics.getMin(), statistics.getMax()))));
+        assertThat(result.floorValue(100.5).getMax(), equalTo(127.0));
+    }
+
+    @Test
+    public void testPrimitiveStreamHistogram() {
+        long[] values = new Random(47L).longs(100000, -50, 1000).toArray();
+        Buckets buckets = Buckets.linear(0, 100, 10);
+        DoubleNavigableMap<BucketStatistics> expected = stream(values)
+                                                            .boxed()
+                                                            .collect(toHistogram(i -> i, buckets));
+        assertThat(toHistogram(stream(values).parallel(), buckets), equalTo(expected));
+        assertThat(toHistogram(stream(values).asDoubleStream().parallel(), buckets),
+                    equalTo(expected));
+        assertThat(toHistogram(stream(values).asDoubleStream(), buckets).floorValue(950.5)
+                                                                        .getMax(),
+                    equalTo(999.0));
+    }
+
+    @Test
+    public void testRangeBoundedMapping() {
+        NavigableMap<Integer, Integer> expected = IntStream.range(0, 10000)
+                                                    .boxed()
+                                                    .collect(toNavigableMap(i -> i,
+                                                                i -> i * 2));
+        AtomicInteger mapped = new AtomicInteger();
+        NavigableMap<Integer, Integer> result = IntStream.range(0, 10000)
+                                                    .map(i -> (i * 7919) % 10000)
+                                                    .boxed()
+                                                    .parallel()
+                                                    .collect(toNavigableMap(i -> i, i -> {
+                                                        mapped.incrementAndGet();
+                                                        return i * 2;
+                                                    }, KeyBounds.range(100, 200)));
+        assertMapOrdering(result, expected.subMap(100, true, 200, false));
+        assertThat(mapped.get(), equalTo(100));
+        assertMapOrdering(IntStream.range(0, 10000)
+                                    .boxed()
+                                    .collect(toNavigableMap(i -> i, i -> i * 2,
+                                                KeyBounds.range(100, false, 200, true))),
+                            expected.subMap(100, false, 200, true));
+        assertMapOrdering(IntStream.range(0, 10000)
+                                    .boxed()
+                                    .collect(toNavigableMap(i -> i, i -> i * 2,
+                                                KeyBounds.atLeast(9990))),
+                            expected.tailMap(9990, true));
+        assertMapOrdering(IntStream.range(0, 10000)
+                                    .boxed()
+                                    .collect(toNavigableMap(i -> i, i -> i * 2,
+                                                KeyBounds.below(10))),
+                            expected.headMap(10, false));
+    }
+
+    @Test
+    public void testRankBoundedMapping() {
+        NavigableMap<Integer, String> expected = IntStream.range(0, 10000)
+                                                    .boxed()
+                                                    .collect(toNavigableMap(i -> i % 100,
+                                                                String::valueOf,
+                                                                naturalOrder(),
+                                                                (a, b) -> a + "," + b));
+        assertMapOrdering(IntStream.range(0, 10000)
+                                    .boxed()
+                                    .parallel()
+                                    .collect(toNavigableMap(i -> i % 100, String::valueOf,
+                                                naturalOrder(), (a, b) -> a + "," + b,
+                                                KeyBounds.smallest(5))),
+                            expected.headMap(5, false));
+        assertMapOrdering(IntStream.range(0, 10000)
+                                    .boxed()
+                                    .parallel()
+                                    .collect(toNavigableMap(i -> i % 100, String::valueOf,
+                                                naturalOrder(), (a, b) -> a + "," + b,
+                                                KeyBounds.largest(5))),
+                            expected.tailMap(95, true));
+    }
+
+    @Test
+    public void testBoundedGrouping() {
+        NavigableMap<Integer, List<Integer>> expected = IntStream.range(0, 10000)
+                                                    .boxed()
+                                                    .collect(groupAndSortBy(i -> i % 50,
+                                                                i -> (i * 7919) % 10000));
+        assertMapOrdering(IntStream.range(0, 10000)
+                                    .boxed()
+                                    .parallel()
+                                    .collect(groupAndSortBy(i -> i % 50,
+                                                i -> (i * 7919) % 10000,
+                                                KeyBounds.largest(3))),
+                            expected.tailMap(47, true));
+        assertMapOrdering(IntStream.range(0, 10000)
+                                    .boxed()
+                                    .collect(groupAndSortBy(i -> i % 50,
+                                                i -> (i * 7919) % 10000,
+                                                KeyBounds.range(10, 20))),
+                            expected.subMap(10, true, 20, false));
+        assertMapOrdering(IntStream.range(0, 10000)
+                                    .boxed()
+                                    .collect(groupAndSortBy(i -> i % 50,
+                                                i -> (i * 7919) % 10000, naturalOrder(),
+                                                Comparator.reverseOrder(),
+                                                KeyBounds.smallest(1))),
+                            combineToNavigableMap(toMap(0, expected.get(0).stream()
+                                    .sorted(Comparator.reverseOrder())
+                                    .toArray(Integer[]::new))));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidKeyRangeThrows() {
+        IntStream.range(0, 4).boxed().collect(toNavigableMap(i -> i, i -> i,
+                KeyBounds.range(3, 1)));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidKeyLimitThrows() {
+        KeyBounds.largest(0);
+    }
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class SortKeysTest {
+
+    private static final Comparator<byte[]> COMPARATOR = SortKeys.comparator();
+
+    private static <T> void assertSameOrdering(T a, T b, Comparator<? super T> comparator,
+            Function<? super T, byte[]> encoder) {
+        assertThat(Integer.signum(COMPARATOR.compare(encoder.apply(a), encoder.apply(b))),
+                equalTo(Integer.signum(comparator.compare(a, b))));
+    }
+
+    @Test
+    public void testLongOrdering() {
+        Random random = new Random(1L);
+        long[] edges = { Long.MIN_VALUE, -1L, 0L, 1L, Long.MAX_VALUE };
+        for (long a : edges) {
+            for (long b : edges) {
+                assertSameOrdering(a, b, Long::compare, SortKeys::of);
+            }
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertSameOrdering(random.nextLong(), random.nextLong(), Long::compare,
+                    SortKeys::of);
+        }
+    }
+
+    @Test
+    public void testIntOrdering() {
+        Random random = new Random(2L);
+        int[] edges = { Integer.MIN_VALUE, -1, 0, 1, Integer.MAX_VALUE };
+        for (int a : edges) {
+            for (int b : edges) {
+                assertSameOrdering(a, b, Integer::compare, SortKeys::of);
+            }
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertSameOrdering(random.nextInt(), random.nextInt(), Integer::compare,
+                    SortKeys::of);
+        }
+    }
+
+    @Test
+    public void testDoubleOrdering() {
+        double[] edges = { Double.NEGATIVE_INFINITY, -Double.MAX_VALUE, -1.5, -0.0, 0.0,
+                Double.MIN_VALUE, 1.5, Double.POSITIVE_INFINITY, Double.NaN };
+        for (double a : edges) {
+            for (double b : edges) {
+                assertSameOrdering(a, b, Double::compare, SortKeys::of);
+            }
+        }
+    }
+
+    @Test
+    public void testStringOrdering() {
+        String[] values = { "", "a", "ab", "b", "\u0000", "a\u0000", "\u00e9", "\uffff",
+                "\ud83d\ude00", "Z", "\ud800", "\udfff", "\ufffd",
+                "a\ud800", "a\ufffd" };
+        for (String a : values) {
+            for (String b : values) {
+                assertSameOrdering(a, b, Comparator.naturalOrder(), SortKeys::of);
+            }
+        }
+    }
+
+    @Test
+    public void testTupleOrdering() {
+        String[] values = { "", "a", "ab", "b", "\u0000", "a\u0000", "\u0000a" };
+        Comparator<String[]> comparator = (a, b) -> a[0].equals(b[0])
+                ? a[1].compareTo(b[1]) : a[0].compareTo(b[0]);
+        Function<String[], byte[]> encoder = pair -> SortKeys.tuple(SortKeys.of(pair[0]),
+                SortKeys.of(pair[1]));
+        for (String a : values) {
+            for (String b : values) {
+                for (String c : values) {
+                    for (String d : values) {
+                        assertSameOrdering(new String[] { a, b }, new String[] { c, d },
+                                comparator, encoder);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLoneSurrogateRadixKeyMapping() {
+        NavigableMap<String, String> result = Stream.of("\ud800", "\ufffd", "\udc00")
+                .collect(NavigableMapCollectors.toRadixNavigableMap(s -> s, s -> s));
+        assertThat(new ArrayList<>(result.keySet()),
+                equalTo(Arrays.asList("\ud800", "\udc00", "\ufffd")));
+    }
+}
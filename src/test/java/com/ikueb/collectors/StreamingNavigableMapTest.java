@@ -0,0 +1,188 @@
+/*
+ * Copyright 2017 h-j-k. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ikueb.collectors;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.testng.Assert.fail;
+
+public class StreamingNavigableMapTest {
+
+    private static final Comparator<Long> ORDER = Comparator.naturalOrder();
+
+    private static NavigableMap<Long, Long> expected(long from, long to, long value) {
+        NavigableMap<Long, Long> results = new TreeMap<>();
+        LongStream.range(from, to).forEach(key -> results.put(key, value));
+        return results;
+    }
+
+    @Test
+    public void testConcurrentAccumulation() {
+        StreamingNavigableMap<Integer, Long, Long> map =
+                StreamingNavigableMap.of(i -> (long) (i % 1000), i -> 1L, Long::sum);
+        IntStream.range(0, 100000).parallel().boxed().forEach(map);
+        assertThat(map.snapshot(), equalTo(expected(0, 1000, 100)));
+    }
+
+    private static void assertConcurrentSnapshots(
+            StreamingNavigableMap<Integer, Long, Long> map, ExecutorService producers)
+            throws InterruptedException, ExecutionException {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int p = 0; p < 4; p++) {
+            int producer = p;
+            futures.add(producers.submit(() -> IntStream.range(0, 25000)
+                    .forEach(i -> map.accept(producer * 25000 + i))));
+        }
+        long last = 0;
+        while (futures.stream().anyMatch(future -> !future.isDone())) {
+            long total = map.snapshot().values().stream().mapToLong(Long::longValue).sum();
+            assertThat(total >= last && total <= 100000, equalTo(true));
+            last = total;
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        assertThat(map.snapshot(), equalTo(expected(0, 1000, 100)));
+    }
+
+    @Test
+    public void testConcurrentAccumulationWithSnapshots() throws Exception {
+        ExecutorService producers = Executors.newFixedThreadPool(4);
+        try {
+            assertConcurrentSnapshots(StreamingNavigableMap.of(i -> (long) (i % 1000),
+                    i -> 1L, Long::sum), producers);
+        } finally {
+            producers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testConcurrentAccumulationFoldingOnExecutor() throws Exception {
+        ExecutorService producers = Executors.newFixedThreadPool(4);
+        ExecutorService folder = Executors.newSingleThreadExecutor();
+        try {
+            assertConcurrentSnapshots(StreamingNavigableMap.<Integer, Long, Long>of(
+                    i -> (long) (i % 1000), i -> 1L, Long::sum).foldingOn(folder),
+                    producers);
+        } finally {
+            producers.shutdownNow();
+            folder.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRejectedElementKeepsAccepting() {
+        StreamingNavigableMap<Integer, Integer, Integer> map =
+                StreamingNavigableMap.of(i -> i == 5 ? null : i, i -> i, Integer::sum);
+        for (int i = 0; i < 10; i++) {
+            try {
+                map.accept(i);
+                assertThat(i == 5, equalTo(false));
+            } catch (NullPointerException e) {
+                assertThat(i, equalTo(5));
+            }
+        }
+        assertThat(new ArrayList<>(map.snapshot().keySet()),
+                equalTo(Arrays.asList(0, 1, 2, 3, 4, 6, 7, 8, 9)));
+        map.accept(100);
+        assertThat(map.snapshot().lastKey(), equalTo(100));
+        assertThat(map.snapshot().size(), equalTo(10));
+    }
+
+    @Test
+    public void testFailedFoldKeepsAccepting() {
+        StreamingNavigableMap<Integer, Integer, Integer> map = StreamingNavigableMap.of(
+                i -> i % 3, i -> i, (a, b) -> {
+                    if (b < 0) {
+                        throw new IllegalStateException();
+                    }
+                    return a + b;
+                });
+        IntStream.range(0, 9).boxed().forEach(map);
+        map.accept(-3);
+        try {
+            map.snapshot();
+            fail("Expecting the merge operator to fail.");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        IntStream.range(0, 3).boxed().forEach(map);
+        assertThat(map.snapshot().size(), equalTo(3));
+        assertThat(map.snapshot().get(2), equalTo(2));
+    }
+
+    @Test
+    public void testWindowEviction() {
+        StreamingNavigableMap<Long, Long, Long> map = StreamingNavigableMap.byWindow(
+                t -> t / 10, t -> 1L, ORDER, Long::sum, key -> key - 99);
+        LongStream.range(0, 100000).boxed().forEach(map);
+        assertThat(map.snapshot(), equalTo(expected(9900, 10000, 10)));
+        map.accept(50L);
+        assertThat(map.snapshot(), equalTo(expected(9900, 10000, 10)));
+        map.accept(100000L);
+        assertThat(map.snapshot().firstKey(), equalTo(9901L));
+        assertThat(map.snapshot().lastEntry().getValue(), equalTo(1L));
+    }
+
+    @Test
+    public void testSizeEviction() {
+        StreamingNavigableMap<Long, Long, Long> map = StreamingNavigableMap.bySize(
+                t -> t / 3, t -> 1L, ORDER, Long::sum, 500);
+        LongStream.range(0, 30000).boxed().forEach(map);
+        assertThat(map.snapshot(), equalTo(expected(9500, 10000, 3)));
+    }
+
+    @Test
+    public void testSnapshotsAreConsistent() {
+        StreamingNavigableMap<Long, Long, Long> map =
+                StreamingNavigableMap.of(t -> t, t -> t, Long::sum);
+        LongStream.range(0, 3000).boxed().forEach(map);
+        NavigableMap<Long, Long> snapshot = map.snapshot();
+        NavigableMap<Long, Long> copy = new TreeMap<>(snapshot);
+        LongStream.range(0, 6000).boxed().forEach(map);
+        assertThat(map.evictBefore(1000L).firstKey(), equalTo(1000L));
+        assertThat(snapshot, equalTo(copy));
+        assertThat(map.snapshot().size(), equalTo(5000));
+        assertThat(map.snapshot().get(2999L), equalTo(2 * 2999L));
+        assertThat(new ArrayList<>(map.snapshot().descendingKeySet().headSet(5997L)),
+                equalTo(LongStream.rangeClosed(5998, 5999)
+                                    .boxed()
+                                    .sorted(Collections.reverseOrder())
+                                    .collect(Collectors.toList())));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNonPositiveSizeThrows() {
+        StreamingNavigableMap.<Long, Long, Long>bySize(t -> t, t -> t, ORDER, Long::sum, 0);
+    }
+}